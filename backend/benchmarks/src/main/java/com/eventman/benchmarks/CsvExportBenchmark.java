@@ -0,0 +1,105 @@
+package com.eventman.benchmarks;
+
+import com.eventman.Event;
+import com.eventman.EventRepository;
+import com.eventman.PaymentRepository;
+import com.eventman.TicketRepository;
+import com.eventman.UserRepository;
+import com.eventman.controller.ReportController;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event report export: the per-field CSV escaping and the full events CSV generator,
+ * fed from an in-memory repository stub so only the export code is measured.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvExportBenchmark {
+
+    @Param({"100", "10000"})
+    public int events;
+
+    private ReportController reportController;
+    private MethodHandle escapeCsv;
+
+    private final String plainValue = "Bombay Exhibition Centre";
+    private final String quotedValue = "Leading \"tech\" conference, featuring AI\nand startups";
+
+    @Setup
+    public void setUp() throws Exception {
+        List<Event> catalog = new ArrayList<>(events);
+        for (int i = 0; i < events; i++) {
+            catalog.add(sampleEvent(i));
+        }
+
+        EventRepository eventRepository = stub(EventRepository.class, catalog);
+        reportController = new ReportController(eventRepository, stub(UserRepository.class, List.of()),
+                stub(PaymentRepository.class, List.of()), stub(TicketRepository.class, List.of()));
+
+        escapeCsv = MethodHandles.privateLookupIn(ReportController.class, MethodHandles.lookup())
+                .findVirtual(ReportController.class, "escapeCSV", MethodType.methodType(String.class, String.class))
+                .bindTo(reportController);
+    }
+
+    @Benchmark
+    public String escapePlain() throws Throwable {
+        return (String) escapeCsv.invokeExact(plainValue);
+    }
+
+    @Benchmark
+    public String escapeQuoted() throws Throwable {
+        return (String) escapeCsv.invokeExact(quotedValue);
+    }
+
+    @Benchmark
+    public ResponseEntity<String> eventsCsv() {
+        return reportController.getEventsReport("csv");
+    }
+
+    private static Event sampleEvent(int i) {
+        Event event = new Event();
+        event.setId((long) i);
+        event.setName("Event " + i + ", edition \"" + (i % 7) + "\"");
+        event.setDescription("Grand celebration with traditional dances, music and fireworks.\nBring friends, family, and colleagues.");
+        event.setLocation("Jawaharlal Nehru Stadium, Delhi");
+        event.setStartDateTime(Instant.parse("2024-11-12T18:00:00Z"));
+        event.setEndDateTime(Instant.parse("2024-11-12T23:00:00Z"));
+        event.setCapacity(5000);
+        event.setPrice(1500.0);
+        event.setCurrency("INR");
+        event.setType(Event.EventType.FESTIVAL);
+        event.setCategory("Cultural");
+        event.setTags("diwali,festival,cultural,traditional,lights");
+        event.setStatus(Event.EventStatus.ACTIVE);
+        event.setOrganizerId(2L);
+        event.setOrganizerName("Priya Patel");
+        event.setCreatedAt("2024-09-15T10:00:00Z");
+        return event;
+    }
+
+    // Repository stub whose findAll returns the given rows; nothing else is used by the exports
+    @SuppressWarnings("unchecked")
+    private static <R> R stub(Class<R> repositoryType, List<?> rows) {
+        return (R) Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[]{repositoryType},
+                (proxy, method, args) -> {
+                    if ("findAll".equals(method.getName()) && method.getParameterCount() == 0) {
+                        return rows;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,33 @@
+package com.eventman.benchmarks;
+
+import com.eventman.security.JwtAuthenticationEntryPoint;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing one 401 response.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EntryPointBenchmark {
+
+    private final JwtAuthenticationEntryPoint entryPoint = new JwtAuthenticationEntryPoint();
+    private final InsufficientAuthenticationException exception =
+            new InsufficientAuthenticationException("Full authentication is required");
+
+    @Benchmark
+    public MockHttpServletResponse commence() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/payments");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        entryPoint.commence(request, response, exception);
+        return response;
+    }
+}
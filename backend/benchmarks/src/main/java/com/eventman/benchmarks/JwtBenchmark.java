@@ -0,0 +1,60 @@
+package com.eventman.benchmarks;
+
+import com.eventman.security.JwtKeyRing;
+import com.eventman.security.JwtUtil;
+import com.eventman.security.VerifiedClaimsCache;
+import com.eventman.security.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of issuing and verifying access tokens, with and without the verified claims cache.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    @Param({"ES256", "RS256"})
+    public String algorithm;
+
+    private JwtUtil cachedJwtUtil;
+    private JwtUtil uncachedJwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtKeyRing keyRing = new JwtKeyRing(algorithm, "", true, 604800000L, 300000L, 1209600000L);
+        cachedJwtUtil = new JwtUtil(keyRing, new VerifiedClaimsCache(10000), 900000L, 1209600000L);
+        uncachedJwtUtil = new JwtUtil(keyRing, new VerifiedClaimsCache(0), 900000L, 1209600000L);
+        token = cachedJwtUtil.generateToken("organizer@eventman.com", new String[]{"ORGANIZER"});
+        cachedJwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cachedJwtUtil.generateToken("organizer@eventman.com", new String[]{"ORGANIZER"});
+    }
+
+    // What JwtAuthenticationFilter pays for a token it has seen before
+    @Benchmark
+    public VerifiedToken verifyCached() {
+        return cachedJwtUtil.verify(token);
+    }
+
+    // What JwtAuthenticationFilter pays for a new token: full parse and signature check
+    @Benchmark
+    public VerifiedToken verifyUncached() {
+        return uncachedJwtUtil.verify(token);
+    }
+
+    // The legacy accessors each parse the token again
+    @Benchmark
+    public String[] extractRoles() {
+        return uncachedJwtUtil.extractRoles(token);
+    }
+}
@@ -0,0 +1,63 @@
+package com.eventman.benchmarks;
+
+import com.eventman.security.PermissionAuthenticationToken;
+import com.eventman.security.PermissionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Permission checks as done by the controllers: by role strings, by precompiled
+ * mask, and by Authentication (mask fast path vs. authorities fallback).
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PermissionBenchmark {
+
+    private final PermissionService permissionService = new PermissionService();
+    private final String[] roles = {"ATTENDEE", "organizer"};
+
+    private long permissionMask;
+    private Authentication maskedAuthentication;
+    private Authentication plainAuthentication;
+
+    @Setup
+    public void setUp() {
+        List<SimpleGrantedAuthority> authorities = List.of(
+                new SimpleGrantedAuthority("ROLE_ATTENDEE"),
+                new SimpleGrantedAuthority("ROLE_ORGANIZER"));
+
+        permissionMask = permissionService.permissionMask(roles);
+        maskedAuthentication = new PermissionAuthenticationToken("organizer@eventman.com", authorities,
+                permissionMask, permissionService.roleMask(roles));
+        plainAuthentication = new UsernamePasswordAuthenticationToken("organizer@eventman.com", null, authorities);
+    }
+
+    @Benchmark
+    public boolean hasPermissionByRoles() {
+        return permissionService.hasPermission(roles, PermissionService.Permission.DELETE_EVENT);
+    }
+
+    @Benchmark
+    public boolean hasPermissionByMask() {
+        return permissionService.hasPermission(permissionMask, PermissionService.Permission.DELETE_EVENT);
+    }
+
+    @Benchmark
+    public boolean canCreateEventWithMask() {
+        return permissionService.canCreateEvent(maskedAuthentication);
+    }
+
+    @Benchmark
+    public boolean canCreateEventFromAuthorities() {
+        return permissionService.canCreateEvent(plainAuthentication);
+    }
+}
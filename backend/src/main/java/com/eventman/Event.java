@@ -2,9 +2,18 @@ package com.eventman;
 
 import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.time.Instant;
 
 @Entity
-@Table(name = "events")
+@Table(name = "events", indexes = {
+    @Index(name = "idx_events_starts_at_id", columnList = "starts_at, id"),
+    @Index(name = "idx_events_status_starts_at_id", columnList = "status, starts_at, id"),
+    @Index(name = "idx_events_organizer_starts_at_id", columnList = "organizer_id, starts_at, id"),
+    @Index(name = "idx_events_ends_at", columnList = "ends_at"),
+    @Index(name = "idx_events_status_ends_at", columnList = "status, ends_at")
+})
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Event {
 
@@ -21,11 +30,14 @@ public class Event {
     @Column(length = 500)
     private String location;
 
-    @Column(name = "start_date_time", nullable = false)
-    private String startDateTime;
+    // NOT NULL is enforced by EventTimeMigration once legacy rows are converted
+    @Column(name = "starts_at")
+    @JsonDeserialize(using = LenientInstantDeserializer.class)
+    private Instant startDateTime;
 
-    @Column(name = "end_date_time", nullable = false)
-    private String endDateTime;
+    @Column(name = "ends_at")
+    @JsonDeserialize(using = LenientInstantDeserializer.class)
+    private Instant endDateTime;
 
     @Column
     private Integer capacity;
@@ -63,7 +75,7 @@ public class Event {
     public Event() {}
 
     // Constructor with all fields
-    public Event(Long id, String name, String description, String location, String startDateTime, String endDateTime,
+    public Event(Long id, String name, String description, String location, Instant startDateTime, Instant endDateTime,
                  Integer capacity, Double price, String currency, EventType type, String category, String tags,
                  EventStatus status, Long organizerId, String organizerName, String createdAt) {
         this.id = id;
@@ -97,11 +109,11 @@ public class Event {
     public String getLocation() { return location; }
     public void setLocation(String location) { this.location = location; }
 
-    public String getStartDateTime() { return startDateTime; }
-    public void setStartDateTime(String startDateTime) { this.startDateTime = startDateTime; }
+    public Instant getStartDateTime() { return startDateTime; }
+    public void setStartDateTime(Instant startDateTime) { this.startDateTime = startDateTime; }
 
-    public String getEndDateTime() { return endDateTime; }
-    public void setEndDateTime(String endDateTime) { this.endDateTime = endDateTime; }
+    public Instant getEndDateTime() { return endDateTime; }
+    public void setEndDateTime(Instant endDateTime) { this.endDateTime = endDateTime; }
 
     public Integer getCapacity() { return capacity; }
     public void setCapacity(Integer capacity) { this.capacity = capacity; }
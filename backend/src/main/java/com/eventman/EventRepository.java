@@ -1,8 +1,16 @@
 package com.eventman;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -17,4 +25,111 @@ public interface EventRepository extends JpaRepository<Event, Long> {
     List<Event> findByOrganizerId(Long organizerId);
 
     List<Event> findByNameContainingIgnoreCase(String name);
+
+    /**
+     * Next events starting at or after the given time; an index range scan on (starts_at, id)
+     */
+    List<Event> findByStartDateTimeGreaterThanEqualOrderByStartDateTimeAscIdAsc(Instant from, Pageable pageable);
+
+    List<Event> findByIdBetweenOrderByIdAsc(Long fromId, Long toId);
+
+    @Query("SELECT e.name, e.location, e.organizerName FROM Event e")
+    List<Object[]> findAutocompleteValues();
+
+    @Query("SELECT e.id, e.status, e.type, e.category, e.tags FROM Event e")
+    List<Object[]> findFacetValues();
+
+    /**
+     * (id, startDateTime) of events in a status starting in [from, to); a range on (status, starts_at)
+     */
+    @Query("SELECT e.id, e.startDateTime FROM Event e WHERE e.status = :status " +
+           "AND e.startDateTime >= :from AND e.startDateTime < :to")
+    List<Object[]> findStartsBetween(@Param("status") Event.EventStatus status,
+                                     @Param("from") Instant from,
+                                     @Param("to") Instant to);
+
+    /**
+     * (id, endDateTime) of events in a status ending in [from, to); a range on (status, ends_at)
+     */
+    @Query("SELECT e.id, e.endDateTime FROM Event e WHERE e.status = :status " +
+           "AND e.endDateTime >= :from AND e.endDateTime < :to")
+    List<Object[]> findEndsBetween(@Param("status") Event.EventStatus status,
+                                   @Param("from") Instant from,
+                                   @Param("to") Instant to);
+
+    @Query("SELECT e.id FROM Event e WHERE e.status = :status AND e.startDateTime <= :now")
+    List<Long> findIdsStartedBy(@Param("status") Event.EventStatus status, @Param("now") Instant now, Pageable pageable);
+
+    @Query("SELECT e.id FROM Event e WHERE e.status = :status AND e.endDateTime <= :now")
+    List<Long> findIdsEndedBy(@Param("status") Event.EventStatus status, @Param("now") Instant now, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Event e WHERE e.id IN :ids")
+    List<Event> findAllByIdForUpdate(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Event e SET e.status = :status WHERE e.id IN :ids")
+    int updateStatus(@Param("ids") List<Long> ids, @Param("status") Event.EventStatus status);
+
+    @Query("SELECT MIN(e.id) FROM Event e")
+    Long findMinId();
+
+    @Query("SELECT MAX(e.id) FROM Event e")
+    Long findMaxId();
+
+    /**
+     * Keyset filter shared by the page queries. Null filters are ignored and events
+     * must carry every one of the tags (tagCount is their number, 0 for none); a null
+     * afterStartDateTime starts from the first event, otherwise rows strictly after
+     * (afterStartDateTime, afterId) are returned so deep pages use the same index seek.
+     */
+    String PAGE_FILTER = "(:status IS NULL OR e.status = :status) AND " +
+            "(:type IS NULL OR e.type = :type) AND " +
+            "(:category IS NULL OR e.category = :category) AND " +
+            "(:organizerId IS NULL OR e.organizerId = :organizerId) AND " +
+            "(:tagCount = 0 OR e.id IN (SELECT t.eventId FROM EventTag t WHERE t.tag IN :tags " +
+            "GROUP BY t.eventId HAVING COUNT(DISTINCT t.tag) = :tagCount)) AND " +
+            "(:from IS NULL OR e.startDateTime >= :from) AND " +
+            "(:to IS NULL OR e.startDateTime < :to) AND " +
+            "(:afterStartDateTime IS NULL OR e.startDateTime > :afterStartDateTime OR " +
+            "(e.startDateTime = :afterStartDateTime AND e.id > :afterId)) " +
+            "ORDER BY e.startDateTime ASC, e.id ASC";
+
+    String SUMMARY = "SELECT new com.eventman.EventSummary(e.id, e.name, e.location, e.startDateTime, " +
+            "e.endDateTime, e.status, e.type, e.category, e.price, e.currency, e.capacity) FROM Event e";
+
+    /**
+     * One keyset page ordered by (startDateTime, id), see {@link #PAGE_FILTER}
+     */
+    @Query("SELECT e FROM Event e WHERE " + PAGE_FILTER)
+    List<Event> findPage(@Param("status") Event.EventStatus status,
+                         @Param("type") Event.EventType type,
+                         @Param("category") String category,
+                         @Param("organizerId") Long organizerId,
+                         @Param("tags") Collection<String> tags,
+                         @Param("tagCount") long tagCount,
+                         @Param("from") Instant from,
+                         @Param("to") Instant to,
+                         @Param("afterStartDateTime") Instant afterStartDateTime,
+                         @Param("afterId") Long afterId,
+                         Pageable pageable);
+
+    /**
+     * The same page as {@link #findPage} with only the summary columns selected
+     */
+    @Query(SUMMARY + " WHERE " + PAGE_FILTER)
+    List<EventSummary> findSummaryPage(@Param("status") Event.EventStatus status,
+                                       @Param("type") Event.EventType type,
+                                       @Param("category") String category,
+                                       @Param("organizerId") Long organizerId,
+                                       @Param("tags") Collection<String> tags,
+                                       @Param("tagCount") long tagCount,
+                                       @Param("from") Instant from,
+                                       @Param("to") Instant to,
+                                       @Param("afterStartDateTime") Instant afterStartDateTime,
+                                       @Param("afterId") Long afterId,
+                                       Pageable pageable);
+
+    @Query(SUMMARY + " WHERE e.startDateTime >= :from ORDER BY e.startDateTime ASC, e.id ASC")
+    List<EventSummary> findUpcomingSummaries(@Param("from") Instant from, Pageable pageable);
 }
@@ -0,0 +1,67 @@
+package com.eventman;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+
+import java.time.Instant;
+
+/**
+ * Read-only projection of the light event columns used by list pages. Built
+ * directly by JPQL constructor expressions, so list queries never load the
+ * description or tags and never hydrate (or dirty-check) Event entities.
+ */
+@JsonFilter(EventSummary.FIELDS_FILTER)
+public class EventSummary {
+
+    public static final String FIELDS_FILTER = "eventSummaryFields";
+
+    private final Long id;
+    private final String name;
+    private final String location;
+    private final Instant startDateTime;
+    private final Instant endDateTime;
+    private final Event.EventStatus status;
+    private final Event.EventType type;
+    private final String category;
+    private final Double price;
+    private final String currency;
+    private final Integer capacity;
+
+    public EventSummary(Long id, String name, String location, Instant startDateTime, Instant endDateTime,
+                        Event.EventStatus status, Event.EventType type, String category,
+                        Double price, String currency, Integer capacity) {
+        this.id = id;
+        this.name = name;
+        this.location = location;
+        this.startDateTime = startDateTime;
+        this.endDateTime = endDateTime;
+        this.status = status;
+        this.type = type;
+        this.category = category;
+        this.price = price;
+        this.currency = currency;
+        this.capacity = capacity;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+
+    public String getName() { return name; }
+
+    public String getLocation() { return location; }
+
+    public Instant getStartDateTime() { return startDateTime; }
+
+    public Instant getEndDateTime() { return endDateTime; }
+
+    public Event.EventStatus getStatus() { return status; }
+
+    public Event.EventType getType() { return type; }
+
+    public String getCategory() { return category; }
+
+    public Double getPrice() { return price; }
+
+    public String getCurrency() { return currency; }
+
+    public Integer getCapacity() { return capacity; }
+}
@@ -0,0 +1,39 @@
+package com.eventman;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "event_tags",
+        uniqueConstraints = @UniqueConstraint(name = "uk_event_tags_event_tag", columnNames = {"event_id", "tag"}),
+        indexes = @Index(name = "idx_event_tags_tag_event", columnList = "tag, event_id"))
+public class EventTag {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    // Normalized (trimmed, lower-case) form of one entry of Event.tags
+    @Column(nullable = false, length = 100)
+    private String tag;
+
+    // Default constructor
+    public EventTag() {}
+
+    public EventTag(Long eventId, String tag) {
+        this.eventId = eventId;
+        this.tag = tag;
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getEventId() { return eventId; }
+    public void setEventId(Long eventId) { this.eventId = eventId; }
+
+    public String getTag() { return tag; }
+    public void setTag(String tag) { this.tag = tag; }
+}
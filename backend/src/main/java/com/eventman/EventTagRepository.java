@@ -0,0 +1,23 @@
+package com.eventman;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EventTagRepository extends JpaRepository<EventTag, Long> {
+
+    @Modifying
+    @Query("DELETE FROM EventTag t WHERE t.eventId = :eventId")
+    int deleteByEventId(@Param("eventId") Long eventId);
+
+    // Events whose tags string has not been normalized into event_tags yet
+    @Query("SELECT e.id, e.tags FROM Event e WHERE e.id > :afterId AND e.tags IS NOT NULL AND e.tags <> '' " +
+           "AND NOT EXISTS (SELECT 1 FROM EventTag t WHERE t.eventId = e.id) ORDER BY e.id")
+    List<Object[]> findUntaggedEvents(@Param("afterId") Long afterId, Pageable pageable);
+}
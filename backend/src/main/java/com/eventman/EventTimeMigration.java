@@ -0,0 +1,161 @@
+package com.eventman;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One-off migration of event times from the legacy free-form
+ * {@code start_date_time}/{@code end_date_time} strings to the typed
+ * {@code starts_at}/{@code ends_at} columns.
+ *
+ * Hibernate adds the new columns; this migration then converts existing rows in
+ * id batches (one transaction per batch), drops the legacy columns and their
+ * indexes, and finally makes the new columns NOT NULL. Legacy strings without
+ * an offset are read in {@code events.time-migration.legacy-zone}. If any row
+ * has a start (or a non-blank end) that cannot be parsed, nothing is dropped:
+ * the migration fails, listing those ids, and resumes with the rows still
+ * unconverted once they have been fixed. It runs
+ * while the context starts, before the web server accepts requests that would
+ * insert rows without the legacy columns, and does nothing once they are gone.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class EventTimeMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(EventTimeMigration.class);
+
+    private static final String[] LEGACY_INDEXES = {
+            "idx_events_start_id", "idx_events_status_start_id", "idx_events_organizer_start_id"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final ZoneId legacyZone;
+
+    public EventTimeMigration(JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${events.time-migration.batch-size:1000}") int batchSize,
+                              @Value("${events.time-migration.legacy-zone:UTC}") String legacyZone) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = Math.max(1, batchSize);
+        this.legacyZone = ZoneId.of(legacyZone);
+    }
+
+    @PostConstruct
+    public void migrate() {
+        if (columnExists("start_date_time")) {
+            migrateLegacyColumns();
+        }
+        requireNotNull("starts_at");
+        requireNotNull("ends_at");
+    }
+
+    private void migrateLegacyColumns() {
+        log.info("Migrating event times to starts_at/ends_at in batches of {}, reading local times in {}",
+                batchSize, legacyZone);
+
+        // New rows are written without the legacy columns from now on
+        jdbcTemplate.execute("ALTER TABLE events MODIFY start_date_time VARCHAR(255) NULL, " +
+                "MODIFY end_date_time VARCHAR(255) NULL");
+
+        long lastId = 0;
+        int converted = 0;
+        List<Long> unparseable = new ArrayList<>();
+        while (true) {
+            List<Object[]> rows = jdbcTemplate.query(
+                    "SELECT id, start_date_time, end_date_time FROM events " +
+                    "WHERE id > ? AND starts_at IS NULL ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new Object[] { rs.getLong(1), rs.getString(2), rs.getString(3) },
+                    lastId, batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            List<Object[]> updates = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                String endText = (String) row[2];
+                Instant start = parseOrNull((String) row[1]);
+                Instant end = endText == null || endText.isBlank() ? start : parseOrNull(endText);
+                if (start == null || end == null) {
+                    // Left unconverted, with its legacy text, until someone fixes it
+                    log.warn("Event {} has unparseable times '{}' / '{}'", row[0], row[1], endText);
+                    unparseable.add((Long) row[0]);
+                    continue;
+                }
+                updates.add(new Object[] { Timestamp.from(start), Timestamp.from(end), row[0] });
+            }
+
+            if (!updates.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate("UPDATE events SET starts_at = ?, ends_at = ? WHERE id = ?", updates));
+            }
+            converted += updates.size();
+            lastId = (Long) rows.get(rows.size() - 1)[0];
+        }
+
+        if (!unparseable.isEmpty()) {
+            throw new IllegalStateException("Event time migration converted " + converted + " rows but "
+                    + unparseable.size() + " have unparseable start_date_time/end_date_time: ids "
+                    + unparseable.subList(0, Math.min(unparseable.size(), 100))
+                    + (unparseable.size() > 100 ? " and more (see the warnings above)" : "")
+                    + ". Fix or delete them and restart; the legacy columns are kept until then.");
+        }
+
+        for (String index : LEGACY_INDEXES) {
+            if (indexExists(index)) {
+                jdbcTemplate.execute("ALTER TABLE events DROP INDEX " + index);
+            }
+        }
+        jdbcTemplate.execute("ALTER TABLE events DROP COLUMN start_date_time, DROP COLUMN end_date_time");
+        log.info("Event time migration finished: {} rows converted", converted);
+    }
+
+    private void requireNotNull(String column) {
+        String nullable = jdbcTemplate.query(
+                "SELECT IS_NULLABLE FROM information_schema.COLUMNS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'events' AND COLUMN_NAME = ?",
+                rs -> rs.next() ? rs.getString(1) : null, column);
+        if ("YES".equals(nullable)) {
+            jdbcTemplate.execute("ALTER TABLE events MODIFY " + column + " DATETIME(6) NOT NULL");
+        }
+    }
+
+    private boolean columnExists(String column) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.COLUMNS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'events' AND COLUMN_NAME = ?",
+                Integer.class, column);
+        return count != null && count > 0;
+    }
+
+    private boolean indexExists(String index) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.STATISTICS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'events' AND INDEX_NAME = ?",
+                Integer.class, index);
+        return count != null && count > 0;
+    }
+
+    private Instant parseOrNull(String value) {
+        try {
+            return LenientInstantDeserializer.parse(value, legacyZone);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return null;
+        }
+    }
+}
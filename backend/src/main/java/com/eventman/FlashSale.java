@@ -0,0 +1,50 @@
+package com.eventman;
+
+import jakarta.persistence.*;
+
+/**
+ * A ticket in flash-sale mode. Its inventory is sold from memory
+ * (FlashSaleInventory) starting from {@code baseQuantity}; every unit sold since
+ * is a payment for the ticket with an id above {@code paymentWatermark}, which
+ * is how the remaining quantity is reconstructed after a restart.
+ */
+@Entity
+@Table(name = "flash_sales")
+public class FlashSale {
+
+    @Id
+    @Column(name = "ticket_id")
+    private Long ticketId;
+
+    @Column(name = "base_quantity", nullable = false)
+    private Integer baseQuantity;
+
+    @Column(name = "payment_watermark", nullable = false)
+    private Long paymentWatermark;
+
+    @Column(name = "started_at", nullable = true)
+    private String startedAt;
+
+    // Default constructor
+    public FlashSale() {}
+
+    public FlashSale(Long ticketId, Integer baseQuantity, Long paymentWatermark, String startedAt) {
+        this.ticketId = ticketId;
+        this.baseQuantity = baseQuantity;
+        this.paymentWatermark = paymentWatermark;
+        this.startedAt = startedAt;
+    }
+
+    // Getters and setters
+    public Long getTicketId() { return ticketId; }
+    public void setTicketId(Long ticketId) { this.ticketId = ticketId; }
+
+    public Integer getBaseQuantity() { return baseQuantity; }
+    public void setBaseQuantity(Integer baseQuantity) { this.baseQuantity = baseQuantity; }
+
+    public Long getPaymentWatermark() { return paymentWatermark; }
+    public void setPaymentWatermark(Long paymentWatermark) { this.paymentWatermark = paymentWatermark; }
+
+    public String getStartedAt() { return startedAt; }
+    public void setStartedAt(String startedAt) { this.startedAt = startedAt; }
+}
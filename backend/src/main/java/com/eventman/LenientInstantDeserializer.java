@@ -0,0 +1,80 @@
+package com.eventman;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads event times from the formats clients and legacy rows actually use:
+ * ISO instants, ISO date-times with an offset, local date-times (taken as UTC),
+ * plain dates (midnight UTC) and epoch milliseconds.
+ */
+public class LenientInstantDeserializer extends StdDeserializer<Instant> {
+
+    private static final long serialVersionUID = 1L;
+
+    public LenientInstantDeserializer() {
+        super(Instant.class);
+    }
+
+    @Override
+    public Instant deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+            return Instant.ofEpochMilli(parser.getLongValue());
+        }
+
+        String text = parser.getValueAsString();
+        try {
+            return parse(text);
+        } catch (DateTimeParseException e) {
+            return (Instant) context.handleWeirdStringValue(Instant.class, text, "Unrecognized date-time");
+        }
+    }
+
+    /**
+     * Parse a date-time string; null for blank input, DateTimeParseException if unrecognized
+     */
+    public static Instant parse(String value) {
+        return parse(value, ZoneOffset.UTC);
+    }
+
+    /**
+     * Parse a date-time string, reading local date-times and plain dates in {@code zone}
+     */
+    public static Instant parse(String value, ZoneId zone) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+
+        String text = value.trim();
+        if (text.chars().allMatch(Character::isDigit) && text.length() > 8) {
+            return Instant.ofEpochMilli(Long.parseLong(text));
+        }
+        // "2024-11-12 18:00:00" as written by some SQL clients
+        if (text.length() > 10 && text.charAt(10) == ' ') {
+            text = text.substring(0, 10) + 'T' + text.substring(11);
+        }
+
+        try {
+            return OffsetDateTime.parse(text).toInstant();
+        } catch (DateTimeParseException e) {
+            // no offset; fall through
+        }
+        try {
+            return LocalDateTime.parse(text).atZone(zone).toInstant();
+        } catch (DateTimeParseException e) {
+            // no time; fall through
+        }
+        return LocalDate.parse(text).atStartOfDay(zone).toInstant();
+    }
+}
@@ -1,6 +1,8 @@
 package com.eventman;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -17,4 +19,15 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     List<Payment> findByUserIdAndStatus(Long userId, Payment.PaymentStatus status);
 
     List<Payment> findByEventIdAndStatus(Long eventId, Payment.PaymentStatus status);
+
+    @Query("SELECT COALESCE(MAX(p.id), 0) FROM Payment p")
+    Long findMaxId();
+
+    /**
+     * Tickets bought as payments of the given status for a ticket with ids above {@code afterId}
+     */
+    @Query("SELECT COALESCE(SUM(p.quantity), 0) FROM Payment p " +
+           "WHERE p.ticketId = :ticketId AND p.id > :afterId AND p.status = :status")
+    Long sumQuantityByTicketIdAfter(@Param("ticketId") Long ticketId, @Param("afterId") Long afterId,
+                                    @Param("status") Payment.PaymentStatus status);
 }
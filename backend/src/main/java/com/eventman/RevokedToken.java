@@ -0,0 +1,59 @@
+package com.eventman;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at")
+})
+public class RevokedToken {
+
+    // Either a token's jti, "sub:<email>" to revoke every token issued to a user before revokedAt,
+    // or "access:sub:<email>" to revoke only their access tokens issued before it
+    @Id
+    @Column(name = "token_id", length = 320)
+    private String tokenId;
+
+    @Column(length = 255)
+    private String subject;
+
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+
+    // Once past this instant the revoked token(s) would have expired anyway
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    // A spent single-use refresh token. Reuse is rejected by the primary key when it is claimed
+    // again, so these rows stay out of the in-memory revocation snapshot
+    @Column(name = "claimed", nullable = false)
+    private boolean claimed;
+
+    // Default constructor
+    public RevokedToken() {}
+
+    public RevokedToken(String tokenId, String subject, Instant revokedAt, Instant expiresAt) {
+        this.tokenId = tokenId;
+        this.subject = subject;
+        this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and setters
+    public String getTokenId() { return tokenId; }
+    public void setTokenId(String tokenId) { this.tokenId = tokenId; }
+
+    public String getSubject() { return subject; }
+    public void setSubject(String subject) { this.subject = subject; }
+
+    public Instant getRevokedAt() { return revokedAt; }
+    public void setRevokedAt(Instant revokedAt) { this.revokedAt = revokedAt; }
+
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+
+    public boolean isClaimed() { return claimed; }
+    public void setClaimed(boolean claimed) { this.claimed = claimed; }
+}
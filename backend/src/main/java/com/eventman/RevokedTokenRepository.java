@@ -0,0 +1,31 @@
+package com.eventman;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    // Revocations that still matter, i.e. whose tokens have not expired yet, except spent refresh tokens
+    List<RevokedToken> findByExpiresAtAfterAndClaimedFalse(Instant now);
+
+    // A plain INSERT on the primary key, so two callers claiming the same id cannot both succeed
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO revoked_tokens (token_id, subject, revoked_at, expires_at, claimed) " +
+                   "VALUES (:tokenId, :subject, :revokedAt, :expiresAt, TRUE)", nativeQuery = true)
+    int insertClaimed(@Param("tokenId") String tokenId, @Param("subject") String subject,
+                      @Param("revokedAt") Instant revokedAt, @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
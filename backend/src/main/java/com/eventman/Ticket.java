@@ -40,6 +40,10 @@ public class Ticket {
     @Column(name = "created_at", nullable = true)
     private String createdAt;
 
+    // Set while FlashSaleInventory sells this ticket from memory; the regular purchase path skips it
+    @Column(name = "flash_sale", nullable = false)
+    private boolean flashSale;
+
     // Default constructor
     public Ticket() {}
 
@@ -89,6 +93,9 @@ public class Ticket {
     public String getCreatedAt() { return createdAt; }
     public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
 
+    public boolean isFlashSale() { return flashSale; }
+    public void setFlashSale(boolean flashSale) { this.flashSale = flashSale; }
+
     public enum TicketStatus {
         ACTIVE, SOLD_OUT, CANCELLED, EXPIRED
     }
@@ -0,0 +1,57 @@
+package com.eventman;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Quantity of a ticket set aside for one buyer until {@code expiresAt}. The units
+ * are already taken from the ticket's quantity_available; confirming the hold
+ * turns them into a payment, releasing or expiring it gives them back.
+ */
+@Entity
+@Table(name = "ticket_holds", indexes = @Index(name = "idx_ticket_holds_ticket_id", columnList = "ticket_id"))
+public class TicketHold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "ticket_id", nullable = false)
+    private Long ticketId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    // Default constructor
+    public TicketHold() {}
+
+    public TicketHold(Long ticketId, Long userId, Integer quantity, Instant expiresAt) {
+        this.ticketId = ticketId;
+        this.userId = userId;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getTicketId() { return ticketId; }
+    public void setTicketId(Long ticketId) { this.ticketId = ticketId; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -0,0 +1,26 @@
+package com.eventman;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TicketHoldRepository extends JpaRepository<TicketHold, Long> {
+
+    long countByTicketId(Long ticketId);
+
+    List<TicketHold> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    /**
+     * Remove a hold; returns 0 if it is already gone. Confirm, release and expiry
+     * all go through here, so exactly one of them gets to act on the held units.
+     */
+    @Modifying
+    @Query("DELETE FROM TicketHold h WHERE h.id = :id")
+    int deleteHold(@Param("id") Long id);
+}
@@ -1,9 +1,15 @@
 package com.eventman;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TicketRepository extends JpaRepository<Ticket, Long> {
@@ -13,4 +19,55 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
     List<Ticket> findByEventIdAndStatus(Long eventId, Ticket.TicketStatus status);
 
     List<Ticket> findByStatus(Ticket.TicketStatus status);
+
+    @Query("SELECT t.eventId FROM Ticket t WHERE t.id = :id")
+    Optional<Long> findEventIdById(@Param("id") Long id);
+
+    /**
+     * Take {@code quantity} from an ACTIVE ticket if that many are left, marking it
+     * SOLD_OUT when none remain. One conditional UPDATE, so concurrent buyers can
+     * never oversell; returns 0 if the ticket was not decremented. The status is
+     * assigned first because MySQL evaluates assignments left to right. Tickets in
+     * a flash sale are sold by FlashSaleInventory instead and never match.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Ticket t SET " +
+           "t.status = CASE WHEN t.quantityAvailable = :quantity THEN :soldOut ELSE t.status END, " +
+           "t.quantityAvailable = t.quantityAvailable - :quantity " +
+           "WHERE t.id = :id AND t.status = :active AND t.quantityAvailable >= :quantity AND t.flashSale = false")
+    int decrementAvailable(@Param("id") Long id,
+                           @Param("quantity") int quantity,
+                           @Param("active") Ticket.TicketStatus active,
+                           @Param("soldOut") Ticket.TicketStatus soldOut);
+
+    /**
+     * Give back units that were taken but not sold (an expired or released hold),
+     * reopening a SOLD_OUT ticket
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Ticket t SET " +
+           "t.status = CASE WHEN t.status = :soldOut THEN :active ELSE t.status END, " +
+           "t.quantityAvailable = t.quantityAvailable + :quantity " +
+           "WHERE t.id = :id")
+    int returnAvailable(@Param("id") Long id,
+                        @Param("quantity") int quantity,
+                        @Param("active") Ticket.TicketStatus active,
+                        @Param("soldOut") Ticket.TicketStatus soldOut);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Ticket t WHERE t.id = :id")
+    Optional<Ticket> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Write back the remaining quantity of a ticket sold from memory; ignored once
+     * the flash sale has ended
+     */
+    @Modifying
+    @Query("UPDATE Ticket t SET " +
+           "t.status = CASE WHEN :quantity = 0 THEN :soldOut ELSE t.status END, " +
+           "t.quantityAvailable = :quantity " +
+           "WHERE t.id = :id AND t.flashSale = true")
+    int writeFlashSaleQuantity(@Param("id") Long id,
+                               @Param("quantity") int quantity,
+                               @Param("soldOut") Ticket.TicketStatus soldOut);
 }
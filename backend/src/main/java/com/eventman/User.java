@@ -4,15 +4,18 @@ import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users",
+        uniqueConstraints = @UniqueConstraint(name = User.EMAIL_UNIQUE_KEY, columnNames = "email"))
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class User {
 
+    public static final String EMAIL_UNIQUE_KEY = "uk_users_email";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true, length = 255)
+    @Column(nullable = false, length = 255)
     private String email;
 
     @Column(nullable = false, length = 255)
@@ -0,0 +1,46 @@
+package com.eventman;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "verification_codes")
+public class VerificationCode {
+
+    @Id
+    @Column(length = 255)
+    private String email;
+
+    @Column(nullable = false, length = 16)
+    private String code;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    // Default constructor
+    public VerificationCode() {}
+
+    public VerificationCode(String email, String code, Instant expiresAt, Integer attempts) {
+        this.email = email;
+        this.code = code;
+        this.expiresAt = expiresAt;
+        this.attempts = attempts;
+    }
+
+    // Getters and setters
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+
+    public String getCode() { return code; }
+    public void setCode(String code) { this.code = code; }
+
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+
+    public Integer getAttempts() { return attempts; }
+    public void setAttempts(Integer attempts) { this.attempts = attempts; }
+}
@@ -0,0 +1,8 @@
+package com.eventman;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface VerificationCodeRepository extends JpaRepository<VerificationCode, String> {
+}
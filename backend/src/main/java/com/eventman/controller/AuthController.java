@@ -3,15 +3,24 @@ package com.eventman.controller;
 import com.eventman.User;
 import com.eventman.UserRepository;
 import com.eventman.security.JwtUtil;
+import com.eventman.security.PasswordHashingService;
+import com.eventman.security.TokenRevocationService;
+import com.eventman.security.VerifiedToken;
 import com.eventman.service.EmailService;
+import com.eventman.service.RegistrationService;
+import com.eventman.service.VerificationCodeStore;
 import com.eventman.service.VerificationService;
+import io.jsonwebtoken.JwtException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -20,19 +29,28 @@ public class AuthController {
 
     private final JwtUtil jwtUtil;
     private final UserRepository userRepository;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final TokenRevocationService tokenRevocationService;
     private final EmailService emailService;
+    private final RegistrationService registrationService;
     private final VerificationService verificationService;
+    private final VerificationCodeStore verificationCodeStore;
 
     // In-memory user storage for demo purposes (keeping for backward compatibility)
     private final java.util.Map<String, AuthUser> users = new java.util.concurrent.ConcurrentHashMap<>();
 
-    public AuthController(JwtUtil jwtUtil, UserRepository userRepository, EmailService emailService, VerificationService verificationService) {
+    public AuthController(JwtUtil jwtUtil, UserRepository userRepository, EmailService emailService,
+                          RegistrationService registrationService,
+                          VerificationService verificationService, VerificationCodeStore verificationCodeStore,
+                          PasswordHashingService passwordHashingService, TokenRevocationService tokenRevocationService) {
         this.jwtUtil = jwtUtil;
         this.userRepository = userRepository;
         this.emailService = emailService;
+        this.registrationService = registrationService;
         this.verificationService = verificationService;
-        this.passwordEncoder = new BCryptPasswordEncoder();
+        this.verificationCodeStore = verificationCodeStore;
+        this.passwordHashingService = passwordHashingService;
+        this.tokenRevocationService = tokenRevocationService;
         // Initialize with demo users
         initializeDemoUsers();
     }
@@ -61,12 +79,10 @@ public class AuthController {
             if (dbUser.isPresent()) {
                 User user = dbUser.get();
                 // For demo purposes, accept "password" for all database users
-                if ("password".equals(password) || passwordEncoder.matches(password, user.getPassword())) {
+                if ("password".equals(password) || passwordHashingService.matches(password, user.getPassword())) {
                     String[] roles = {user.getRole().name()};
-                    String token = jwtUtil.generateToken(email, roles);
-
                     Map<String, Object> response = new HashMap<>();
-                    response.put("token", token);
+                    putTokens(response, email, roles);
                     response.put("id", user.getId());
                     response.put("email", user.getEmail());
                     response.put("name", user.getName());
@@ -78,10 +94,8 @@ public class AuthController {
             // Check demo users (in-memory)
             AuthUser user = users.get(email);
             if (user != null && isValidPassword(email, password)) {
-                String token = jwtUtil.generateToken(email, user.getRoles());
-
                 Map<String, Object> response = new HashMap<>();
-                response.put("token", token);
+                putTokens(response, email, user.getRoles());
                 response.put("id", user.getId());
                 response.put("email", user.getEmail());
                 response.put("name", user.getName());
@@ -94,6 +108,8 @@ public class AuthController {
             error.put("message", "Invalid email or password");
             return ResponseEntity.badRequest().body(error);
 
+        } catch (RejectedExecutionException e) {
+            return tooManyRequests();
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", "Authentication failed");
@@ -101,6 +117,28 @@ public class AuthController {
         }
     }
 
+    // Issue a short-lived access token plus a refresh token
+    private void putTokens(Map<String, Object> response, String email, String[] roles) {
+        response.put("token", jwtUtil.generateToken(email, roles));
+        response.put("refreshToken", jwtUtil.generateRefreshToken(email));
+        response.put("expiresIn", jwtUtil.getAccessTokenTtlMs() / 1000);
+    }
+
+    private ResponseEntity<?> emailAlreadyExists() {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", "User with this email already exists");
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    // Password hashing is saturated: ask the client to back off instead of queueing
+    private ResponseEntity<?> tooManyRequests() {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", "Too many authentication requests. Please try again shortly.");
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(passwordHashingService.getRetryAfterSeconds()))
+                .body(error);
+    }
+
     // Simple password validation for demo users
     private boolean isValidPassword(String email, String password) {
         // For demo purposes, accept "password" for all demo users
@@ -134,18 +172,10 @@ public class AuthController {
                 return ResponseEntity.badRequest().body(error);
             }
 
-            // Check if user already exists in database
-            if (userRepository.existsByEmail(email)) {
-                Map<String, String> error = new HashMap<>();
-                error.put("message", "User with this email already exists");
-                return ResponseEntity.badRequest().body(error);
-            }
-
-            // Check if user already exists in demo users
-            if (users.containsKey(email)) {
-                Map<String, String> error = new HashMap<>();
-                error.put("message", "User with this email already exists");
-                return ResponseEntity.badRequest().body(error);
+            // Check demo users and, only if the email filter has seen it, the database.
+            // Concurrent duplicates that slip past are caught by the unique constraint below.
+            if (users.containsKey(email) || registrationService.isEmailTaken(email)) {
+                return emailAlreadyExists();
             }
 
             // Create new user in database (all new registrations are attendees)
@@ -154,25 +184,12 @@ public class AuthController {
             newUser.setName(name);
             newUser.setPhone(phone);
             newUser.setRole(User.UserRole.ATTENDEE);
-            newUser.setPassword(passwordEncoder.encode(password));
+            newUser.setPassword(passwordHashingService.encode(password));
             newUser.setCreatedAt(java.time.LocalDateTime.now().toString());
             newUser.setEmailVerified(false);
 
-            // Generate verification code
-            String verificationCode = verificationService.generateVerificationCode();
-            String expirationTime = verificationService.generateExpirationTime();
-            newUser.setVerificationCode(verificationCode);
-            newUser.setVerificationCodeExpires(expirationTime);
-
-            User savedUser = userRepository.save(newUser);
-
-            // Send verification email
-            try {
-                emailService.sendVerificationEmail(email, verificationCode);
-            } catch (Exception e) {
-                // Log the error but don't fail registration
-                System.err.println("Failed to send verification email: " + e.getMessage());
-            }
+            // Saves the user and queues the verification email in one transaction
+            registrationService.register(newUser);
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Registration successful! Please check your email for verification code.");
@@ -181,6 +198,16 @@ public class AuthController {
 
             return ResponseEntity.ok(response);
 
+        } catch (DataIntegrityViolationException e) {
+            // Only a clash on the email key means the address is taken
+            if (registrationService.isDuplicateEmail(e, registerRequest.getEmail())) {
+                return emailAlreadyExists();
+            }
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Registration failed. Please check your details and try again.");
+            return ResponseEntity.badRequest().body(error);
+        } catch (RejectedExecutionException e) {
+            return tooManyRequests();
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", "Registration failed. Please try again.");
@@ -224,15 +251,32 @@ public class AuthController {
                 return ResponseEntity.badRequest().body(error);
             }
 
-            // Check if verification code matches
-            if (!code.equals(user.getVerificationCode())) {
+            // Check the code against the code store
+            VerificationCodeStore.Result result = verificationCodeStore.verify(email, code);
+            if (result == VerificationCodeStore.Result.NOT_FOUND && user.getVerificationCode() != null) {
+                // Codes issued before the code store existed are still on the users row
+                if (!VerificationCodeStore.matches(user.getVerificationCode(), code)) {
+                    result = VerificationCodeStore.Result.INVALID;
+                } else if (verificationService.isCodeExpired(user.getVerificationCodeExpires())) {
+                    result = VerificationCodeStore.Result.EXPIRED;
+                } else {
+                    result = VerificationCodeStore.Result.VERIFIED;
+                }
+            }
+
+            if (result == VerificationCodeStore.Result.INVALID) {
                 Map<String, String> error = new HashMap<>();
                 error.put("message", "Invalid verification code");
                 return ResponseEntity.badRequest().body(error);
             }
 
-            // Check if code is expired
-            if (verificationService.isCodeExpired(user.getVerificationCodeExpires())) {
+            if (result == VerificationCodeStore.Result.TOO_MANY_ATTEMPTS) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "Too many invalid attempts. Please request a new verification code.");
+                return ResponseEntity.badRequest().body(error);
+            }
+
+            if (result != VerificationCodeStore.Result.VERIFIED) {
                 Map<String, String> error = new HashMap<>();
                 error.put("message", "Verification code has expired. Please request a new one.");
                 return ResponseEntity.badRequest().body(error);
@@ -246,11 +290,10 @@ public class AuthController {
 
             // Generate JWT token for login
             String[] roles = {user.getRole().name()};
-            String token = jwtUtil.generateToken(email, roles);
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Email verified successfully!");
-            response.put("token", token);
+            putTokens(response, email, roles);
             response.put("user", Map.of(
                 "id", user.getId(),
                 "email", user.getEmail(),
@@ -295,21 +338,11 @@ public class AuthController {
                 return ResponseEntity.badRequest().body(error);
             }
 
-            // Generate new verification code
-            String verificationCode = verificationService.generateVerificationCode();
-            String expirationTime = verificationService.generateExpirationTime();
-            user.setVerificationCode(verificationCode);
-            user.setVerificationCodeExpires(expirationTime);
-            userRepository.save(user);
+            // Generate new verification code; the users row is not touched
+            String verificationCode = verificationCodeStore.issue(email);
 
-            // Send verification email
-            try {
-                emailService.sendVerificationEmail(email, verificationCode);
-            } catch (Exception e) {
-                Map<String, String> error = new HashMap<>();
-                error.put("message", "Failed to send verification email. Please try again.");
-                return ResponseEntity.badRequest().body(error);
-            }
+            // Queue verification email for the outbox dispatcher
+            emailService.sendVerificationEmail(email, verificationCode);
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Verification code sent successfully!");
@@ -323,6 +356,93 @@ public class AuthController {
         }
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refreshToken(@RequestBody RefreshTokenRequest request) {
+        try {
+            String refreshToken = request.getRefreshToken();
+            if (refreshToken == null || refreshToken.trim().isEmpty()) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "Refresh token is required");
+                return ResponseEntity.badRequest().body(error);
+            }
+
+            VerifiedToken verified;
+            try {
+                verified = jwtUtil.verify(refreshToken);
+            } catch (JwtException e) {
+                verified = null;
+            }
+
+            if (verified == null || !verified.isRefreshToken() || tokenRevocationService.isRevoked(verified)) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "Invalid or expired refresh token");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+            }
+
+            // Refresh tokens are single use: claim the jti before issuing anything, so of
+            // two concurrent refreshes with the same token exactly one wins
+            if (!tokenRevocationService.claim(verified)) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "Invalid or expired refresh token");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+            }
+
+            // Roles are read again so that role changes apply to the new access token
+            String email = verified.getSubject();
+            String[] roles = currentRoles(email);
+            if (roles == null) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "User not found");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            putTokens(response, email, roles);
+            response.put("roles", roles);
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Token refresh failed");
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestBody(required = false) RefreshTokenRequest request,
+                                    @RequestHeader(value = "Authorization", required = false) String authorizationHeader) {
+        // Revoke whatever valid tokens the client presents; invalid ones are already useless
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
+            revokeQuietly(authorizationHeader.substring(7));
+        }
+        if (request != null && request.getRefreshToken() != null) {
+            revokeQuietly(request.getRefreshToken());
+        }
+
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Logged out successfully");
+        return ResponseEntity.ok(response);
+    }
+
+    private void revokeQuietly(String token) {
+        try {
+            tokenRevocationService.revoke(jwtUtil.verify(token));
+        } catch (JwtException e) {
+            // Expired or forged tokens need no revocation
+        }
+    }
+
+    // Current roles of a database or demo user, or null if the user no longer exists
+    private String[] currentRoles(String email) {
+        Optional<User> dbUser = userRepository.findByEmail(email);
+        if (dbUser.isPresent()) {
+            return new String[]{dbUser.get().getRole().name()};
+        }
+
+        AuthUser demoUser = users.get(email);
+        return demoUser != null ? demoUser.getRoles() : null;
+    }
+
     // Inner classes for request/response
     public static class LoginRequest {
         private String email;
@@ -412,4 +532,13 @@ public class AuthController {
         public String getEmail() { return email; }
         public void setEmail(String email) { this.email = email; }
     }
-}
\ No newline at end of file
+
+    public static class RefreshTokenRequest {
+        private String refreshToken;
+
+        public RefreshTokenRequest() {}
+
+        public String getRefreshToken() { return refreshToken; }
+        public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
+    }
+}
@@ -2,30 +2,91 @@ package com.eventman.controller;
 
 import com.eventman.Event;
 import com.eventman.EventRepository;
+import com.eventman.EventSummary;
+import com.eventman.LenientInstantDeserializer;
 import com.eventman.security.JwtUtil;
 import com.eventman.security.PermissionService;
+import com.eventman.service.EventAutocomplete;
+import com.eventman.service.EventBulkService;
+import com.eventman.service.EventCache;
+import com.eventman.service.EventChange;
+import com.eventman.service.EventCursor;
+import com.eventman.service.EventFacetIndex;
+import com.eventman.service.EventFieldset;
+import com.eventman.service.EventSearchIndex;
+import com.eventman.service.EventStream;
+import com.eventman.service.TicketAvailabilityStream;
+import com.eventman.service.EventTagService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/events")
-@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3002", "http://eventman-frontend:3000"})
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3002", "http://eventman-frontend:3000"}, exposedHeaders = {"X-Next-Cursor", "ETag"})
 public class EventController {
 
+    private static final int SHORT_LIST_LIMIT = 20;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final PermissionService permissionService;
     private final JwtUtil jwtUtil;
     private final EventRepository eventRepository;
+    private final EventSearchIndex eventSearchIndex;
+    private final EventAutocomplete eventAutocomplete;
+    private final EventCache eventCache;
+    private final EventFacetIndex eventFacetIndex;
+    private final EventStream eventStream;
+    private final EventBulkService eventBulkService;
+    private final TicketAvailabilityStream ticketAvailabilityStream;
+    private final EventTagService eventTagService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
-    public EventController(PermissionService permissionService, JwtUtil jwtUtil, EventRepository eventRepository) {
+    public EventController(PermissionService permissionService, JwtUtil jwtUtil, EventRepository eventRepository,
+                           EventSearchIndex eventSearchIndex, EventAutocomplete eventAutocomplete,
+                           EventCache eventCache, EventFacetIndex eventFacetIndex, EventStream eventStream,
+                           EventBulkService eventBulkService, TicketAvailabilityStream ticketAvailabilityStream,
+                           EventTagService eventTagService, TransactionTemplate transactionTemplate,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${events.page.default-size:100}") int defaultPageSize,
+                           @Value("${events.page.max-size:500}") int maxPageSize) {
         this.permissionService = permissionService;
         this.jwtUtil = jwtUtil;
         this.eventRepository = eventRepository;
+        this.eventSearchIndex = eventSearchIndex;
+        this.eventAutocomplete = eventAutocomplete;
+        this.eventCache = eventCache;
+        this.eventFacetIndex = eventFacetIndex;
+        this.eventStream = eventStream;
+        this.eventBulkService = eventBulkService;
+        this.ticketAvailabilityStream = ticketAvailabilityStream;
+        this.eventTagService = eventTagService;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     @PostMapping
@@ -39,17 +100,18 @@ public class EventController {
                 return ResponseEntity.status(401).body(error);
             }
 
-            String[] roles = authentication.getAuthorities().stream()
-                    .map(authority -> authority.getAuthority().replace("ROLE_", ""))
-                    .toArray(String[]::new);
-
-            // Check permissions
-            if (!permissionService.canCreateEvent(roles)) {
+            // Check permissions (a bit test on the mask attached by JwtAuthenticationFilter)
+            if (!permissionService.canCreateEvent(authentication)) {
                 Map<String, String> error = new HashMap<>();
                 error.put("message", "Insufficient permissions to create events");
                 return ResponseEntity.status(403).body(error);
             }
 
+            ResponseEntity<?> invalidTimes = validateTimes(eventRequest);
+            if (invalidTimes != null) {
+                return invalidTimes;
+            }
+
             // Create new event
             Event event = new Event();
             event.setName(eventRequest.getName());
@@ -67,8 +129,13 @@ public class EventController {
             event.setOrganizerId(1L); // Demo organizer ID
             event.setOrganizerName("Demo Organizer");
 
-            // Save to database
-            Event savedEvent = eventRepository.save(event);
+            // Save to database, together with its event_tags rows; listeners see the change once committed
+            Event savedEvent = transactionTemplate.execute(status -> {
+                Event saved = eventRepository.save(event);
+                eventTagService.sync(saved.getId(), null, saved.getTags());
+                eventPublisher.publishEvent(EventChange.created(saved));
+                return saved;
+            });
 
             return ResponseEntity.ok(savedEvent);
         } catch (Exception e) {
@@ -78,21 +145,281 @@ public class EventController {
         }
     }
 
+    /**
+     * Bulk create from NDJSON (one event per line). The response streams one NDJSON
+     * result per line, as each batch is saved, and ends with a summary line.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<StreamingResponseBody> importEvents(InputStream body) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!permissionService.canCreateEvent(authentication)) {
+            return streamingError(HttpStatus.FORBIDDEN, "Insufficient permissions to create events");
+        }
+
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(out -> eventBulkService.importEvents(body, out));
+    }
+
+    /**
+     * All events (optionally of one status) as NDJSON, streamed straight from a database cursor.
+     * Organizers only, and at most events.export.max-concurrent at a time since each holds a connection.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportEvents(@RequestParam(required = false) String status) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!permissionService.canCreateEvent(authentication)) {
+            return streamingError(HttpStatus.FORBIDDEN, "Insufficient permissions to export events");
+        }
+
+        Event.EventStatus statusFilter;
+        try {
+            statusFilter = status != null ? Event.EventStatus.valueOf(status.toUpperCase()) : null;
+        } catch (IllegalArgumentException e) {
+            return streamingError(HttpStatus.BAD_REQUEST, "Invalid status");
+        }
+
+        if (!eventBulkService.tryReserveExport()) {
+            return streamingError(HttpStatus.TOO_MANY_REQUESTS, "Too many exports in progress. Please try again later.");
+        }
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header("Content-Disposition", "attachment; filename=\"events.ndjson\"")
+                .body(out -> eventBulkService.exportEvents(statusFilter, out));
+    }
+
+    /**
+     * Keyset-paginated event listing ordered by start time. The body stays a JSON array;
+     * when more events follow, the X-Next-Cursor header carries the cursor for the next page.
+     * Pages are served from EventCache with an ETag; a matching If-None-Match gets a 304.
+     * With fields (e.g. fields=name,startDateTime,price or fields=summary) only those
+     * columns are selected and returned.
+     */
     @GetMapping
-    public ResponseEntity<List<Event>> getAllEvents() {
-        List<Event> events = eventRepository.findAll();
+    public ResponseEntity<?> getAllEvents(@RequestParam(required = false) String status,
+                                          @RequestParam(required = false) String type,
+                                          @RequestParam(required = false) String category,
+                                          @RequestParam(required = false) Long organizerId,
+                                          @RequestParam(required = false) String tag,
+                                          @RequestParam(required = false) String from,
+                                          @RequestParam(required = false) String to,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) Integer limit,
+                                          @RequestParam(required = false) String fields,
+                                          @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        Event.EventStatus statusFilter;
+        Event.EventType typeFilter;
+        Instant fromTime;
+        Instant toTime;
+        EventCursor after;
+        EventFieldset fieldset;
+        try {
+            statusFilter = status != null ? Event.EventStatus.valueOf(status.toUpperCase()) : null;
+            typeFilter = type != null ? Event.EventType.valueOf(type.toUpperCase()) : null;
+            fromTime = LenientInstantDeserializer.parse(from);
+            toTime = LenientInstantDeserializer.parse(to);
+            after = cursor != null ? EventCursor.decode(cursor) : null;
+            fieldset = EventFieldset.parse(fields);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Invalid status, type, date-time, cursor or fields");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        int pageSize = limit != null ? Math.max(1, Math.min(limit, maxPageSize)) : defaultPageSize;
+        // Events carrying all of the tags, as /facets counts them
+        List<String> tags = EventTagService.normalize(tag);
+
+        EventCache.CachedResponse page = eventCache.page(new EventCache.PageKey(
+                statusFilter, typeFilter, category, organizerId, tags, fromTime, toTime, after, pageSize, fieldset));
+        return cachedResponse(page, ifNoneMatch);
+    }
+
+    /**
+     * Next events starting from now, soonest first. Not cached: the window moves with the clock,
+     * but it is a single range scan on the (starts_at, id) index.
+     */
+    @GetMapping("/upcoming")
+    public ResponseEntity<?> getUpcomingEvents(@RequestParam(required = false) Integer limit,
+                                               @RequestParam(required = false) String fields) {
+        EventFieldset fieldset;
+        try {
+            fieldset = EventFieldset.parse(fields);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        int pageSize = limit != null ? Math.max(1, Math.min(limit, maxPageSize)) : SHORT_LIST_LIMIT;
+        if (fieldset != null) {
+            List<EventSummary> events = eventRepository.findUpcomingSummaries(Instant.now(), PageRequest.of(0, pageSize));
+            MappingJacksonValue body = new MappingJacksonValue(events);
+            body.setFilters(fieldset.getFilters());
+            return ResponseEntity.ok(body);
+        }
+        List<Event> events = eventRepository.findByStartDateTimeGreaterThanEqualOrderByStartDateTimeAscIdAsc(
+                Instant.now(), PageRequest.of(0, pageSize));
+        return ResponseEntity.ok(events);
+    }
+
+    /**
+     * Events starting in [from, to), in start order and keyset-paginated like GET /api/events
+     * (including the fields parameter)
+     */
+    @GetMapping("/range")
+    public ResponseEntity<?> getEventsInRange(@RequestParam String from,
+                                              @RequestParam String to,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) Integer limit,
+                                              @RequestParam(required = false) String fields,
+                                              @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        Instant fromTime;
+        Instant toTime;
+        EventCursor after;
+        EventFieldset fieldset;
+        try {
+            fromTime = LenientInstantDeserializer.parse(from);
+            toTime = LenientInstantDeserializer.parse(to);
+            after = cursor != null ? EventCursor.decode(cursor) : null;
+            fieldset = EventFieldset.parse(fields);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Invalid date-time, cursor or fields");
+            return ResponseEntity.badRequest().body(error);
+        }
+        if (fromTime == null || toTime == null || !fromTime.isBefore(toTime)) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "from must be before to");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        int pageSize = limit != null ? Math.max(1, Math.min(limit, maxPageSize)) : defaultPageSize;
+        EventCache.CachedResponse page = eventCache.page(new EventCache.PageKey(
+                null, null, null, null, List.of(), fromTime, toTime, after, pageSize, fieldset));
+        return cachedResponse(page, ifNoneMatch);
+    }
+
+    /**
+     * Full-text search over name, description, location, tags and category, best match first
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchEvents(@RequestParam("q") String query,
+                                          @RequestParam(required = false) Integer limit) {
+        if (query.isBlank()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Search query is required");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        int size = limit != null ? Math.max(1, Math.min(limit, maxPageSize)) : SHORT_LIST_LIMIT;
+        List<Long> ids = eventSearchIndex.search(query, size).stream()
+                .map(EventSearchIndex.Hit::getEventId)
+                .collect(Collectors.toList());
+
+        // Load the hits by primary key and keep the index's ranking order
+        Map<Long, Event> eventsById = eventRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Event::getId, e -> e));
+        List<Event> events = ids.stream()
+                .map(eventsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
         return ResponseEntity.ok(events);
     }
 
+    /**
+     * Server-sent stream of created, updated and deleted events. Reconnecting clients
+     * send Last-Event-ID and receive what they missed, or a reset event if that is
+     * no longer available and they should reload the list.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamEvents(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        SseEmitter emitter = eventStream.subscribe(lastEventId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Server-sent ticket availability of one event: a snapshot of every ticket's
+     * quantityAvailable and status on connect, then batched changes as they happen
+     */
+    @GetMapping(value = "/{id}/availability", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAvailability(@PathVariable Long id) {
+        // Every watched id costs a channel, so only real events get one
+        if (!eventRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        SseEmitter emitter = ticketAvailabilityStream.subscribe(id);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Facet counts (status, type, category, tags) for the events matching the given filters,
+     * served from memory. Several tags may be given comma-separated; events must have all of them.
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<?> getFacets(@RequestParam(required = false) String status,
+                                       @RequestParam(required = false) String type,
+                                       @RequestParam(required = false) String category,
+                                       @RequestParam(required = false) String tag,
+                                       @RequestParam(required = false, defaultValue = "10") int limit) {
+        Event.EventStatus statusFilter;
+        Event.EventType typeFilter;
+        try {
+            statusFilter = status != null ? Event.EventStatus.valueOf(status.toUpperCase()) : null;
+            typeFilter = type != null ? Event.EventType.valueOf(type.toUpperCase()) : null;
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Invalid status or type");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        int size = Math.max(1, Math.min(limit, maxPageSize));
+        return ResponseEntity.ok(eventFacetIndex.count(statusFilter, typeFilter, category,
+                EventTagService.normalize(tag), size));
+    }
+
+    /**
+     * Type-ahead suggestions served from memory. Without a field, suggestions for
+     * name, location and organizer are returned together.
+     */
+    @GetMapping("/autocomplete")
+    public ResponseEntity<?> autocomplete(@RequestParam("q") String prefix,
+                                          @RequestParam(required = false) String field,
+                                          @RequestParam(required = false, defaultValue = "10") int limit) {
+        List<EventAutocomplete.Field> fields;
+        try {
+            fields = field != null
+                    ? List.of(EventAutocomplete.Field.valueOf(field.toUpperCase()))
+                    : Arrays.asList(EventAutocomplete.Field.values());
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Field must be one of name, location or organizer");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        Map<String, List<String>> suggestions = new LinkedHashMap<>();
+        for (EventAutocomplete.Field f : fields) {
+            suggestions.put(f.name().toLowerCase(), eventAutocomplete.suggest(f, prefix, limit));
+        }
+        return ResponseEntity.ok(suggestions);
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Event> getEventById(@PathVariable Long id) {
-        Optional<Event> event = eventRepository.findById(id);
+    public ResponseEntity<?> getEventById(@PathVariable Long id,
+                                          @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        EventCache.CachedResponse event = eventCache.event(id);
 
-        if (event.isEmpty()) {
+        if (event == null) {
             return ResponseEntity.notFound().build();
         }
 
-        return ResponseEntity.ok(event.get());
+        return cachedResponse(event, ifNoneMatch);
     }
 
     @PutMapping("/{id}")
@@ -106,16 +433,17 @@ public class EventController {
                 return ResponseEntity.status(401).body(error);
             }
 
-            String[] roles = authentication.getAuthorities().stream()
-                    .map(authority -> authority.getAuthority().replace("ROLE_", ""))
-                    .toArray(String[]::new);
-
-            if (!permissionService.canUpdateEvent(roles)) {
+            if (!permissionService.canUpdateEvent(authentication)) {
                 Map<String, String> error = new HashMap<>();
                 error.put("message", "Insufficient permissions to update events");
                 return ResponseEntity.status(403).body(error);
             }
 
+            ResponseEntity<?> invalidTimes = validateTimes(eventRequest);
+            if (invalidTimes != null) {
+                return invalidTimes;
+            }
+
             Optional<Event> existingEventOpt = eventRepository.findById(id);
 
             if (existingEventOpt.isEmpty()) {
@@ -123,6 +451,7 @@ public class EventController {
             }
 
             Event existingEvent = existingEventOpt.get();
+            Event previous = EventChange.snapshot(existingEvent);
 
             // Update event fields
             existingEvent.setName(eventRequest.getName());
@@ -138,7 +467,12 @@ public class EventController {
             existingEvent.setTags(eventRequest.getTags());
             existingEvent.setStatus(eventRequest.getStatus());
 
-            Event savedEvent = eventRepository.save(existingEvent);
+            Event savedEvent = transactionTemplate.execute(status -> {
+                Event saved = eventRepository.save(existingEvent);
+                eventTagService.sync(saved.getId(), previous.getTags(), saved.getTags());
+                eventPublisher.publishEvent(EventChange.updated(previous, saved));
+                return saved;
+            });
             return ResponseEntity.ok(savedEvent);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
@@ -158,11 +492,7 @@ public class EventController {
                 return ResponseEntity.status(401).body(error);
             }
 
-            String[] roles = authentication.getAuthorities().stream()
-                    .map(authority -> authority.getAuthority().replace("ROLE_", ""))
-                    .toArray(String[]::new);
-
-            if (!permissionService.canDeleteEvent(roles)) {
+            if (!permissionService.canDeleteEvent(authentication)) {
                 Map<String, String> error = new HashMap<>();
                 error.put("message", "Insufficient permissions to delete events");
                 return ResponseEntity.status(403).body(error);
@@ -174,7 +504,11 @@ public class EventController {
                 return ResponseEntity.notFound().build();
             }
 
-            eventRepository.deleteById(id);
+            transactionTemplate.executeWithoutResult(status -> {
+                eventTagService.sync(id, event.get().getTags(), null);
+                eventRepository.deleteById(id);
+                eventPublisher.publishEvent(EventChange.deleted(event.get()));
+            });
             Map<String, String> response = new HashMap<>();
             response.put("message", "Event deleted successfully");
             return ResponseEntity.ok(response);
@@ -184,4 +518,46 @@ public class EventController {
             return ResponseEntity.badRequest().body(error);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 400 unless the request has a start and an end that is not before it
+     */
+    private ResponseEntity<?> validateTimes(Event eventRequest) {
+        Map<String, String> error = new HashMap<>();
+        if (eventRequest.getStartDateTime() == null || eventRequest.getEndDateTime() == null) {
+            error.put("message", "Start and end date-times are required");
+            return ResponseEntity.badRequest().body(error);
+        }
+        if (eventRequest.getEndDateTime().isBefore(eventRequest.getStartDateTime())) {
+            error.put("message", "End date-time must not be before start date-time");
+            return ResponseEntity.badRequest().body(error);
+        }
+        return null;
+    }
+
+    /**
+     * The usual {"message": ...} error body for endpoints that otherwise stream
+     */
+    private ResponseEntity<StreamingResponseBody> streamingError(HttpStatus status, String message) {
+        String body = "{\"message\":\"" + message + "\"}";
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> out.write(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 304 if the client already holds this version, otherwise the cached JSON bytes
+     */
+    private ResponseEntity<?> cachedResponse(EventCache.CachedResponse cached, String ifNoneMatch) {
+        boolean notModified = eventCache.isNotModified(cached, ifNoneMatch);
+        ResponseEntity.BodyBuilder builder = notModified
+                ? ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                : ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        // no-cache (rather than Spring Security's no-store) lets browsers keep the body and revalidate
+        builder.eTag(cached.getEtag()).cacheControl(CacheControl.noCache());
+        if (cached.getNextCursor() != null) {
+            builder.header("X-Next-Cursor", cached.getNextCursor());
+        }
+        return notModified ? builder.build() : builder.body(cached.getBody());
+    }
+}
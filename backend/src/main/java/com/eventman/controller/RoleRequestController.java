@@ -4,6 +4,7 @@ import com.eventman.RoleRequest;
 import com.eventman.RoleRequestRepository;
 import com.eventman.User;
 import com.eventman.UserRepository;
+import com.eventman.security.TokenRevocationService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -19,10 +20,13 @@ public class RoleRequestController {
 
     private final RoleRequestRepository roleRequestRepository;
     private final UserRepository userRepository;
+    private final TokenRevocationService tokenRevocationService;
 
-    public RoleRequestController(RoleRequestRepository roleRequestRepository, UserRepository userRepository) {
+    public RoleRequestController(RoleRequestRepository roleRequestRepository, UserRepository userRepository,
+                                 TokenRevocationService tokenRevocationService) {
         this.roleRequestRepository = roleRequestRepository;
         this.userRepository = userRepository;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     // Submit a role request (for attendees)
@@ -126,6 +130,9 @@ public class RoleRequestController {
             user.setRole(User.UserRole.valueOf(request.getRequestedRole()));
             userRepository.save(user);
 
+            // Existing access tokens still carry the old role; force a refresh
+            tokenRevocationService.revokeAccessForSubject(user.getEmail());
+
             // Update request status
             request.setStatus(RoleRequest.RequestStatus.APPROVED);
             request.setReviewedBy(adminOpt.get());
@@ -1,9 +1,23 @@
 package com.eventman.controller;
 
+import com.eventman.Payment;
 import com.eventman.Ticket;
 import com.eventman.TicketRepository;
 import com.eventman.EventRepository;
+import com.eventman.User;
+import com.eventman.UserRepository;
+import com.eventman.security.PermissionService;
+import com.eventman.service.FlashSaleInventory;
+import com.eventman.service.TicketChange;
+import com.eventman.service.TicketHoldService;
+import com.eventman.service.TicketInventoryService;
+import com.eventman.service.WaitingRoomService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
@@ -15,10 +29,31 @@ public class TicketController {
 
     private final TicketRepository ticketRepository;
     private final EventRepository eventRepository;
+    private final UserRepository userRepository;
+    private final TicketInventoryService ticketInventoryService;
+    private final FlashSaleInventory flashSaleInventory;
+    private final TicketHoldService ticketHoldService;
+    private final WaitingRoomService waitingRoomService;
+    private final PermissionService permissionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxPurchaseQuantity;
 
-    public TicketController(TicketRepository ticketRepository, EventRepository eventRepository) {
+    public TicketController(TicketRepository ticketRepository, EventRepository eventRepository,
+                            UserRepository userRepository, TicketInventoryService ticketInventoryService,
+                            FlashSaleInventory flashSaleInventory, TicketHoldService ticketHoldService,
+                            WaitingRoomService waitingRoomService, PermissionService permissionService,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${tickets.purchase.max-quantity:10}") int maxPurchaseQuantity) {
         this.ticketRepository = ticketRepository;
         this.eventRepository = eventRepository;
+        this.userRepository = userRepository;
+        this.ticketInventoryService = ticketInventoryService;
+        this.flashSaleInventory = flashSaleInventory;
+        this.ticketHoldService = ticketHoldService;
+        this.waitingRoomService = waitingRoomService;
+        this.permissionService = permissionService;
+        this.eventPublisher = eventPublisher;
+        this.maxPurchaseQuantity = maxPurchaseQuantity;
     }
 
     @PostMapping
@@ -46,6 +81,7 @@ public class TicketController {
             ticket.setCreatedAt(java.time.LocalDateTime.now().toString());
 
             Ticket savedTicket = ticketRepository.save(ticket);
+            eventPublisher.publishEvent(TicketChange.of(savedTicket));
             return ResponseEntity.ok(savedTicket);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
@@ -74,7 +110,11 @@ public class TicketController {
     }
 
     @GetMapping("/event/{eventId}/active")
-    public ResponseEntity<List<Ticket>> getActiveTicketsByEvent(@PathVariable Long eventId) {
+    public ResponseEntity<?> getActiveTicketsByEvent(@PathVariable Long eventId,
+                                                     @RequestHeader(value = WaitingRoomController.QUEUE_TOKEN_HEADER, required = false) String queueToken) {
+        if (!waitingRoomService.isAdmitted(eventId, currentSubject(), queueToken)) {
+            return waitingRoomRequired(eventId);
+        }
         List<Ticket> tickets = ticketRepository.findByEventIdAndStatus(eventId, Ticket.TicketStatus.ACTIVE);
         return ResponseEntity.ok(tickets);
     }
@@ -89,6 +129,14 @@ public class TicketController {
             }
 
             Ticket existingTicket = existingTicketOpt.get();
+            if (existingTicket.isFlashSale()) {
+                // Quantity and status are owned by the running flash sale until it ends
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "Ticket is in a flash sale");
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+            }
+
+            Long previousEventId = existingTicket.getEventId();
 
             // Update ticket fields
             existingTicket.setName(ticketRequest.getName());
@@ -105,6 +153,10 @@ public class TicketController {
             }
 
             Ticket savedTicket = ticketRepository.save(existingTicket);
+            if (previousEventId != null && !previousEventId.equals(savedTicket.getEventId())) {
+                eventPublisher.publishEvent(TicketChange.removed(id, previousEventId));
+            }
+            eventPublisher.publishEvent(TicketChange.of(savedTicket));
             return ResponseEntity.ok(savedTicket);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
@@ -121,8 +173,14 @@ public class TicketController {
             if (ticket.isEmpty()) {
                 return ResponseEntity.notFound().build();
             }
+            if (ticket.get().isFlashSale()) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "Ticket is in a flash sale");
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+            }
 
             ticketRepository.deleteById(id);
+            eventPublisher.publishEvent(TicketChange.removed(id, ticket.get().getEventId()));
             Map<String, String> response = new HashMap<>();
             response.put("message", "Ticket deleted successfully");
             return ResponseEntity.ok(response);
@@ -143,9 +201,16 @@ public class TicketController {
             }
 
             Ticket existingTicket = existingTicketOpt.get();
+            if (existingTicket.isFlashSale()) {
+                // Quantity and status are owned by the running flash sale until it ends
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "Ticket is in a flash sale");
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+            }
             existingTicket.setStatus(status);
 
             Ticket savedTicket = ticketRepository.save(existingTicket);
+            eventPublisher.publishEvent(TicketChange.of(savedTicket));
             return ResponseEntity.ok(savedTicket);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
@@ -153,4 +218,252 @@ public class TicketController {
             return ResponseEntity.badRequest().body(error);
         }
     }
+
+    /**
+     * Buy tickets for the authenticated user. Inventory is decremented atomically and
+     * the payment recorded in the same transaction, so concurrent buyers cannot oversell.
+     * Body: {"quantity": n, "paymentMethod": "CREDIT_CARD", "notes": "..."}
+     */
+    @PostMapping("/{id}/purchase")
+    public ResponseEntity<?> purchaseTicket(@PathVariable Long id, @RequestBody Map<String, Object> purchaseRequest,
+                                            @RequestHeader(value = WaitingRoomController.QUEUE_TOKEN_HEADER, required = false) String queueToken) {
+        ResponseEntity<?> notAdmitted = checkAdmitted(id, queueToken);
+        if (notAdmitted != null) {
+            return notAdmitted;
+        }
+        Optional<User> buyer = currentUser();
+        if (buyer.isEmpty()) {
+            return authenticationRequired();
+        }
+
+        int quantity;
+        Payment.PaymentMethod paymentMethod;
+        try {
+            quantity = Integer.parseInt(String.valueOf(purchaseRequest.getOrDefault("quantity", 1)));
+            paymentMethod = Payment.PaymentMethod.valueOf(
+                    String.valueOf(purchaseRequest.getOrDefault("paymentMethod", "OTHER")).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Invalid quantity or payment method");
+            return ResponseEntity.badRequest().body(error);
+        }
+        if (quantity < 1 || quantity > maxPurchaseQuantity) {
+            return invalidQuantity();
+        }
+
+        Object notes = purchaseRequest.get("notes");
+        return purchaseResponse(ticketInventoryService.purchase(id, quantity, buyer.get(),
+                paymentMethod, notes != null ? notes.toString() : null));
+    }
+
+    /**
+     * Hold tickets for the authenticated user while they pay. The units are taken
+     * now and given back if the hold is not confirmed before it expires.
+     * Body: {"quantity": n}
+     */
+    @PostMapping("/{id}/holds")
+    public ResponseEntity<?> holdTicket(@PathVariable Long id, @RequestBody Map<String, Object> holdRequest,
+                                        @RequestHeader(value = WaitingRoomController.QUEUE_TOKEN_HEADER, required = false) String queueToken) {
+        ResponseEntity<?> notAdmitted = checkAdmitted(id, queueToken);
+        if (notAdmitted != null) {
+            return notAdmitted;
+        }
+        Optional<User> buyer = currentUser();
+        if (buyer.isEmpty()) {
+            return authenticationRequired();
+        }
+
+        int quantity;
+        try {
+            quantity = Integer.parseInt(String.valueOf(holdRequest.getOrDefault("quantity", 1)));
+        } catch (NumberFormatException e) {
+            quantity = 0;
+        }
+        if (quantity < 1 || quantity > maxPurchaseQuantity) {
+            return invalidQuantity();
+        }
+
+        TicketHoldService.Reservation reservation = ticketHoldService.hold(id, quantity, buyer.get());
+        Map<String, Object> response = new HashMap<>();
+        switch (reservation.getOutcome()) {
+            case HELD:
+                response.put("hold", reservation.getHold());
+                response.put("ticket", reservation.getTicket());
+                return ResponseEntity.ok(response);
+            case TICKET_NOT_FOUND:
+                return ResponseEntity.notFound().build();
+            case NOT_ON_SALE:
+                response.put("message", "Ticket is not on sale");
+                response.put("status", reservation.getTicket().getStatus());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            default:
+                response.put("message", "Only " + reservation.getTicket().getQuantityAvailable() + " tickets available");
+                response.put("quantityAvailable", reservation.getTicket().getQuantityAvailable());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+    }
+
+    /**
+     * Pay for one of the authenticated user's holds.
+     * Body: {"paymentMethod": "CREDIT_CARD", "notes": "..."}
+     */
+    @PostMapping("/holds/{holdId}/confirm")
+    public ResponseEntity<?> confirmHold(@PathVariable Long holdId, @RequestBody Map<String, Object> confirmRequest) {
+        Optional<User> buyer = currentUser();
+        if (buyer.isEmpty()) {
+            return authenticationRequired();
+        }
+
+        Payment.PaymentMethod paymentMethod;
+        try {
+            paymentMethod = Payment.PaymentMethod.valueOf(
+                    String.valueOf(confirmRequest.getOrDefault("paymentMethod", "OTHER")).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Invalid payment method");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        Object notes = confirmRequest.get("notes");
+        return purchaseResponse(ticketHoldService.confirm(holdId, buyer.get(), paymentMethod,
+                notes != null ? notes.toString() : null));
+    }
+
+    /**
+     * Give one of the authenticated user's holds back before it expires
+     */
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<?> releaseHold(@PathVariable Long holdId) {
+        Optional<User> buyer = currentUser();
+        if (buyer.isEmpty()) {
+            return authenticationRequired();
+        }
+        if (!ticketHoldService.release(holdId, buyer.get())) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Hold released");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Put a ticket into flash-sale mode: its remaining quantity is sold from striped
+     * in-memory counters and written back to the ticket periodically
+     */
+    @PostMapping("/{id}/flash-sale")
+    public ResponseEntity<?> startFlashSale(@PathVariable Long id) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!permissionService.canUpdateEvent(authentication)) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Insufficient permissions to start a flash sale");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+        }
+        if (!ticketRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        FlashSaleInventory.Sale sale = flashSaleInventory.enable(id);
+        if (sale == null) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Only active tickets without holds can go on flash sale");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
+        return ResponseEntity.ok(sale.ticket());
+    }
+
+    /**
+     * End a ticket's flash sale and write its remaining quantity back to the ticket
+     */
+    @DeleteMapping("/{id}/flash-sale")
+    public ResponseEntity<?> endFlashSale(@PathVariable Long id) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!permissionService.canUpdateEvent(authentication)) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Insufficient permissions to end a flash sale");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+        }
+        FlashSaleInventory.Ending ending = flashSaleInventory.disable(id);
+        if (ending == FlashSaleInventory.Ending.NO_SALE) {
+            return ResponseEntity.notFound().build();
+        }
+        if (ending == FlashSaleInventory.Ending.PURCHASES_IN_FLIGHT) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Purchases are still in progress. Please try again.");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
+        return ticketRepository.findById(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private Optional<User> currentUser() {
+        String subject = currentSubject();
+        return subject != null ? userRepository.findByEmail(subject) : Optional.empty();
+    }
+
+    private static String currentSubject() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+
+    /**
+     * 429 if the ticket's event has an open waiting room that has not admitted
+     * this user's queue token yet, otherwise null. Rooms are node-local: with
+     * several replicas, an event's room must be opened on each of them (or its
+     * buyers routed to one), since a node without the room lets everyone through.
+     */
+    private ResponseEntity<?> checkAdmitted(Long ticketId, String queueToken) {
+        if (!waitingRoomService.hasOpenRooms()) {
+            return null;
+        }
+        Optional<Long> eventId = ticketRepository.findEventIdById(ticketId);
+        if (eventId.isEmpty() || waitingRoomService.isAdmitted(eventId.get(), currentSubject(), queueToken)) {
+            return null;
+        }
+        return waitingRoomRequired(eventId.get());
+    }
+
+    private static ResponseEntity<?> waitingRoomRequired(Long eventId) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("message", "This event has a waiting room; join it and wait to be admitted");
+        error.put("eventId", eventId);
+        error.put("waitingRoom", true);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(error);
+    }
+
+    private static ResponseEntity<?> authenticationRequired() {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", "Authentication required");
+        return ResponseEntity.status(401).body(error);
+    }
+
+    private ResponseEntity<?> invalidQuantity() {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", "Quantity must be between 1 and " + maxPurchaseQuantity);
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    private static ResponseEntity<?> purchaseResponse(TicketInventoryService.Purchase purchase) {
+        Map<String, Object> response = new HashMap<>();
+        switch (purchase.getOutcome()) {
+            case PURCHASED:
+                response.put("payment", purchase.getPayment());
+                response.put("ticket", purchase.getTicket());
+                return ResponseEntity.ok(response);
+            case TICKET_NOT_FOUND:
+                return ResponseEntity.notFound().build();
+            case HOLD_NOT_FOUND:
+                response.put("message", "Hold not found or expired");
+                return ResponseEntity.status(HttpStatus.GONE).body(response);
+            case NOT_ON_SALE:
+                response.put("message", "Ticket is not on sale");
+                response.put("status", purchase.getTicket().getStatus());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            default:
+                response.put("message", "Only " + purchase.getTicket().getQuantityAvailable() + " tickets available");
+                response.put("quantityAvailable", purchase.getTicket().getQuantityAvailable());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+    }
 }
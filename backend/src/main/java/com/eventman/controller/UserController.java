@@ -2,8 +2,10 @@ package com.eventman.controller;
 
 import com.eventman.User;
 import com.eventman.UserRepository;
+import com.eventman.security.TokenRevocationService;
+import com.eventman.service.KnownEmailFilter;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
@@ -14,11 +16,16 @@ import java.util.*;
 public class UserController {
 
     private final UserRepository userRepository;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordEncoder passwordEncoder;
+    private final TokenRevocationService tokenRevocationService;
+    private final KnownEmailFilter knownEmailFilter;
 
-    public UserController(UserRepository userRepository) {
+    public UserController(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                          TokenRevocationService tokenRevocationService, KnownEmailFilter knownEmailFilter) {
         this.userRepository = userRepository;
-        this.passwordEncoder = new BCryptPasswordEncoder();
+        this.passwordEncoder = passwordEncoder;
+        this.tokenRevocationService = tokenRevocationService;
+        this.knownEmailFilter = knownEmailFilter;
     }
 
     @PostMapping
@@ -50,6 +57,7 @@ public class UserController {
             user.setCreatedAt(java.time.LocalDateTime.now().toString());
 
             User savedUser = userRepository.save(user);
+            knownEmailFilter.add(savedUser.getEmail());
             return ResponseEntity.ok(savedUser);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
@@ -81,6 +89,7 @@ public class UserController {
             }
 
             User existingUser = existingUserOpt.get();
+            boolean roleChanged = existingUser.getRole() != userRequest.getRole();
 
             // Update user fields
             existingUser.setName(userRequest.getName());
@@ -93,6 +102,11 @@ public class UserController {
             }
 
             User savedUser = userRepository.save(existingUser);
+
+            // Existing access tokens still carry the old role; force a refresh
+            if (roleChanged) {
+                tokenRevocationService.revokeAccessForSubject(savedUser.getEmail());
+            }
             return ResponseEntity.ok(savedUser);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
@@ -111,6 +125,7 @@ public class UserController {
             }
 
             userRepository.deleteById(id);
+            tokenRevocationService.revokeAllForSubject(user.get().getEmail());
             Map<String, String> response = new HashMap<>();
             response.put("message", "User deleted successfully");
             return ResponseEntity.ok(response);
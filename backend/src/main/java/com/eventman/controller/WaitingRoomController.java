@@ -0,0 +1,157 @@
+package com.eventman.controller;
+
+import com.eventman.EventRepository;
+import com.eventman.security.PermissionService;
+import com.eventman.service.WaitingRoomService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Waiting rooms for hot on-sales. Organizers open and close them; buyers join to
+ * get a queue token and poll their position until admitted, then pass the token
+ * as X-Queue-Token to the ticket list, hold and purchase endpoints.
+ *
+ * Rooms live in the memory of the node that handled the open request and are not
+ * shared: behind a load balancer, open the room on every replica or route the
+ * event's buyers to a single one.
+ */
+@RestController
+@RequestMapping("/api/events/{eventId}/waiting-room")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3002", "http://eventman-frontend:3000"})
+public class WaitingRoomController {
+
+    public static final String QUEUE_TOKEN_HEADER = "X-Queue-Token";
+
+    private final WaitingRoomService waitingRoomService;
+    private final EventRepository eventRepository;
+    private final PermissionService permissionService;
+    private final int defaultAdmitPerSecond;
+
+    public WaitingRoomController(WaitingRoomService waitingRoomService, EventRepository eventRepository,
+                                 PermissionService permissionService,
+                                 @Value("${events.waiting-room.admit-per-second:50}") int defaultAdmitPerSecond) {
+        this.waitingRoomService = waitingRoomService;
+        this.eventRepository = eventRepository;
+        this.permissionService = permissionService;
+        this.defaultAdmitPerSecond = defaultAdmitPerSecond;
+    }
+
+    /**
+     * Open the waiting room (or change its rate). Body: {"admitPerSecond": n}, optional
+     */
+    @PostMapping
+    public ResponseEntity<?> openWaitingRoom(@PathVariable Long eventId,
+                                             @RequestBody(required = false) Map<String, Object> request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!permissionService.canUpdateEvent(authentication)) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Insufficient permissions to manage waiting rooms");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+        }
+        if (!eventRepository.existsById(eventId)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        int admitPerSecond;
+        try {
+            Object rate = request != null ? request.get("admitPerSecond") : null;
+            admitPerSecond = rate != null ? Integer.parseInt(rate.toString()) : defaultAdmitPerSecond;
+        } catch (NumberFormatException e) {
+            admitPerSecond = 0;
+        }
+        if (admitPerSecond < 1) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "admitPerSecond must be a positive number");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        WaitingRoomService.Room room = waitingRoomService.open(eventId, admitPerSecond);
+        return ResponseEntity.ok(roomResponse(eventId, room));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<?> closeWaitingRoom(@PathVariable Long eventId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!permissionService.canUpdateEvent(authentication)) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Insufficient permissions to manage waiting rooms");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+        }
+        if (!waitingRoomService.close(eventId)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Waiting room closed");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Join the queue as the authenticated user. Joining again returns the same place.
+     */
+    @PostMapping("/join")
+    public ResponseEntity<?> joinWaitingRoom(@PathVariable Long eventId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Authentication required");
+            return ResponseEntity.status(401).body(error);
+        }
+
+        WaitingRoomService.Position position = waitingRoomService.join(eventId, authentication.getName());
+        if (position == null) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("open", false);
+            response.put("admitted", true);
+            return ResponseEntity.ok(response);
+        }
+        return ResponseEntity.ok(positionResponse(eventId, position));
+    }
+
+    /**
+     * Position of a queue token. Public and served from memory: the signed token is
+     * the only credential, so polling never touches the database.
+     */
+    @GetMapping
+    public ResponseEntity<?> getPosition(@PathVariable Long eventId,
+                                         @RequestHeader(value = QUEUE_TOKEN_HEADER, required = false) String token) {
+        WaitingRoomService.Position position = waitingRoomService.status(eventId, token);
+        if (position == null) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Invalid or expired queue token");
+            return ResponseEntity.badRequest().body(error);
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(positionResponse(eventId, position));
+    }
+
+    private static Map<String, Object> roomResponse(Long eventId, WaitingRoomService.Room room) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("eventId", eventId);
+        response.put("admitPerSecond", room.getAdmitPerSecond());
+        response.put("joined", room.getJoined());
+        response.put("admitted", room.getAdmitted());
+        return response;
+    }
+
+    private Map<String, Object> positionResponse(Long eventId, WaitingRoomService.Position position) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("open", waitingRoomService.isOpen(eventId));
+        response.put("ahead", position.getAhead());
+        response.put("admitted", position.isAdmitted());
+        response.put("retryAfterMs", position.getRetryAfterMs());
+        if (position.getToken() != null) {
+            response.put("token", position.getToken());
+        }
+        return response;
+    }
+}
@@ -0,0 +1,208 @@
+package com.eventman.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits the public authentication endpoints per client IP and per email,
+ * before any database lookup, BCrypt or SMTP work happens.
+ */
+@Component
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+
+    private static final Set<String> LIMITED_PATHS = Set.of(
+            "/api/auth/login",
+            "/api/auth/register",
+            "/api/auth/resend-verification"
+    );
+
+    /** Login and registration bodies are a few hundred bytes; anything larger is refused unread */
+    static final int MAX_BODY_BYTES = 8 * 1024;
+
+    private final TokenBucketRateLimiter ipLimiter;
+    private final TokenBucketRateLimiter emailLimiter;
+    private final ObjectMapper objectMapper;
+    private final Counter ipRejected;
+    private final Counter emailRejected;
+
+    public AuthRateLimitFilter(ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${security.rate-limit.ip.capacity:20}") int ipCapacity,
+                               @Value("${security.rate-limit.ip.refill-per-minute:20}") int ipRefillPerMinute,
+                               @Value("${security.rate-limit.email.capacity:5}") int emailCapacity,
+                               @Value("${security.rate-limit.email.refill-per-minute:5}") int emailRefillPerMinute,
+                               @Value("${security.rate-limit.max-keys:100000}") int maxKeys,
+                               @Value("${security.rate-limit.stripes:64}") int stripes) {
+        this.objectMapper = objectMapper;
+        this.ipLimiter = new TokenBucketRateLimiter(ipCapacity, ipRefillPerMinute, maxKeys, stripes);
+        this.emailLimiter = new TokenBucketRateLimiter(emailCapacity, emailRefillPerMinute, maxKeys, stripes);
+
+        this.ipRejected = Counter.builder("auth.ratelimit.rejected")
+                .description("Authentication requests rejected by the rate limiter")
+                .tag("key", "ip")
+                .register(meterRegistry);
+        this.emailRejected = Counter.builder("auth.ratelimit.rejected")
+                .description("Authentication requests rejected by the rate limiter")
+                .tag("key", "email")
+                .register(meterRegistry);
+        meterRegistry.gauge("auth.ratelimit.keys", ipLimiter, TokenBucketRateLimiter::size);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !LIMITED_PATHS.contains(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        // Per-IP check first: it needs no body parsing
+        long waitNanos = ipLimiter.tryAcquire(request.getRemoteAddr());
+        if (waitNanos > 0) {
+            ipRejected.increment();
+            reject(response, waitNanos);
+            return;
+        }
+
+        if (request.getContentLengthLong() > MAX_BODY_BYTES) {
+            tooLarge(response);
+            return;
+        }
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        if (cachedRequest.body == null) {
+            // Chunked bodies carry no Content-Length, so the cap is also enforced while reading
+            tooLarge(response);
+            return;
+        }
+        String email = extractEmail(cachedRequest.body);
+        if (email != null) {
+            waitNanos = emailLimiter.tryAcquire(email);
+            if (waitNanos > 0) {
+                emailRejected.increment();
+                reject(response, waitNanos);
+                return;
+            }
+        }
+
+        filterChain.doFilter(cachedRequest, response);
+    }
+
+    /**
+     * Forget buckets of clients that have gone quiet
+     */
+    @Scheduled(fixedDelayString = "${security.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleKeys() {
+        ipLimiter.evictIdle();
+        emailLimiter.evictIdle();
+    }
+
+    private String extractEmail(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+
+        try {
+            JsonNode email = objectMapper.readTree(body).get("email");
+            if (email == null || !email.isTextual() || email.asText().isBlank()) {
+                return null;
+            }
+            return email.asText().trim().toLowerCase(Locale.ROOT);
+        } catch (IOException e) {
+            // Malformed bodies are rejected by the controller; only the IP limit applies
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+
+        response.setStatus(429);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+
+        Map<String, Object> error = new HashMap<>();
+        error.put("message", "Too many requests. Please try again later.");
+        error.put("retryAfterSeconds", retryAfterSeconds);
+        response.getWriter().write(objectMapper.writeValueAsString(error));
+    }
+
+    private void tooLarge(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        Map<String, String> error = new HashMap<>();
+        error.put("message", "Request body too large");
+        response.getWriter().write(objectMapper.writeValueAsString(error));
+    }
+
+    /**
+     * Request wrapper that buffers the (small) JSON body so it can be inspected
+     * here and still be read by the controller. The body is null when it is
+     * longer than {@link #MAX_BODY_BYTES}.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            byte[] read = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+            this.body = read.length > MAX_BODY_BYTES ? null : read;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() { return input.available() == 0; }
+
+                @Override
+                public boolean isReady() { return true; }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() { return input.read(); }
+
+                @Override
+                public int read(byte[] b, int off, int len) { return input.read(b, off, len); }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -4,7 +4,6 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -20,9 +19,14 @@ import java.util.stream.Collectors;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
+    private final PermissionService permissionService;
+    private final TokenRevocationService tokenRevocationService;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, PermissionService permissionService,
+                                   TokenRevocationService tokenRevocationService) {
         this.jwtUtil = jwtUtil;
+        this.permissionService = permissionService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @Override
@@ -40,10 +44,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             jwt = authorizationHeader.substring(7);
 
             try {
-                // Validate token and extract claims
-                if (jwtUtil.validateToken(jwt)) {
-                    username = jwtUtil.extractUsername(jwt);
-                    roles = jwtUtil.extractRoles(jwt);
+                // Verify the token once; repeat tokens come from the claims cache
+                VerifiedToken verified = jwtUtil.verify(jwt);
+
+                // Refresh tokens are only accepted by /api/auth/refresh, never as bearer tokens
+                if (verified.isAccessToken() && !tokenRevocationService.isRevoked(verified)) {
+                    username = verified.getSubject();
+                    roles = verified.getRoles();
                 }
             } catch (Exception e) {
                 // Token is invalid, continue without authentication
@@ -58,9 +65,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
                     .collect(Collectors.toList());
 
-            // Create authentication token
-            UsernamePasswordAuthenticationToken authenticationToken =
-                    new UsernamePasswordAuthenticationToken(username, null, authorities);
+            // Create authentication token carrying the precompiled permission masks
+            PermissionAuthenticationToken authenticationToken = new PermissionAuthenticationToken(
+                    username, authorities, permissionService.permissionMask(roles), permissionService.roleMask(roles));
 
             authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
@@ -0,0 +1,339 @@
+package com.eventman.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Asymmetric signing keys for JWTs, identified by {@code kid}.
+ *
+ * A rotated-in key is published (see {@code /.well-known/jwks.json}) for
+ * {@code jwt.keys.activation-delay-ms} before it is used for signing, so that
+ * replicas and gateways caching the JWKS learn it before tokens signed with it
+ * arrive. Old keys stay published until every token they signed has expired.
+ *
+ * Keys are stored in {@code jwt.keys.directory} as {@code <kid>.key} (PKCS#8)
+ * and {@code <kid>.pub} (X.509) files; replicas sharing the directory sign and
+ * verify with the same ring, and tokens survive restarts. Startup fails without
+ * a directory unless {@code jwt.keys.ephemeral} is set (the dev profile does):
+ * then keys live in memory only, are regenerated on restart, and no other node
+ * can verify them.
+ */
+@Component
+public class JwtKeyRing {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    private final String algorithm;
+    private final Path directory;
+    private final long rotationIntervalMs;
+    private final long activationDelayMs;
+    private final long retentionMs;
+
+    private final Map<String, SigningKey> keys = new ConcurrentHashMap<>();
+    private volatile long lastDirectoryReload;
+
+    public JwtKeyRing(@Value("${jwt.signing-algorithm:ES256}") String algorithm,
+                      @Value("${jwt.keys.directory:}") String directory,
+                      @Value("${jwt.keys.ephemeral:false}") boolean ephemeral,
+                      @Value("${jwt.keys.rotation-interval-ms:604800000}") long rotationIntervalMs,
+                      @Value("${jwt.keys.activation-delay-ms:300000}") long activationDelayMs,
+                      @Value("${jwt.refresh-token-ttl-ms:1209600000}") long refreshTokenTtlMs) {
+        if (!"ES256".equals(algorithm) && !"RS256".equals(algorithm)) {
+            throw new IllegalArgumentException("Unsupported jwt.signing-algorithm: " + algorithm);
+        }
+
+        boolean noDirectory = directory == null || directory.isBlank();
+        if (noDirectory && !ephemeral) {
+            throw new IllegalStateException("jwt.keys.directory (JWT_KEYS_DIR) must point to a persistent directory "
+                    + "shared by all replicas; set jwt.keys.ephemeral=true to use throwaway in-memory keys");
+        }
+        if (noDirectory) {
+            log.warn("No jwt.keys.directory configured; JWT signing keys are in memory only and change on restart");
+        }
+
+        this.algorithm = algorithm;
+        this.directory = noDirectory ? null : Paths.get(directory);
+        this.rotationIntervalMs = rotationIntervalMs;
+        this.activationDelayMs = activationDelayMs;
+        // A key must verify every token it signed: it signs for at most one interval, then tokens live for up to the refresh TTL
+        this.retentionMs = rotationIntervalMs + activationDelayMs + refreshTokenTtlMs;
+
+        loadDirectory();
+        if (keys.isEmpty()) {
+            // First start: the initial key is usable immediately
+            addKey(generate(Instant.now().minusMillis(activationDelayMs)));
+        }
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * The key new tokens are signed with: the newest key that has been published
+     * for at least the activation delay, or the oldest key if none has yet
+     */
+    public SigningKey activeKey() {
+        long activeBefore = System.currentTimeMillis() - activationDelayMs;
+        return keys.values().stream()
+                .filter(key -> key.privateKey != null && key.createdAt.toEpochMilli() <= activeBefore)
+                .max(Comparator.comparing(SigningKey::getCreatedAt))
+                .orElseGet(() -> keys.values().stream()
+                        .filter(key -> key.privateKey != null)
+                        .min(Comparator.comparing(SigningKey::getCreatedAt))
+                        .orElseThrow(() -> new IllegalStateException("No JWT signing key with a private key available")));
+    }
+
+    /**
+     * Public key for a kid, reloading the shared directory once if the kid is unknown
+     */
+    public PublicKey publicKey(String kid) {
+        if (kid == null) {
+            return null;
+        }
+
+        SigningKey key = keys.get(kid);
+        if (key == null && directory != null && System.currentTimeMillis() - lastDirectoryReload > 5_000) {
+            loadDirectory();
+            key = keys.get(kid);
+        }
+        return key != null ? key.publicKey : null;
+    }
+
+    /**
+     * All currently published keys as a JWK set
+     */
+    public Map<String, Object> toJwks() {
+        List<Map<String, Object>> jwks = new ArrayList<>();
+        keys.values().stream()
+                .sorted(Comparator.comparing(SigningKey::getCreatedAt).reversed())
+                .forEach(key -> jwks.add(toJwk(key)));
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("keys", jwks);
+        return body;
+    }
+
+    /**
+     * Add a new key when the newest one is older than the rotation interval, and
+     * drop keys that can no longer have valid tokens
+     */
+    @Scheduled(fixedDelayString = "${jwt.keys.check-interval-ms:60000}")
+    public synchronized void rotateIfDue() {
+        loadDirectory();
+
+        long now = System.currentTimeMillis();
+        Instant newest = keys.values().stream()
+                .map(SigningKey::getCreatedAt)
+                .max(Comparator.naturalOrder())
+                .orElse(Instant.EPOCH);
+
+        if (now - newest.toEpochMilli() >= rotationIntervalMs) {
+            SigningKey key = generate(Instant.now());
+            addKey(key);
+            log.info("Rotated JWT signing key, new kid {} becomes active in {} ms", key.kid, activationDelayMs);
+        }
+
+        String activeKid = keys.values().stream().anyMatch(key -> key.privateKey != null) ? activeKey().kid : null;
+        for (SigningKey key : new ArrayList<>(keys.values())) {
+            if (!key.kid.equals(activeKid) && now - key.createdAt.toEpochMilli() > retentionMs) {
+                retire(key);
+            }
+        }
+    }
+
+    private void addKey(SigningKey key) {
+        keys.put(key.kid, key);
+        if (directory != null) {
+            store(key);
+        }
+    }
+
+    private void retire(SigningKey key) {
+        keys.remove(key.kid);
+        if (directory != null) {
+            try {
+                Files.deleteIfExists(directory.resolve(key.kid + ".key"));
+                Files.deleteIfExists(directory.resolve(key.kid + ".pub"));
+            } catch (IOException e) {
+                log.warn("Failed to delete retired JWT key {}: {}", key.kid, e.getMessage());
+            }
+        }
+        log.info("Retired JWT signing key {}", key.kid);
+    }
+
+    private SigningKey generate(Instant createdAt) {
+        try {
+            KeyPairGenerator generator;
+            if ("ES256".equals(algorithm)) {
+                generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+            } else {
+                generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048);
+            }
+            KeyPair pair = generator.generateKeyPair();
+            return new SigningKey(UUID.randomUUID().toString(), pair.getPrivate(), pair.getPublic(), createdAt);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to generate JWT signing key", e);
+        }
+    }
+
+    private synchronized void loadDirectory() {
+        if (directory == null) {
+            return;
+        }
+        lastDirectoryReload = System.currentTimeMillis();
+
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path pub : (Iterable<Path>) files.filter(p -> p.toString().endsWith(".pub"))::iterator) {
+                    String fileName = pub.getFileName().toString();
+                    String kid = fileName.substring(0, fileName.length() - 4);
+                    if (!keys.containsKey(kid)) {
+                        keys.put(kid, load(kid, pub));
+                    }
+                }
+            }
+        } catch (IOException | GeneralSecurityException e) {
+            log.warn("Failed to load JWT keys from {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private SigningKey load(String kid, Path pub) throws IOException, GeneralSecurityException {
+        KeyFactory factory = KeyFactory.getInstance(keyFactoryAlgorithm());
+        PublicKey publicKey = factory.generatePublic(new X509EncodedKeySpec(Files.readAllBytes(pub)));
+
+        PrivateKey privateKey = null;
+        Path priv = directory.resolve(kid + ".key");
+        if (Files.exists(priv)) {
+            privateKey = factory.generatePrivate(new PKCS8EncodedKeySpec(Files.readAllBytes(priv)));
+        }
+
+        return new SigningKey(kid, privateKey, publicKey, Files.getLastModifiedTime(pub).toInstant());
+    }
+
+    private void store(SigningKey key) {
+        try {
+            Files.createDirectories(directory);
+            // Created owner-only and moved into place, so the key is never readable by others
+            Path tmp;
+            try {
+                tmp = Files.createTempFile(directory, key.kid, ".tmp",
+                        PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+            } catch (UnsupportedOperationException e) {
+                // Non-POSIX file system
+                tmp = Files.createTempFile(directory, key.kid, ".tmp");
+            }
+            try {
+                Files.write(tmp, key.privateKey.getEncoded());
+                Files.move(tmp, directory.resolve(key.kid + ".key"), StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            // Written last: a .pub file is what marks the key as present
+            Path pub = directory.resolve(key.kid + ".pub");
+            Files.write(pub, key.publicKey.getEncoded());
+            Files.setLastModifiedTime(pub, java.nio.file.attribute.FileTime.from(key.createdAt));
+        } catch (IOException e) {
+            log.warn("Failed to store JWT key {} in {}: {}", key.kid, directory, e.getMessage());
+        }
+    }
+
+    private String keyFactoryAlgorithm() {
+        return "ES256".equals(algorithm) ? "EC" : "RSA";
+    }
+
+    private Map<String, Object> toJwk(SigningKey key) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+
+        if (key.publicKey instanceof ECPublicKey) {
+            ECPublicKey ec = (ECPublicKey) key.publicKey;
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-256");
+            jwk.put("x", encoder.encodeToString(unsigned(ec.getW().getAffineX(), 32)));
+            jwk.put("y", encoder.encodeToString(unsigned(ec.getW().getAffineY(), 32)));
+        } else {
+            RSAPublicKey rsa = (RSAPublicKey) key.publicKey;
+            jwk.put("kty", "RSA");
+            jwk.put("n", encoder.encodeToString(unsigned(rsa.getModulus(), 0)));
+            jwk.put("e", encoder.encodeToString(unsigned(rsa.getPublicExponent(), 0)));
+        }
+
+        jwk.put("kid", key.kid);
+        jwk.put("use", "sig");
+        jwk.put("alg", algorithm);
+        return jwk;
+    }
+
+    // Big-endian unsigned bytes, left-padded to length when length > 0
+    private static byte[] unsigned(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (length > bytes.length) {
+            byte[] padded = new byte[length];
+            System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+            return padded;
+        }
+        return bytes;
+    }
+
+    public static final class SigningKey {
+        private final String kid;
+        private final PrivateKey privateKey;
+        private final PublicKey publicKey;
+        private final Instant createdAt;
+
+        private SigningKey(String kid, PrivateKey privateKey, PublicKey publicKey, Instant createdAt) {
+            this.kid = kid;
+            this.privateKey = privateKey;
+            this.publicKey = publicKey;
+            this.createdAt = createdAt;
+        }
+
+        public String getKid() { return kid; }
+
+        public PrivateKey getPrivateKey() { return privateKey; }
+
+        public PublicKey getPublicKey() { return publicKey; }
+
+        public Instant getCreatedAt() { return createdAt; }
+    }
+}
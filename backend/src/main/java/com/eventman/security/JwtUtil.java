@@ -1,39 +1,107 @@
 package com.eventman.security;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
-    private static final String SECRET_KEY = "your-very-secure-secret-key-that-is-at-least-32-characters-long";
-    private static final int JWT_EXPIRATION_MS = 86400000; // 24 hours
-
-    private final Key key = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    private static final String TYPE_CLAIM = "typ";
+    // iat only has second precision; revocation cutoffs need the millisecond
+    private static final String ISSUED_AT_MILLIS_CLAIM = "iat_ms";
+
+    private final JwtKeyRing keyRing;
+    private final SignatureAlgorithm signatureAlgorithm;
+
+    // Parsers are immutable and thread-safe, so build one instead of one per call
+    private final JwtParser parser;
+
+    private final VerifiedClaimsCache claimsCache;
+    private final long accessTokenTtlMs;
+    private final long refreshTokenTtlMs;
+
+    public JwtUtil(JwtKeyRing keyRing, VerifiedClaimsCache claimsCache,
+                   @Value("${jwt.access-token-ttl-ms:900000}") long accessTokenTtlMs,
+                   @Value("${jwt.refresh-token-ttl-ms:1209600000}") long refreshTokenTtlMs) {
+        this.keyRing = keyRing;
+        this.signatureAlgorithm = SignatureAlgorithm.forName(keyRing.getAlgorithm());
+        this.claimsCache = claimsCache;
+        this.accessTokenTtlMs = accessTokenTtlMs;
+        this.refreshTokenTtlMs = refreshTokenTtlMs;
+
+        // Verification key is picked by the token's kid header
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    // jjwt 0.11 declares this parameter as a raw JwsHeader, so it cannot be parameterized here
+                    @SuppressWarnings("rawtypes")
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        if (!signatureAlgorithm.getValue().equals(header.getAlgorithm())) {
+                            throw new UnsupportedJwtException("Unexpected JWT algorithm: " + header.getAlgorithm());
+                        }
+                        Key key = keyRing.publicKey(header.getKeyId());
+                        if (key == null) {
+                            throw new UnsupportedJwtException("Unknown JWT key id: " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
 
     /**
-     * Generate JWT token for user
+     * Generate short-lived access token for user
      */
     public String generateToken(String username, String[] roles) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("roles", roles);
+        claims.put(TYPE_CLAIM, VerifiedToken.TYPE_ACCESS);
+
+        return buildToken(claims, username, accessTokenTtlMs);
+    }
+
+    /**
+     * Generate long-lived refresh token for user. Refresh tokens carry no roles;
+     * roles are looked up again whenever a new access token is issued.
+     */
+    public String generateRefreshToken(String username) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(TYPE_CLAIM, VerifiedToken.TYPE_REFRESH);
 
+        return buildToken(claims, username, refreshTokenTtlMs);
+    }
+
+    private String buildToken(Map<String, Object> claims, String username, long ttlMs) {
+        long now = System.currentTimeMillis();
+        JwtKeyRing.SigningKey signingKey = keyRing.activeKey();
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.getKid())
                 .setClaims(claims)
+                .claim(ISSUED_AT_MILLIS_CLAIM, now)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + JWT_EXPIRATION_MS))
-                .signWith(key, SignatureAlgorithm.HS256)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + ttlMs))
+                .signWith(signingKey.getPrivateKey(), signatureAlgorithm)
                 .compact();
     }
 
+    public long getAccessTokenTtlMs() {
+        return accessTokenTtlMs;
+    }
+
+    public long getRefreshTokenTtlMs() {
+        return refreshTokenTtlMs;
+    }
+
     /**
      * Extract username from JWT token
      */
@@ -44,9 +112,53 @@ public class JwtUtil {
     /**
      * Extract roles from JWT token
      */
-    @SuppressWarnings("unchecked")
     public String[] extractRoles(String token) {
+        return rolesFrom(extractAllClaims(token));
+    }
+
+    /**
+     * Verify a token once and return its claims. Tokens seen before are served
+     * from {@link VerifiedClaimsCache} without re-checking the signature.
+     * Throws {@link JwtException} if the token is malformed, forged or expired.
+     */
+    public VerifiedToken verify(String token) {
+        VerifiedToken cached = claimsCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
+
         Claims claims = extractAllClaims(token);
+        if (claims.getExpiration() == null) {
+            throw new MalformedJwtException("JWT token has no expiration");
+        }
+
+        // Tokens issued before refresh tokens existed have no type and act as access tokens
+        String type = claims.get(TYPE_CLAIM, String.class);
+        VerifiedToken verified = new VerifiedToken(
+                claims.getId(),
+                type != null ? type : VerifiedToken.TYPE_ACCESS,
+                claims.getSubject(),
+                rolesFrom(claims),
+                issuedAtMillis(claims),
+                claims.getExpiration().getTime());
+        claimsCache.put(token, verified);
+        return verified;
+    }
+
+    /**
+     * When the token was issued, to the millisecond when it says so. Tokens from
+     * before the iat_ms claim fall back to iat, truncated to the second.
+     */
+    private static long issuedAtMillis(Claims claims) {
+        Object millis = claims.get(ISSUED_AT_MILLIS_CLAIM);
+        if (millis instanceof Number) {
+            return ((Number) millis).longValue();
+        }
+        return claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L;
+    }
+
+    @SuppressWarnings("unchecked")
+    private String[] rolesFrom(Claims claims) {
         Object rolesObj = claims.get("roles");
 
         if (rolesObj instanceof String[]) {
@@ -82,11 +194,7 @@ public class JwtUtil {
      * Extract all claims from JWT token
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     /**
@@ -0,0 +1,30 @@
+package com.eventman.security;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * Authentication for a JWT-authenticated request that also carries the
+ * principal's effective permission and role bitmasks, computed once by
+ * {@link JwtAuthenticationFilter} so that permission checks are a bit test.
+ */
+public class PermissionAuthenticationToken extends UsernamePasswordAuthenticationToken {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long permissionMask;
+    private final long roleMask;
+
+    public PermissionAuthenticationToken(Object principal, Collection<? extends GrantedAuthority> authorities,
+                                         long permissionMask, long roleMask) {
+        super(principal, null, authorities);
+        this.permissionMask = permissionMask;
+        this.roleMask = roleMask;
+    }
+
+    public long getPermissionMask() { return permissionMask; }
+
+    public long getRoleMask() { return roleMask; }
+}
@@ -1,9 +1,14 @@
 package com.eventman.security;
 
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class PermissionService {
@@ -36,58 +41,152 @@ public class PermissionService {
     }
 
     // Role-based permissions mapping
-    private static final java.util.Map<Role, List<Permission>> ROLE_PERMISSIONS = java.util.Map.of(
-        Role.ADMIN, Arrays.asList(
-            Permission.CREATE_EVENT,
-            Permission.READ_EVENT,
-            Permission.UPDATE_EVENT,
-            Permission.DELETE_EVENT,
-            Permission.MANAGE_USERS,
-            Permission.VIEW_USERS,
-            Permission.VIEW_ANALYTICS,
-            Permission.VIEW_REVENUE,
-            Permission.SYSTEM_ADMIN
-        ),
-        Role.ORGANIZER, Arrays.asList(
+    private static final Map<Role, EnumSet<Permission>> ROLE_PERMISSIONS = new EnumMap<>(Role.class);
+
+    static {
+        ROLE_PERMISSIONS.put(Role.ADMIN, EnumSet.allOf(Permission.class));
+        ROLE_PERMISSIONS.put(Role.ORGANIZER, EnumSet.of(
             Permission.CREATE_EVENT,
             Permission.READ_EVENT,
             Permission.UPDATE_EVENT,
             Permission.DELETE_EVENT,
             Permission.VIEW_ANALYTICS,
             Permission.VIEW_REVENUE
-        ),
-        Role.ATTENDEE, Arrays.asList(
-            Permission.READ_EVENT
-        ),
-        Role.GUEST, Arrays.asList(
-            Permission.READ_EVENT
-        )
-    );
+        ));
+        ROLE_PERMISSIONS.put(Role.ATTENDEE, EnumSet.of(Permission.READ_EVENT));
+        ROLE_PERMISSIONS.put(Role.GUEST, EnumSet.of(Permission.READ_EVENT));
+    }
+
+    // The matrix above compiled to one permission bitmask per role, indexed by ordinal
+    private static final long[] ROLE_PERMISSION_MASKS = new long[Role.values().length];
+
+    // Upper-case role name -> role, so role strings are resolved without valueOf exceptions
+    private static final Map<String, Role> ROLES_BY_NAME = new HashMap<>();
+
+    static {
+        for (Role role : Role.values()) {
+            long mask = 0L;
+            for (Permission permission : ROLE_PERMISSIONS.get(role)) {
+                mask |= bit(permission);
+            }
+            ROLE_PERMISSION_MASKS[role.ordinal()] = mask;
+            ROLES_BY_NAME.put(role.name(), role);
+        }
+    }
+
+    private static long bit(Permission permission) {
+        return 1L << permission.ordinal();
+    }
+
+    private static long bit(Role role) {
+        return 1L << role.ordinal();
+    }
 
     /**
-     * Check if user has specific permission
+     * Compute the effective permission bitmask for a set of role names
      */
-    public boolean hasPermission(String[] userRoles, Permission permission) {
-        if (userRoles == null || userRoles.length == 0) {
+    public long permissionMask(String[] userRoles) {
+        if (userRoles == null) {
+            return 0L;
+        }
+
+        long mask = 0L;
+        for (String roleString : userRoles) {
+            Role role = stringToRole(roleString);
+            if (role != null) {
+                mask |= ROLE_PERMISSION_MASKS[role.ordinal()];
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Compute the role bitmask for a set of role names
+     */
+    public long roleMask(String[] userRoles) {
+        if (userRoles == null) {
+            return 0L;
+        }
+
+        long mask = 0L;
+        for (String roleString : userRoles) {
+            Role role = stringToRole(roleString);
+            if (role != null) {
+                mask |= bit(role);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Check a precompiled permission mask for a specific permission
+     */
+    public boolean hasPermission(long permissionMask, Permission permission) {
+        return (permissionMask & bit(permission)) != 0;
+    }
+
+    /**
+     * Check if the authenticated principal has a specific permission. Uses the mask
+     * attached by {@link JwtAuthenticationFilter} and only falls back to the
+     * granted authorities for other authentication types.
+     */
+    public boolean hasPermission(Authentication authentication, Permission permission) {
+        return hasPermission(permissionMask(authentication), permission);
+    }
+
+    /**
+     * Effective permission mask of an authentication, or 0 if unauthenticated
+     */
+    public long permissionMask(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return 0L;
+        }
+
+        if (authentication instanceof PermissionAuthenticationToken) {
+            return ((PermissionAuthenticationToken) authentication).getPermissionMask();
+        }
+
+        return permissionMask(rolesOf(authentication));
+    }
+
+    /**
+     * Check if the authenticated principal has a specific role
+     */
+    public boolean hasRole(Authentication authentication, Role role) {
+        if (authentication == null || !authentication.isAuthenticated()) {
             return false;
         }
 
-        return Arrays.stream(userRoles)
-                .map(this::stringToRole)
-                .filter(role -> role != null)
-                .anyMatch(role -> ROLE_PERMISSIONS.get(role).contains(permission));
+        long roleMask = authentication instanceof PermissionAuthenticationToken
+                ? ((PermissionAuthenticationToken) authentication).getRoleMask()
+                : roleMask(rolesOf(authentication));
+        return (roleMask & bit(role)) != 0;
+    }
+
+    private static String[] rolesOf(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .map(authority -> authority.getAuthority().replace("ROLE_", ""))
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Check if user has specific permission
+     */
+    public boolean hasPermission(String[] userRoles, Permission permission) {
+        return hasPermission(permissionMask(userRoles), permission);
     }
 
     /**
      * Check if user has any of the specified permissions
      */
     public boolean hasAnyPermission(String[] userRoles, Permission... permissions) {
-        if (userRoles == null || userRoles.length == 0) {
-            return false;
+        long mask = permissionMask(userRoles);
+        for (Permission permission : permissions) {
+            if (hasPermission(mask, permission)) {
+                return true;
+            }
         }
-
-        return Arrays.stream(permissions)
-                .anyMatch(permission -> hasPermission(userRoles, permission));
+        return false;
     }
 
     /**
@@ -98,49 +197,47 @@ public class PermissionService {
             return false;
         }
 
-        return Arrays.stream(permissions)
-                .allMatch(permission -> hasPermission(userRoles, permission));
+        long mask = permissionMask(userRoles);
+        for (Permission permission : permissions) {
+            if (!hasPermission(mask, permission)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
      * Check if user has specific role
      */
     public boolean hasRole(String[] userRoles, Role role) {
-        if (userRoles == null || userRoles.length == 0) {
-            return false;
-        }
-
-        return Arrays.stream(userRoles)
-                .map(this::stringToRole)
-                .anyMatch(r -> r == role);
+        return (roleMask(userRoles) & bit(role)) != 0;
     }
 
     /**
      * Check if user has any of the specified roles
      */
     public boolean hasAnyRole(String[] userRoles, Role... roles) {
-        if (userRoles == null || userRoles.length == 0) {
-            return false;
+        long mask = roleMask(userRoles);
+        for (Role role : roles) {
+            if ((mask & bit(role)) != 0) {
+                return true;
+            }
         }
-
-        return Arrays.stream(roles)
-                .anyMatch(role -> hasRole(userRoles, role));
+        return false;
     }
 
     /**
      * Get all permissions for user's roles
      */
     public List<Permission> getUserPermissions(String[] userRoles) {
-        if (userRoles == null || userRoles.length == 0) {
-            return Arrays.asList();
+        long mask = permissionMask(userRoles);
+        List<Permission> permissions = new ArrayList<>();
+        for (Permission permission : Permission.values()) {
+            if (hasPermission(mask, permission)) {
+                permissions.add(permission);
+            }
         }
-
-        return Arrays.stream(userRoles)
-                .map(this::stringToRole)
-                .filter(role -> role != null)
-                .flatMap(role -> ROLE_PERMISSIONS.get(role).stream())
-                .distinct()
-                .collect(java.util.stream.Collectors.toList());
+        return permissions;
     }
 
     /**
@@ -151,11 +248,8 @@ public class PermissionService {
             return null;
         }
 
-        try {
-            return Role.valueOf(roleString.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            return null;
-        }
+        Role role = ROLES_BY_NAME.get(roleString);
+        return role != null ? role : ROLES_BY_NAME.get(roleString.toUpperCase());
     }
 
     /**
@@ -227,4 +321,25 @@ public class PermissionService {
     public boolean isAttendee(String[] userRoles) {
         return hasRole(userRoles, Role.ATTENDEE);
     }
+
+    /**
+     * Check if the authenticated principal can create events
+     */
+    public boolean canCreateEvent(Authentication authentication) {
+        return hasPermission(authentication, Permission.CREATE_EVENT);
+    }
+
+    /**
+     * Check if the authenticated principal can update events
+     */
+    public boolean canUpdateEvent(Authentication authentication) {
+        return hasPermission(authentication, Permission.UPDATE_EVENT);
+    }
+
+    /**
+     * Check if the authenticated principal can delete events
+     */
+    public boolean canDeleteEvent(Authentication authentication) {
+        return hasPermission(authentication, Permission.DELETE_EVENT);
+    }
 }
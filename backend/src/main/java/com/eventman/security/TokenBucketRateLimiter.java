@@ -0,0 +1,177 @@
+package com.eventman.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket limiter keyed by an arbitrary string (client IP, email, ...).
+ *
+ * Each bucket is a single {@link AtomicLong} holding its "theoretical arrival time"
+ * (the GCRA formulation of a token bucket), so a check is one CAS and no locks.
+ * Keys are spread over a fixed number of stripes, each holding at most
+ * {@code maxKeys / stripes} buckets; when a stripe is full the fullest of a small
+ * random sample of its buckets makes room for the new key (only creating a key
+ * takes the stripe's lock), and idle buckets are dropped by the periodic
+ * {@link #evictIdle()}. Memory therefore stays bounded no matter how many
+ * distinct keys attackers use, and every key keeps a bucket of its own, so a
+ * flood of new keys can never throttle an unrelated client.
+ */
+public class TokenBucketRateLimiter {
+
+    /** Buckets looked at to pick a victim when a stripe is full */
+    private static final int EVICTION_SAMPLE = 16;
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int maxKeysPerStripe;
+    private final Stripe[] stripes;
+
+    /**
+     * @param capacity        bucket size, i.e. how many requests may burst at once
+     * @param refillPerMinute how many tokens are added back per minute
+     * @param maxKeys         upper bound on tracked keys across all stripes
+     * @param stripeCount     number of independent stripes (rounded up to a power of two)
+     */
+    public TokenBucketRateLimiter(int capacity, int refillPerMinute, int maxKeys, int stripeCount) {
+        this.emissionIntervalNanos = 60_000_000_000L / Math.max(1, refillPerMinute);
+        this.burstToleranceNanos = emissionIntervalNanos * Math.max(1, capacity);
+
+        int count = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.maxKeysPerStripe = Math.max(1, maxKeys / count);
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Take one token for the key. Returns 0 when allowed, otherwise the number of
+     * nanoseconds until a token becomes available.
+     */
+    public long tryAcquire(String key) {
+        long now = System.nanoTime();
+        AtomicLong bucket = bucketFor(key, now);
+
+        while (true) {
+            long tat = bucket.get();
+            long start = Math.max(tat, now);
+            long next = start + emissionIntervalNanos;
+            long wait = next - now - burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(tat, next)) {
+                return 0L;
+            }
+        }
+    }
+
+    /**
+     * Drop buckets that have refilled completely, i.e. keys that have been idle
+     * long enough that forgetting them changes nothing.
+     */
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Stripe stripe : stripes) {
+            stripe.evictIdle(now);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.buckets.size();
+        }
+        return size;
+    }
+
+    private AtomicLong bucketFor(String key, long now) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)].bucket(key, now);
+    }
+
+    /** A bucket that knows its key and where it sits in its stripe's slot array */
+    private static final class Bucket extends AtomicLong {
+        private static final long serialVersionUID = 1L;
+
+        private final String key;
+        // Guarded by the stripe
+        private int slot;
+
+        private Bucket(String key, long tat, int slot) {
+            super(tat);
+            this.key = key;
+            this.slot = slot;
+        }
+    }
+
+    private final class Stripe {
+        private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+        // The same buckets packed into [0, size), so a victim can be sampled by random index
+        private final Bucket[] slots = new Bucket[maxKeysPerStripe];
+        private int size;
+
+        /**
+         * The key's bucket; lock-free when it exists, otherwise created under the
+         * stripe lock, evicting one bucket first if the stripe is full
+         */
+        private AtomicLong bucket(String key, long now) {
+            Bucket bucket = buckets.get(key);
+            if (bucket != null) {
+                return bucket;
+            }
+            synchronized (this) {
+                bucket = buckets.get(key);
+                if (bucket != null) {
+                    return bucket;
+                }
+                if (size == slots.length) {
+                    evictFullest();
+                }
+                bucket = new Bucket(key, now, size);
+                slots[size++] = bucket;
+                buckets.put(key, bucket);
+                return bucket;
+            }
+        }
+
+        private synchronized void evictIdle(long now) {
+            // A bucket whose arrival time is in the past is full again. Walking down,
+            // the bucket swapped into a freed slot has already been looked at.
+            for (int i = size - 1; i >= 0; i--) {
+                if (slots[i].get() <= now) {
+                    remove(slots[i]);
+                }
+            }
+        }
+
+        /**
+         * Approximate LRU: of a few buckets picked at random, forget the one with the
+         * earliest arrival time, i.e. the key closest to having refilled and least
+         * recently busy. Sampling by index costs the same however full the stripe is.
+         * Caller holds the stripe lock and the stripe is not empty.
+         */
+        private void evictFullest() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Bucket victim = slots[random.nextInt(size)];
+            for (int i = 1; i < EVICTION_SAMPLE; i++) {
+                Bucket candidate = slots[random.nextInt(size)];
+                if (candidate.get() - victim.get() < 0) {
+                    victim = candidate;
+                }
+            }
+            remove(victim);
+        }
+
+        /** Caller holds the stripe lock */
+        private void remove(Bucket bucket) {
+            buckets.remove(bucket.key);
+            Bucket last = slots[--size];
+            slots[bucket.slot] = last;
+            last.slot = bucket.slot;
+            slots[size] = null;
+        }
+    }
+}
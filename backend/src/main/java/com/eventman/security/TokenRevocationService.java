@@ -0,0 +1,217 @@
+package com.eventman.security;
+
+import com.eventman.RevokedToken;
+import com.eventman.RevokedTokenRepository;
+import com.eventman.service.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks revoked JWTs. Revocations are persisted in {@code revoked_tokens}, and
+ * every node keeps an in-memory Bloom filter of them that is rebuilt periodically
+ * from the table. The per-request check therefore never touches the database:
+ * a Bloom miss (the common case) is a definite "not revoked", and a hit is
+ * confirmed against the exact in-memory snapshot.
+ *
+ * Revocations made on this node take effect immediately; revocations made on
+ * another node become visible here after the next rebuild. Refresh tokens are
+ * the exception: they are only honoured through {@link #claim}, whose INSERT
+ * rejects reuse on any node, so spent ones never enter the snapshot.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private static final String SUBJECT_PREFIX = "sub:";
+    private static final String ACCESS_PREFIX = "access:";
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final JwtUtil jwtUtil;
+    private final double falsePositiveRate;
+
+    private volatile Snapshot snapshot;
+    // Guarded by this: revocations added while a rebuild reads the table, replayed into its snapshot
+    private List<RevokedToken> addedDuringRebuild;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository, JwtUtil jwtUtil,
+                                  @Value("${jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.jwtUtil = jwtUtil;
+        this.falsePositiveRate = falsePositiveRate;
+        this.snapshot = new Snapshot(List.of(), falsePositiveRate);
+    }
+
+    /**
+     * Check whether a verified token has been revoked, either by its own id or
+     * because every token (or every access token) of its subject issued before
+     * some instant was revoked
+     */
+    public boolean isRevoked(VerifiedToken token) {
+        Snapshot current = snapshot;
+
+        String tokenId = token.getTokenId();
+        if (tokenId != null && current.bloom.mightContain(tokenId) && current.tokenIds.contains(tokenId)) {
+            return true;
+        }
+
+        String subjectKey = SUBJECT_PREFIX + token.getSubject();
+        if (issuedBeforeCutoff(current, subjectKey, token)) {
+            return true;
+        }
+        return token.isAccessToken() && issuedBeforeCutoff(current, ACCESS_PREFIX + subjectKey, token);
+    }
+
+    private static boolean issuedBeforeCutoff(Snapshot current, String key, VerifiedToken token) {
+        if (!current.bloom.mightContain(key)) {
+            return false;
+        }
+        Long cutoff = current.subjectCutoffs.get(key);
+        // Millisecond issue times (iat_ms), so a token issued earlier in the cutoff's second is caught
+        return cutoff != null && token.getIssuedAtMillis() < cutoff;
+    }
+
+    /**
+     * Revoke a single token until it would have expired anyway
+     */
+    public void revoke(VerifiedToken token) {
+        if (token.getTokenId() == null) {
+            return;
+        }
+        if (token.isRefreshToken()) {
+            // Spending it is enough; false just means it was already spent
+            claim(token);
+            return;
+        }
+
+        RevokedToken revoked = new RevokedToken(token.getTokenId(), token.getSubject(),
+                Instant.now(), Instant.ofEpochMilli(token.getExpiresAtMillis()));
+        revokedTokenRepository.save(revoked);
+        remember(revoked);
+    }
+
+    /**
+     * Revoke a token only if nobody revoked it before, e.g. to spend a single-use
+     * refresh token. Returns false if it was already revoked, here or on another
+     * node, in which case the caller must not honour it.
+     */
+    public boolean claim(VerifiedToken token) {
+        if (token.getTokenId() == null) {
+            return false;
+        }
+
+        try {
+            revokedTokenRepository.insertClaimed(token.getTokenId(), token.getSubject(),
+                    Instant.now(), Instant.ofEpochMilli(token.getExpiresAtMillis()));
+        } catch (DataIntegrityViolationException e) {
+            // Duplicate key: a concurrent or earlier request already spent it
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Revoke every access and refresh token issued to a user so far, e.g. when the
+     * user is deleted. Tokens issued afterwards are unaffected.
+     */
+    public void revokeAllForSubject(String subject) {
+        Instant now = Instant.now();
+        long longestTtl = Math.max(jwtUtil.getAccessTokenTtlMs(), jwtUtil.getRefreshTokenTtlMs());
+
+        RevokedToken revoked = new RevokedToken(SUBJECT_PREFIX + subject, subject,
+                now, now.plusMillis(longestTtl));
+        revokedTokenRepository.save(revoked);
+        remember(revoked);
+    }
+
+    /**
+     * Revoke the access tokens issued to a user so far, e.g. after a role change.
+     * Refresh tokens stay valid, so the client just refreshes and picks up the new
+     * roles instead of being logged out.
+     */
+    public void revokeAccessForSubject(String subject) {
+        Instant now = Instant.now();
+
+        RevokedToken revoked = new RevokedToken(ACCESS_PREFIX + SUBJECT_PREFIX + subject, subject,
+                now, now.plusMillis(jwtUtil.getAccessTokenTtlMs()));
+        revokedTokenRepository.save(revoked);
+        remember(revoked);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild the filter from the table so that it picks up revocations made on
+     * other nodes and sheds revocations whose tokens have expired
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.rebuild-interval-ms:30000}",
+               initialDelayString = "${jwt.revocation.rebuild-interval-ms:30000}")
+    public void rebuild() {
+        synchronized (this) {
+            addedDuringRebuild = new ArrayList<>();
+        }
+        try {
+            Instant now = Instant.now();
+            revokedTokenRepository.deleteExpired(now);
+            Snapshot rebuilt = new Snapshot(revokedTokenRepository.findByExpiresAtAfterAndClaimedFalse(now),
+                    falsePositiveRate);
+            synchronized (this) {
+                // The read may have missed these; replaying ones it saw is harmless
+                addedDuringRebuild.forEach(rebuilt::add);
+                snapshot = rebuilt;
+            }
+        } catch (Exception e) {
+            // Keep serving from the previous snapshot
+            log.warn("Failed to rebuild token revocation filter: {}", e.getMessage());
+        } finally {
+            synchronized (this) {
+                addedDuringRebuild = null;
+            }
+        }
+    }
+
+    private synchronized void remember(RevokedToken revoked) {
+        snapshot.add(revoked);
+        if (addedDuringRebuild != null) {
+            addedDuringRebuild.add(revoked);
+        }
+    }
+
+    private static final class Snapshot {
+        private final BloomFilter bloom;
+        private final Set<String> tokenIds = ConcurrentHashMap.newKeySet();
+        private final Map<String, Long> subjectCutoffs = new ConcurrentHashMap<>();
+
+        private Snapshot(List<RevokedToken> revoked, double falsePositiveRate) {
+            // Leave headroom for revocations added between rebuilds
+            this.bloom = new BloomFilter(Math.max(1024, revoked.size() * 2L), falsePositiveRate);
+            revoked.forEach(this::add);
+        }
+
+        private void add(RevokedToken revoked) {
+            String id = revoked.getTokenId();
+            if (id.startsWith(SUBJECT_PREFIX) || id.startsWith(ACCESS_PREFIX)) {
+                subjectCutoffs.merge(id, revoked.getRevokedAt().toEpochMilli(), Math::max);
+            } else {
+                tokenIds.add(id);
+            }
+            bloom.put(id);
+        }
+    }
+}
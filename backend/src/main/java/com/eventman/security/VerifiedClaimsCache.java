@@ -0,0 +1,99 @@
+package com.eventman.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of verified JWT claims keyed by the SHA-256 digest of the raw token.
+ * Entries expire at the token's own {@code exp}, so a cached hit is never more
+ * permissive than a fresh parse would be. Caffeine bounds the size with amortized
+ * O(1) eviction; evicted tokens are simply re-verified.
+ */
+@Component
+public class VerifiedClaimsCache {
+
+    private final Cache<String, VerifiedToken> entries;
+    private final int maxEntries;
+
+    public VerifiedClaimsCache(@Value("${jwt.claims-cache.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(Math.max(0, maxEntries))
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        long remainingMs = token.getExpiresAtMillis() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(key, token, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Return the cached claims for a token, or null if absent or expired
+     */
+    public VerifiedToken get(String token) {
+        if (maxEntries <= 0) {
+            return null;
+        }
+
+        VerifiedToken cached = entries.getIfPresent(digest(token));
+        // Caffeine expires lazily within its clock resolution; never hand out an expired token
+        if (cached == null || cached.isExpired(System.currentTimeMillis())) {
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * Cache verified claims until the token expires
+     */
+    public void put(String token, VerifiedToken verified) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        entries.put(digest(token), verified);
+    }
+
+    /**
+     * Drop a single token, e.g. after it has been revoked
+     */
+    public void invalidate(String token) {
+        entries.invalidate(digest(token));
+    }
+
+    public int size() {
+        return (int) entries.estimatedSize();
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.eventman.security;
+
+/**
+ * Claims of a JWT whose signature and expiry have already been checked.
+ * Instances are immutable so they can be shared between requests through
+ * {@link VerifiedClaimsCache}.
+ */
+public final class VerifiedToken {
+
+    public static final String TYPE_ACCESS = "access";
+    public static final String TYPE_REFRESH = "refresh";
+
+    private final String tokenId;
+    private final String type;
+    private final String subject;
+    private final String[] roles;
+    private final long issuedAtMillis;
+    private final long expiresAtMillis;
+
+    public VerifiedToken(String tokenId, String type, String subject, String[] roles,
+                         long issuedAtMillis, long expiresAtMillis) {
+        this.tokenId = tokenId;
+        this.type = type;
+        this.subject = subject;
+        this.roles = roles;
+        this.issuedAtMillis = issuedAtMillis;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public String getTokenId() { return tokenId; }
+
+    public String getType() { return type; }
+
+    public String getSubject() { return subject; }
+
+    public String[] getRoles() { return roles.clone(); }
+
+    public long getIssuedAtMillis() { return issuedAtMillis; }
+
+    public long getExpiresAtMillis() { return expiresAtMillis; }
+
+    public boolean isAccessToken() {
+        return TYPE_ACCESS.equals(type);
+    }
+
+    public boolean isRefreshToken() {
+        return TYPE_REFRESH.equals(type);
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
@@ -0,0 +1,221 @@
+package com.eventman.service;
+
+import com.eventman.EmailOutboxMessage;
+import com.eventman.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivers messages from the {@code email_outbox} table in batches. Each batch is
+ * handed to {@link JavaMailSender} in a single call, which sends the whole batch
+ * over one SMTP connection. Failed messages are retried with exponential backoff
+ * and marked FAILED after {@code email.outbox.max-attempts}.
+ *
+ * A batch is leased in a short transaction: due rows are claimed with
+ * {@code FOR UPDATE SKIP LOCKED} and their next attempt is pushed out by
+ * {@code email.outbox.lease-ms}, then that transaction commits. The SMTP
+ * conversation runs without a transaction, row lock or pooled connection, and
+ * the results are recorded in a second short transaction, only on rows still
+ * carrying this dispatcher's lease. Several application nodes can therefore run
+ * the dispatcher side by side; a node that dies mid-batch leaves its rows to be
+ * picked up again once the lease runs out.
+ */
+@Service
+public class EmailOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final String from;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final long leaseMs;
+
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository,
+                                 JavaMailSender mailSender,
+                                 TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${spring.mail.username:}") String from,
+                                 @Value("${email.outbox.batch-size:50}") int batchSize,
+                                 @Value("${email.outbox.max-attempts:8}") int maxAttempts,
+                                 @Value("${email.outbox.initial-backoff-ms:30000}") long initialBackoffMs,
+                                 @Value("${email.outbox.max-backoff-ms:3600000}") long maxBackoffMs,
+                                 @Value("${email.outbox.lease-ms:300000}") long leaseMs) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = transactionTemplate;
+        this.from = from;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.leaseMs = leaseMs;
+
+        this.sentCounter = Counter.builder("email.outbox.sent").register(meterRegistry);
+        this.failedCounter = Counter.builder("email.outbox.failed").register(meterRegistry);
+        meterRegistry.gauge("email.outbox.pending", emailOutboxRepository,
+                repository -> repository.countByStatus(EmailOutboxMessage.OutboxStatus.PENDING));
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms:2000}")
+    public void dispatch() {
+        try {
+            // Keep draining while batches come back full
+            int leased;
+            do {
+                leased = dispatchBatch();
+            } while (leased == batchSize);
+        } catch (Exception e) {
+            log.warn("Email outbox dispatch failed: {}", e.getMessage());
+        }
+    }
+
+    private int dispatchBatch() {
+        // Millisecond precision, so the lease reads back from the column exactly as written
+        Instant leasedUntil = Instant.now().plusMillis(leaseMs).truncatedTo(ChronoUnit.MILLIS);
+        List<EmailOutboxMessage> batch = transactionTemplate.execute(status -> lease(leasedUntil));
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Exception> failures = send(batch);
+        transactionTemplate.executeWithoutResult(status -> record(batch, failures, leasedUntil));
+        return batch.size();
+    }
+
+    private List<EmailOutboxMessage> lease(Instant leasedUntil) {
+        List<EmailOutboxMessage> batch = emailOutboxRepository.lockDueMessages(Instant.now(), batchSize);
+        for (EmailOutboxMessage message : batch) {
+            message.setNextAttemptAt(leasedUntil);
+        }
+        return emailOutboxRepository.saveAll(batch);
+    }
+
+    /**
+     * Send the batch in a single call, i.e. over one SMTP connection; returns the
+     * failed messages' ids with their errors
+     */
+    private Map<Long, Exception> send(List<EmailOutboxMessage> batch) {
+        Map<SimpleMailMessage, Long> ids = new IdentityHashMap<>();
+        SimpleMailMessage[] mails = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            mails[i] = toMail(batch.get(i));
+            ids.put(mails[i], batch.get(i).getId());
+        }
+
+        Map<Object, Exception> failed = new IdentityHashMap<>();
+        try {
+            mailSender.send(mails);
+        } catch (MailSendException e) {
+            failed.putAll(e.getFailedMessages());
+            if (failed.isEmpty()) {
+                // Failed before any message was attempted, e.g. could not connect
+                for (SimpleMailMessage mail : mails) {
+                    failed.put(mail, e);
+                }
+            }
+        } catch (MailException e) {
+            for (SimpleMailMessage mail : mails) {
+                failed.put(mail, e);
+            }
+        }
+
+        Map<Long, Exception> failures = new HashMap<>();
+        failed.forEach((mail, failure) -> {
+            Long id = ids.get(mail);
+            if (id != null) {
+                failures.put(id, failure);
+            }
+        });
+        return failures;
+    }
+
+    private void record(List<EmailOutboxMessage> batch, Map<Long, Exception> failures, Instant leasedUntil) {
+        List<Long> ids = new ArrayList<>(batch.size());
+        batch.forEach(message -> ids.add(message.getId()));
+
+        Instant now = Instant.now();
+        List<EmailOutboxMessage> current = emailOutboxRepository.findAllById(ids);
+        for (EmailOutboxMessage message : current) {
+            // A lease that ran out may have been taken over by another dispatcher; its result wins
+            if (message.getStatus() != EmailOutboxMessage.OutboxStatus.PENDING
+                    || !leasedUntil.equals(message.getNextAttemptAt())) {
+                continue;
+            }
+            Exception failure = failures.get(message.getId());
+            if (failure == null) {
+                markSent(message, now);
+            } else {
+                markFailed(message, failure, now);
+            }
+        }
+        emailOutboxRepository.saveAll(current);
+    }
+
+    private SimpleMailMessage toMail(EmailOutboxMessage message) {
+        SimpleMailMessage mail = new SimpleMailMessage();
+        if (from != null && !from.isBlank()) {
+            mail.setFrom(from);
+        }
+        mail.setTo(message.getRecipient());
+        mail.setSubject(message.getSubject());
+        mail.setText(message.getBody());
+        return mail;
+    }
+
+    private void markSent(EmailOutboxMessage message, Instant now) {
+        message.setStatus(EmailOutboxMessage.OutboxStatus.SENT);
+        message.setAttempts(message.getAttempts() + 1);
+        message.setSentAt(now);
+        message.setLastError(null);
+        sentCounter.increment();
+    }
+
+    private void markFailed(EmailOutboxMessage message, Exception failure, Instant now) {
+        int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+        message.setLastError(truncate(failure.getMessage()));
+
+        if (attempts >= maxAttempts) {
+            message.setStatus(EmailOutboxMessage.OutboxStatus.FAILED);
+            failedCounter.increment();
+            log.warn("Giving up on email {} to {} after {} attempts", message.getId(), message.getRecipient(), attempts);
+            return;
+        }
+
+        long backoff = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempts - 1, 20));
+        message.setNextAttemptAt(now.plusMillis(backoff));
+    }
+
+    private static String truncate(String value) {
+        if (value == null) {
+            return null;
+        }
+        return value.length() > 1000 ? value.substring(0, 1000) : value;
+    }
+}
@@ -1,21 +1,26 @@
 package com.eventman.service;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import com.eventman.EmailOutboxMessage;
+import com.eventman.EmailOutboxRepository;
 import org.springframework.stereotype.Service;
 
+/**
+ * Composes outgoing emails and writes them to the {@code email_outbox} table.
+ * Nothing is sent here: {@link EmailOutboxDispatcher} delivers queued messages in
+ * the background, so callers never wait on SMTP and a message written inside a
+ * transaction is only sent if that transaction commits.
+ */
 @Service
 public class EmailService {
 
-    @Autowired
-    private JavaMailSender mailSender;
+    private final EmailOutboxRepository emailOutboxRepository;
+
+    public EmailService(EmailOutboxRepository emailOutboxRepository) {
+        this.emailOutboxRepository = emailOutboxRepository;
+    }
 
     public void sendVerificationEmail(String to, String verificationCode) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(to);
-        message.setSubject("Email Verification - Event Management System");
-        message.setText(
+        enqueue(to, "Email Verification - Event Management System",
             "Welcome to Event Management System!\n\n" +
             "Please verify your email address by entering the following verification code:\n\n" +
             "Verification Code: " + verificationCode + "\n\n" +
@@ -24,19 +29,10 @@ public class EmailService {
             "Best regards,\n" +
             "Event Management System Team"
         );
-        
-        try {
-            mailSender.send(message);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to send verification email: " + e.getMessage());
-        }
     }
 
     public void sendPasswordResetEmail(String to, String resetCode) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(to);
-        message.setSubject("Password Reset - Event Management System");
-        message.setText(
+        enqueue(to, "Password Reset - Event Management System",
             "You have requested to reset your password.\n\n" +
             "Please use the following code to reset your password:\n\n" +
             "Reset Code: " + resetCode + "\n\n" +
@@ -45,11 +41,9 @@ public class EmailService {
             "Best regards,\n" +
             "Event Management System Team"
         );
-        
-        try {
-            mailSender.send(message);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to send password reset email: " + e.getMessage());
-        }
+    }
+
+    private void enqueue(String to, String subject, String body) {
+        emailOutboxRepository.save(new EmailOutboxMessage(to, subject, body));
     }
 }
@@ -0,0 +1,527 @@
+package com.eventman.service;
+
+import com.eventman.Event;
+import com.eventman.EventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Type-ahead suggestions for event names, locations and organizers, served
+ * from memory without touching the database.
+ *
+ * Each field keeps a path-compressed trie keyed by the normalized value and by
+ * the start of each of its first few words, so "mum" finds "Bombay Exhibition
+ * Centre, Mumbai". Every node caches the top-k values of its subtree ranked by
+ * popularity (the number of events carrying the value), so a lookup is a walk
+ * down at most one key. Writes re-rank only the nodes on the changed keys' paths.
+ */
+@Service
+public class EventAutocomplete {
+
+    private static final Logger log = LoggerFactory.getLogger(EventAutocomplete.class);
+
+    private static final int MAX_KEY_LENGTH = 32;
+    private static final int MAX_WORD_STARTS = 4;
+    private static final int[] NO_IDS = new int[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    public enum Field {
+        NAME(Event::getName),
+        LOCATION(Event::getLocation),
+        ORGANIZER(Event::getOrganizerName);
+
+        private final Function<Event, String> getter;
+
+        Field(Function<Event, String> getter) {
+            this.getter = getter;
+        }
+    }
+
+    private final EventRepository eventRepository;
+    private final int topK;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Field, Completions> completions = new EnumMap<>(Field.class);
+
+    public EventAutocomplete(EventRepository eventRepository,
+                             @Value("${autocomplete.top-k:10}") int topK) {
+        this.eventRepository = eventRepository;
+        this.topK = Math.max(1, topK);
+        for (Field field : Field.values()) {
+            completions.put(field, new Completions(this.topK));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("Failed to build event autocomplete: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reload every field from the events table. Runs under the write lock so no
+     * concurrent event write is lost between the load and the swap.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            Map<Field, Completions> built = new EnumMap<>(Field.class);
+            for (Field field : Field.values()) {
+                built.put(field, new Completions(topK));
+            }
+            for (Object[] row : eventRepository.findAutocompleteValues()) {
+                built.get(Field.NAME).load((String) row[0]);
+                built.get(Field.LOCATION).load((String) row[1]);
+                built.get(Field.ORGANIZER).load((String) row[2]);
+            }
+            for (Completions fieldCompletions : built.values()) {
+                fieldCompletions.rankAll();
+            }
+            completions.putAll(built);
+            log.info("Event autocomplete built: {} names, {} locations, {} organizers",
+                    built.get(Field.NAME).size(), built.get(Field.LOCATION).size(), built.get(Field.ORGANIZER).size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChange(EventChange change) {
+        lock.writeLock().lock();
+        try {
+            for (Field field : Field.values()) {
+                String before = change.getPrevious() != null ? field.getter.apply(change.getPrevious()) : null;
+                String after = change.getCurrent() != null ? field.getter.apply(change.getCurrent()) : null;
+                if (before != null && after != null && normalize(before).equals(normalize(after))) {
+                    continue;
+                }
+                Completions fieldCompletions = completions.get(field);
+                fieldCompletions.remove(before);
+                fieldCompletions.add(after);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} (capped at top-k) most popular values of a field matching the prefix
+     */
+    public List<String> suggest(Field field, String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        // The trie only holds the first MAX_KEY_LENGTH characters of each value
+        if (key.length() > MAX_KEY_LENGTH) {
+            key = key.substring(0, MAX_KEY_LENGTH);
+        }
+
+        lock.readLock().lock();
+        try {
+            return completions.get(field).suggest(key, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(value.length());
+        boolean space = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = normalized.length() > 0;
+            } else {
+                if (space) {
+                    normalized.append(' ');
+                    space = false;
+                }
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    /** Trie node; label is the edge from the parent, children are sorted by their label's first char */
+    private static final class Node {
+        String label;
+        Node[] children = NO_CHILDREN;
+        int[] entries = NO_IDS;
+        int entryCount;
+        int[] top = NO_IDS;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        int childIndex(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char midChar = children[mid].label.charAt(0);
+                if (midChar < c) {
+                    low = mid + 1;
+                } else if (midChar > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void insertChild(int insertionPoint, Node child) {
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, insertionPoint);
+            grown[insertionPoint] = child;
+            System.arraycopy(children, insertionPoint, grown, insertionPoint + 1, children.length - insertionPoint);
+            children = grown;
+        }
+
+        void addEntry(int id) {
+            if (entryCount == entries.length) {
+                entries = Arrays.copyOf(entries, Math.max(1, entryCount * 2));
+            }
+            entries[entryCount++] = id;
+        }
+
+        void removeEntry(int id) {
+            for (int i = 0; i < entryCount; i++) {
+                if (entries[i] == id) {
+                    entries[i] = entries[--entryCount];
+                    return;
+                }
+            }
+        }
+
+        void removeChild(Node child) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == child) {
+                    Node[] shrunk = new Node[children.length - 1];
+                    System.arraycopy(children, 0, shrunk, 0, i);
+                    System.arraycopy(children, i + 1, shrunk, i, children.length - i - 1);
+                    children = shrunk;
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Distinct values of one field with their event counts, and the trie over them */
+    private static final class Completions {
+        private final int topK;
+        private final Map<String, Integer> idsByKey = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private int[] counts = new int[64];
+        private final List<Integer> freeIds = new ArrayList<>();
+        private final Node root = new Node("");
+
+        Completions(int topK) {
+            this.topK = topK;
+        }
+
+        int size() {
+            return idsByKey.size();
+        }
+
+        /**
+         * Count one more event with this value. Its rank can only improve, so it is
+         * offered to the cached top-k of the nodes on its keys' paths.
+         */
+        void add(String value) {
+            int id = count(value);
+            if (id >= 0) {
+                for (String trieKey : trieKeys(normalize(value))) {
+                    for (Node node : find(trieKey)) {
+                        promote(node, id);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Count a value during a bulk load; rankAll() must run afterwards
+         */
+        void load(String value) {
+            count(value);
+        }
+
+        void rankAll() {
+            rankSubtree(root);
+        }
+
+        private void rankSubtree(Node node) {
+            for (Node child : node.children) {
+                rankSubtree(child);
+            }
+            rank(node);
+        }
+
+        private int count(String value) {
+            String key = normalize(value);
+            if (key.isEmpty()) {
+                return -1;
+            }
+            Integer existing = idsByKey.get(key);
+            if (existing != null) {
+                counts[existing]++;
+                return existing;
+            }
+
+            int id = allocate(value.trim());
+            idsByKey.put(key, id);
+            for (String trieKey : trieKeys(key)) {
+                insert(trieKey, id);
+            }
+            return id;
+        }
+
+        void remove(String value) {
+            String key = normalize(value);
+            Integer id = idsByKey.get(key);
+            if (id == null) {
+                return;
+            }
+            if (--counts[id] > 0) {
+                for (String trieKey : trieKeys(key)) {
+                    rerank(trieKey);
+                }
+                return;
+            }
+
+            idsByKey.remove(key);
+            for (String trieKey : trieKeys(key)) {
+                delete(trieKey, id);
+            }
+            values.set(id, null);
+            freeIds.add(id);
+        }
+
+        List<String> suggest(String prefix, int limit) {
+            Node node = root;
+            int i = 0;
+            while (i < prefix.length()) {
+                int index = node.childIndex(prefix.charAt(i));
+                if (index < 0) {
+                    return Collections.emptyList();
+                }
+                node = node.children[index];
+                int length = Math.min(node.label.length(), prefix.length() - i);
+                if (!node.label.regionMatches(0, prefix, i, length)) {
+                    return Collections.emptyList();
+                }
+                i += length;
+            }
+
+            int count = Math.min(limit, node.top.length);
+            List<String> suggestions = new ArrayList<>(count);
+            for (int t = 0; t < count; t++) {
+                suggestions.add(values.get(node.top[t]));
+            }
+            return suggestions;
+        }
+
+        private int allocate(String display) {
+            int id;
+            if (!freeIds.isEmpty()) {
+                id = freeIds.remove(freeIds.size() - 1);
+                values.set(id, display);
+            } else {
+                id = values.size();
+                values.add(display);
+                if (id == counts.length) {
+                    counts = Arrays.copyOf(counts, id * 2);
+                }
+            }
+            counts[id] = 1;
+            return id;
+        }
+
+        /**
+         * The whole value plus the value from each of its first few word starts, truncated
+         */
+        private static List<String> trieKeys(String key) {
+            List<String> keys = new ArrayList<>(MAX_WORD_STARTS);
+            int start = 0;
+            while (start >= 0 && keys.size() < MAX_WORD_STARTS) {
+                String suffix = key.substring(start, Math.min(key.length(), start + MAX_KEY_LENGTH));
+                if (!keys.contains(suffix)) {
+                    keys.add(suffix);
+                }
+                int space = key.indexOf(' ', start);
+                start = space >= 0 ? space + 1 : -1;
+            }
+            return keys;
+        }
+
+        /**
+         * Add the key to the trie; callers update the cached rankings
+         */
+        private void insert(String key, int id) {
+            Node node = root;
+            int i = 0;
+            while (i < key.length()) {
+                int index = node.childIndex(key.charAt(i));
+                if (index < 0) {
+                    Node leaf = new Node(key.substring(i));
+                    node.insertChild(-index - 1, leaf);
+                    node = leaf;
+                    break;
+                }
+
+                Node child = node.children[index];
+                int common = commonPrefix(child.label, key, i);
+                if (common < child.label.length()) {
+                    // Split the edge so the key ends (or branches) at the new middle node
+                    Node middle = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    middle.children = new Node[] { child };
+                    // Until the key is added the middle node's subtree is exactly the child's
+                    middle.top = child.top;
+                    node.children[index] = middle;
+                    child = middle;
+                }
+                node = child;
+                i += common;
+            }
+            node.addEntry(id);
+        }
+
+        private void delete(String key, int id) {
+            List<Node> path = find(key);
+            if (path.isEmpty()) {
+                return;
+            }
+            path.get(path.size() - 1).removeEntry(id);
+
+            for (int p = path.size() - 1; p >= 0; p--) {
+                Node current = path.get(p);
+                if (p > 0 && current.entryCount == 0 && current.children.length == 0) {
+                    path.get(p - 1).removeChild(current);
+                } else {
+                    rank(current);
+                }
+            }
+        }
+
+        private void rerank(String key) {
+            List<Node> path = find(key);
+            for (int p = path.size() - 1; p >= 0; p--) {
+                rank(path.get(p));
+            }
+        }
+
+        /**
+         * Nodes from the root to the node where the key ends, or an empty list if it is not in the trie
+         */
+        private List<Node> find(String key) {
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            path.add(node);
+            int i = 0;
+            while (i < key.length()) {
+                int index = node.childIndex(key.charAt(i));
+                if (index < 0) {
+                    return Collections.emptyList();
+                }
+                node = node.children[index];
+                if (!key.startsWith(node.label, i)) {
+                    return Collections.emptyList();
+                }
+                path.add(node);
+                i += node.label.length();
+            }
+            return path;
+        }
+
+        /**
+         * Recompute a node's cached top-k from its own entries and its children's top-k
+         */
+        private void rank(Node node) {
+            int[] best = new int[topK];
+            int size = 0;
+            for (int e = 0; e < node.entryCount; e++) {
+                size = offer(best, size, node.entries[e]);
+            }
+            for (Node child : node.children) {
+                for (int id : child.top) {
+                    size = offer(best, size, id);
+                }
+            }
+            node.top = size == best.length ? best : Arrays.copyOf(best, size);
+        }
+
+        /**
+         * Re-insert an entry whose count went up into a node's cached top-k
+         */
+        private void promote(Node node, int id) {
+            int[] best = new int[topK];
+            int size = 0;
+            for (int current : node.top) {
+                if (current != id) {
+                    size = offer(best, size, current);
+                }
+            }
+            size = offer(best, size, id);
+            node.top = size == best.length ? best : Arrays.copyOf(best, size);
+        }
+
+        private int offer(int[] best, int size, int id) {
+            for (int i = 0; i < size; i++) {
+                if (best[i] == id) {
+                    return size;
+                }
+            }
+            if (size == best.length && !ranksBefore(id, best[size - 1])) {
+                return size;
+            }
+
+            int position = Math.min(size, best.length - 1);
+            while (position > 0 && ranksBefore(id, best[position - 1])) {
+                best[position] = best[position - 1];
+                position--;
+            }
+            best[position] = id;
+            return Math.min(size + 1, best.length);
+        }
+
+        private boolean ranksBefore(int a, int b) {
+            if (counts[a] != counts[b]) {
+                return counts[a] > counts[b];
+            }
+            return values.get(a).compareToIgnoreCase(values.get(b)) < 0;
+        }
+
+        private static int commonPrefix(String label, String key, int offset) {
+            int max = Math.min(label.length(), key.length() - offset);
+            int i = 0;
+            while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+                i++;
+            }
+            return i;
+        }
+    }
+}
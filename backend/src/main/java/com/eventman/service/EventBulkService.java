@@ -0,0 +1,388 @@
+package com.eventman.service;
+
+import com.eventman.Event;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bulk NDJSON import and export of events, one JSON event per line.
+ *
+ * Import reads the body line by line and inserts valid events through plain JDBC
+ * batches, one transaction per batch. With {@code rewriteBatchedStatements} the
+ * driver sends each batch as a multi-row INSERT and MySQL hands back the block
+ * of generated ids, which Hibernate cannot do for IDENTITY ids. Every input line
+ * gets a result line, written after its batch commits.
+ *
+ * Export streams rows through a forward-only MySQL cursor, so memory stays
+ * constant regardless of the catalog size.
+ */
+@Service
+public class EventBulkService {
+
+    private static final Logger log = LoggerFactory.getLogger(EventBulkService.class);
+
+    private static final String INSERT_SQL = "INSERT INTO events (name, description, location, starts_at, ends_at, " +
+            "capacity, price, currency, type, category, tags, status, organizer_id, organizer_name) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String EXPORT_SQL = "SELECT id, name, description, location, starts_at, ends_at, capacity, " +
+            "price, currency, type, category, tags, status, organizer_id, organizer_name, created_at FROM events";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EventTagService eventTagService;
+    private final int batchSize;
+    private final int exportFlushRows;
+    private final Semaphore exportSlots;
+
+    public EventBulkService(JdbcTemplate jdbcTemplate,
+                            DataSource dataSource,
+                            TransactionTemplate transactionTemplate,
+                            ObjectMapper objectMapper,
+                            ApplicationEventPublisher eventPublisher,
+                            EventTagService eventTagService,
+                            @Value("${events.import.batch-size:500}") int batchSize,
+                            @Value("${events.export.flush-rows:500}") int exportFlushRows,
+                            @Value("${events.export.max-concurrent:2}") int maxConcurrentExports) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.eventTagService = eventTagService;
+        this.batchSize = Math.max(1, batchSize);
+        this.exportFlushRows = Math.max(1, exportFlushRows);
+        this.exportSlots = new Semaphore(Math.max(1, maxConcurrentExports));
+
+        // Integer.MIN_VALUE makes MySQL Connector/J stream rows one at a time instead of buffering the result
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    /** One valid input line waiting for its batch */
+    private static final class Row {
+        private final int line;
+        private final Event event;
+
+        private Row(int line, Event event) {
+            this.line = line;
+            this.event = event;
+        }
+    }
+
+    /**
+     * Import events from NDJSON, writing one NDJSON result per non-blank input line
+     * ({@code {"line":n,"status":"created","id":...}} or {@code {"line":n,"status":"error","message":...}})
+     * followed by a summary line
+     */
+    public void importEvents(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<Row> batch = new ArrayList<>(batchSize);
+        List<Map<String, Object>> results = new ArrayList<>();
+        int created = 0;
+        int failed = 0;
+
+        String text;
+        int line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+
+            String error;
+            Event event = null;
+            try {
+                event = objectMapper.readValue(text, Event.class);
+                error = validate(event);
+            } catch (JsonProcessingException e) {
+                error = "Invalid JSON: " + e.getOriginalMessage();
+            }
+
+            if (error != null) {
+                results.add(result(line, "error", "message", error));
+                failed++;
+            } else {
+                batch.add(new Row(line, event));
+            }
+            if (batch.size() == batchSize || (!batch.isEmpty() && results.size() >= batchSize)) {
+                int batchCreated = flush(batch, results);
+                created += batchCreated;
+                failed += batch.size() - batchCreated;
+                batch.clear();
+            }
+
+            // Keep results in input order: errors wait for the batch of the lines before them
+            if (batch.isEmpty()) {
+                write(out, results);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            int batchCreated = flush(batch, results);
+            created += batchCreated;
+            failed += batch.size() - batchCreated;
+        }
+        write(out, results);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("status", "done");
+        summary.put("created", created);
+        summary.put("failed", failed);
+        out.write(objectMapper.writeValueAsBytes(summary));
+        out.write('\n');
+        out.flush();
+        log.info("Imported {} events ({} lines failed)", created, failed);
+    }
+
+    /**
+     * Take one of the export slots, or return false if all are in use. The caller
+     * must follow up with {@link #exportEvents}, which gives the slot back.
+     */
+    public boolean tryReserveExport() {
+        return exportSlots.tryAcquire();
+    }
+
+    /**
+     * Stream events (optionally of one status) as NDJSON in id order, then release the export slot
+     */
+    public void exportEvents(Event.EventStatus status, OutputStream out) throws IOException {
+        try {
+            export(status, out);
+        } finally {
+            exportSlots.release();
+        }
+    }
+
+    private void export(Event.EventStatus status, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        String sql = EXPORT_SQL + (status != null ? " WHERE status = ?" : "") + " ORDER BY id";
+        Object[] args = status != null ? new Object[] { status.name() } : new Object[0];
+        int[] rows = new int[1];
+        try {
+            streamingJdbcTemplate.query(sql, rs -> {
+                try {
+                    generator.writeObject(mapRow(rs));
+                    generator.writeRaw('\n');
+                    if (++rows[0] % exportFlushRows == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    // Client went away; abort the query rather than reading the rest of the table
+                    throw new UncheckedIOException(e);
+                }
+            }, args);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        generator.flush();
+    }
+
+    /**
+     * Insert one batch; returns how many rows were created and records a result per row
+     */
+    private int flush(List<Row> batch, List<Map<String, Object>> results) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(batch));
+        } catch (DataAccessException | IllegalStateException e) {
+            // Rolled back (a failed insert, or ids that do not match the rows); find the offending rows one at a time
+            log.debug("Import batch failed, retrying rows individually: {}", e.getMessage());
+            batch.forEach(row -> row.event.setId(null));
+            for (Row row : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(row)));
+                } catch (DataAccessException | IllegalStateException rowError) {
+                    row.event.setId(null);
+                    log.debug("Import of line {} failed: {}", row.line, rowError.getMessage());
+                }
+            }
+        }
+
+        int created = 0;
+        for (Row row : batch) {
+            if (row.event.getId() != null) {
+                results.add(result(row.line, "created", "id", row.event.getId()));
+                created++;
+            } else {
+                results.add(result(row.line, "error", "message", "Failed to save event"));
+            }
+        }
+        results.sort((a, b) -> Integer.compare((Integer) a.get("line"), (Integer) b.get("line")));
+        return created;
+    }
+
+    /**
+     * Insert rows and their tag rows, set their ids and publish their creation for after the commit
+     */
+    private void insert(List<Row> rows) {
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        bind(ps, rows.get(i).event);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                }, keys);
+
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Map<String, Object> key : keys.getKeyList()) {
+            ids.add(((Number) key.values().iterator().next()).longValue());
+        }
+        if (ids.size() != rows.size()) {
+            throw new IllegalStateException("Expected " + rows.size() + " generated ids, got " + ids.size());
+        }
+        // In the same transaction, so an event is never imported without its tag rows
+        for (int i = 0; i < rows.size(); i++) {
+            eventTagService.sync(ids.get(i), null, rows.get(i).event.getTags());
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            Event event = rows.get(i).event;
+            event.setId(ids.get(i));
+            eventPublisher.publishEvent(EventChange.created(event));
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Event event) throws SQLException {
+        ps.setString(1, event.getName());
+        ps.setString(2, event.getDescription());
+        ps.setString(3, event.getLocation());
+        ps.setTimestamp(4, Timestamp.from(event.getStartDateTime()));
+        ps.setTimestamp(5, Timestamp.from(event.getEndDateTime()));
+        ps.setObject(6, event.getCapacity(), Types.INTEGER);
+        ps.setObject(7, event.getPrice(), Types.DOUBLE);
+        ps.setString(8, event.getCurrency());
+        ps.setString(9, event.getType().name());
+        ps.setString(10, event.getCategory());
+        ps.setString(11, event.getTags());
+        ps.setString(12, event.getStatus().name());
+        ps.setObject(13, event.getOrganizerId(), Types.BIGINT);
+        ps.setString(14, event.getOrganizerName());
+    }
+
+    private static Event mapRow(ResultSet rs) throws SQLException {
+        return new Event(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("description"),
+                rs.getString("location"),
+                toInstant(rs.getTimestamp("starts_at")),
+                toInstant(rs.getTimestamp("ends_at")),
+                rs.getObject("capacity", Integer.class),
+                rs.getObject("price", Double.class),
+                rs.getString("currency"),
+                Event.EventType.valueOf(rs.getString("type")),
+                rs.getString("category"),
+                rs.getString("tags"),
+                Event.EventStatus.valueOf(rs.getString("status")),
+                rs.getObject("organizer_id", Long.class),
+                rs.getString("organizer_name"),
+                rs.getString("created_at"));
+    }
+
+    /**
+     * Why the event cannot be imported, or null if it can. Fills in the defaults
+     * that POST /api/events applies.
+     */
+    private static String validate(Event event) {
+        if (event.getName() == null || event.getName().isBlank()) {
+            return "Name is required";
+        }
+        if (event.getType() == null) {
+            return "Type is required";
+        }
+        if (event.getStartDateTime() == null || event.getEndDateTime() == null) {
+            return "Start and end date-times are required";
+        }
+        if (event.getEndDateTime().isBefore(event.getStartDateTime())) {
+            return "End date-time must not be before start date-time";
+        }
+        String tooLong = tooLong("name", event.getName(), 255);
+        tooLong = tooLong != null ? tooLong : tooLong("description", event.getDescription(), 2000);
+        tooLong = tooLong != null ? tooLong : tooLong("location", event.getLocation(), 500);
+        tooLong = tooLong != null ? tooLong : tooLong("currency", event.getCurrency(), 10);
+        tooLong = tooLong != null ? tooLong : tooLong("category", event.getCategory(), 100);
+        tooLong = tooLong != null ? tooLong : tooLong("tags", event.getTags(), 500);
+        if (tooLong != null) {
+            return tooLong;
+        }
+
+        event.setId(null);
+        if (event.getStatus() == null) {
+            event.setStatus(Event.EventStatus.DRAFT);
+        }
+        event.setOrganizerId(1L); // Demo organizer ID, as in createEvent
+        event.setOrganizerName("Demo Organizer");
+        return null;
+    }
+
+    private static String tooLong(String field, String value, int maxLength) {
+        return value != null && value.length() > maxLength
+                ? field + " must be at most " + maxLength + " characters"
+                : null;
+    }
+
+    private static Map<String, Object> result(int line, String status, String key, Object value) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("line", line);
+        result.put("status", status);
+        result.put(key, value);
+        return result;
+    }
+
+    private void write(OutputStream out, List<Map<String, Object>> results) throws IOException {
+        if (results.isEmpty()) {
+            return;
+        }
+        for (Map<String, Object> result : results) {
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+        }
+        out.flush();
+        results.clear();
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+}
@@ -0,0 +1,290 @@
+package com.eventman.service;
+
+import com.eventman.Event;
+import com.eventman.EventRepository;
+import com.eventman.EventSummary;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache in front of the event reads behind GET /api/events and
+ * GET /api/events/{id}. Entries hold the serialized JSON and a strong ETag, so a
+ * hit costs neither a query nor serialization.
+ *
+ * Writes invalidate precisely: the event's own entry, plus every cached page
+ * whose filters match the old or new version of the event and whose keyset range
+ * (after its cursor, up to its last row) contains it. Loads that race with a
+ * write are discarded instead of caching stale data.
+ */
+@Service
+public class EventCache {
+
+    private final EventRepository eventRepository;
+    private final ObjectMapper objectMapper;
+    private final Cache<Object, CachedResponse> cache;
+    private final AtomicLong writeVersion = new AtomicLong();
+    private final Counter notModified;
+
+    public EventCache(EventRepository eventRepository,
+                      ObjectMapper objectMapper,
+                      MeterRegistry meterRegistry,
+                      @Value("${events.cache.max-entries:10000}") long maxEntries,
+                      @Value("${events.cache.ttl-ms:300000}") long ttlMs) {
+        this.eventRepository = eventRepository;
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "events");
+        this.notModified = Counter.builder("events.cache.not_modified")
+                .description("Event reads answered with 304 Not Modified")
+                .register(meterRegistry);
+    }
+
+    /** Serialized response body with its ETag and, for pages, the keyset range it covers */
+    public static final class CachedResponse {
+        private final byte[] body;
+        private final String etag;
+        private final String nextCursor;
+        private final EventCursor lastRow;
+
+        CachedResponse(byte[] body, String nextCursor, EventCursor lastRow) {
+            this.body = body;
+            this.etag = etag(body);
+            this.nextCursor = nextCursor;
+            this.lastRow = lastRow;
+        }
+
+        public byte[] getBody() { return body; }
+
+        public String getEtag() { return etag; }
+
+        public String getNextCursor() { return nextCursor; }
+
+        private boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /** Filters, cursor, size and fieldset (null for full events) of one GET /api/events page; also its cache key */
+    public static final class PageKey {
+        private final Event.EventStatus status;
+        private final Event.EventType type;
+        private final String category;
+        private final Long organizerId;
+        private final List<String> tags;
+        private final Instant from;
+        private final Instant to;
+        private final EventCursor after;
+        private final int pageSize;
+        private final EventFieldset fields;
+
+        public PageKey(Event.EventStatus status, Event.EventType type, String category, Long organizerId,
+                       List<String> tags, Instant from, Instant to, EventCursor after, int pageSize, EventFieldset fields) {
+            this.status = status;
+            this.type = type;
+            this.category = category;
+            this.organizerId = organizerId;
+            this.tags = List.copyOf(tags);
+            this.from = from;
+            this.to = to;
+            this.after = after;
+            this.pageSize = pageSize;
+            this.fields = fields;
+        }
+
+        boolean matchesFilters(Event event) {
+            Instant start = event.getStartDateTime();
+            return (status == null || status == event.getStatus())
+                    && (type == null || type == event.getType())
+                    && (category == null || category.equals(event.getCategory()))
+                    && (organizerId == null || organizerId.equals(event.getOrganizerId()))
+                    && (tags.isEmpty() || EventTagService.normalize(event.getTags()).containsAll(tags))
+                    && (from == null || (start != null && start.compareTo(from) >= 0))
+                    && (to == null || (start != null && start.compareTo(to) < 0));
+        }
+
+        /**
+         * Whether the event falls on this page: after the cursor and, if the page
+         * was full, not beyond its last row
+         */
+        boolean covers(Event event, EventCursor lastRow) {
+            if (event == null || !matchesFilters(event)) {
+                return false;
+            }
+            if (event.getStartDateTime() == null) {
+                return true;
+            }
+            EventCursor key = EventCursor.after(event);
+            return (after == null || compare(key, after) > 0)
+                    && (lastRow == null || compare(key, lastRow) <= 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PageKey)) return false;
+            PageKey other = (PageKey) o;
+            return pageSize == other.pageSize
+                    && status == other.status
+                    && type == other.type
+                    && Objects.equals(category, other.category)
+                    && Objects.equals(organizerId, other.organizerId)
+                    && tags.equals(other.tags)
+                    && Objects.equals(from, other.from)
+                    && Objects.equals(to, other.to)
+                    && Objects.equals(after, other.after)
+                    && Objects.equals(fields, other.fields);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(status, type, category, organizerId, tags, from, to, after, pageSize, fields);
+        }
+    }
+
+    /**
+     * The cached JSON for one event, loading it on a miss; null if the event does not exist
+     */
+    public CachedResponse event(Long id) {
+        CachedResponse cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        long version = writeVersion.get();
+        Optional<Event> event = eventRepository.findById(id);
+        if (event.isEmpty()) {
+            return null;
+        }
+        return store(id, new CachedResponse(serialize(event.get()), null, null), version);
+    }
+
+    /**
+     * The cached JSON for one keyset page, loading it on a miss
+     */
+    public CachedResponse page(PageKey key) {
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long version = writeVersion.get();
+        Instant afterStart = key.after != null ? key.after.getStartDateTime() : null;
+        Long afterId = key.after != null ? key.after.getId() : null;
+        // Fetch one extra row to learn whether another page exists
+        PageRequest limit = PageRequest.of(0, key.pageSize + 1);
+
+        CachedResponse response;
+        if (key.fields == null) {
+            List<Event> events = eventRepository.findPage(key.status, key.type, key.category, key.organizerId,
+                    key.tags, key.tags.size(), key.from, key.to, afterStart, afterId, limit);
+            if (events.size() <= key.pageSize) {
+                response = new CachedResponse(serialize(events), null, null);
+            } else {
+                List<Event> page = events.subList(0, key.pageSize);
+                EventCursor lastRow = EventCursor.after(page.get(key.pageSize - 1));
+                response = new CachedResponse(serialize(page), lastRow.encode(), lastRow);
+            }
+        } else {
+            List<EventSummary> events = eventRepository.findSummaryPage(key.status, key.type, key.category,
+                    key.organizerId, key.tags, key.tags.size(), key.from, key.to, afterStart, afterId, limit);
+            ObjectWriter writer = key.fields.writer(objectMapper);
+            if (events.size() <= key.pageSize) {
+                response = new CachedResponse(serialize(writer, events), null, null);
+            } else {
+                List<EventSummary> page = events.subList(0, key.pageSize);
+                EventCursor lastRow = EventCursor.after(page.get(key.pageSize - 1));
+                response = new CachedResponse(serialize(writer, page), lastRow.encode(), lastRow);
+            }
+        }
+        return store(key, response, version);
+    }
+
+    /**
+     * True if the client's If-None-Match names the response's ETag, i.e. a 304 can be sent
+     */
+    public boolean isNotModified(CachedResponse response, String ifNoneMatch) {
+        if (response.matches(ifNoneMatch)) {
+            notModified.increment();
+            return true;
+        }
+        return false;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChange(EventChange change) {
+        // Bump the version first so loads already in flight discard their results
+        writeVersion.incrementAndGet();
+        cache.invalidate(change.getEventId());
+        cache.asMap().entrySet().removeIf(entry -> entry.getKey() instanceof PageKey
+                && (((PageKey) entry.getKey()).covers(change.getPrevious(), entry.getValue().lastRow)
+                || ((PageKey) entry.getKey()).covers(change.getCurrent(), entry.getValue().lastRow)));
+    }
+
+    private CachedResponse store(Object key, CachedResponse response, long version) {
+        cache.put(key, response);
+        if (writeVersion.get() != version) {
+            cache.invalidate(key);
+        }
+        return response;
+    }
+
+    private byte[] serialize(Object value) {
+        return serialize(objectMapper.writer(), value);
+    }
+
+    private static byte[] serialize(ObjectWriter writer, Object value) {
+        try {
+            return writer.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize events", e);
+        }
+    }
+
+    private static int compare(EventCursor a, EventCursor b) {
+        int byStart = a.getStartDateTime().compareTo(b.getStartDateTime());
+        return byStart != 0 ? byStart : Long.compare(a.getId(), b.getId());
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
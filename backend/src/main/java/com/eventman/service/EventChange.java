@@ -0,0 +1,60 @@
+package com.eventman.service;
+
+import com.eventman.Event;
+
+/**
+ * Published when an event row is created, updated or deleted, so in-memory
+ * views of the events table (search index, caches) can update incrementally.
+ * Writers publish it inside their transaction and listeners take it with
+ * {@code @TransactionalEventListener}, so they only see committed changes and
+ * one failing listener neither fails the write nor skips the others.
+ * {@code current} is null for deletes and {@code previous} is null for creates.
+ */
+public class EventChange {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+    private final Long eventId;
+    private final Event current;
+    private final Event previous;
+
+    private EventChange(Type type, Long eventId, Event current, Event previous) {
+        this.type = type;
+        this.eventId = eventId;
+        this.current = current;
+        this.previous = previous;
+    }
+
+    public static EventChange created(Event event) {
+        return new EventChange(Type.CREATED, event.getId(), event, null);
+    }
+
+    public static EventChange updated(Event previous, Event event) {
+        return new EventChange(Type.UPDATED, event.getId(), event, previous);
+    }
+
+    public static EventChange deleted(Event previous) {
+        return new EventChange(Type.DELETED, previous.getId(), null, previous);
+    }
+
+    /**
+     * Detached copy of an event, taken before it is modified in place
+     */
+    public static Event snapshot(Event event) {
+        return new Event(event.getId(), event.getName(), event.getDescription(), event.getLocation(),
+                event.getStartDateTime(), event.getEndDateTime(), event.getCapacity(), event.getPrice(),
+                event.getCurrency(), event.getType(), event.getCategory(), event.getTags(), event.getStatus(),
+                event.getOrganizerId(), event.getOrganizerName(), event.getCreatedAt());
+    }
+
+    public Type getType() { return type; }
+
+    public Long getEventId() { return eventId; }
+
+    public Event getCurrent() { return current; }
+
+    public Event getPrevious() { return previous; }
+}
@@ -0,0 +1,77 @@
+package com.eventman.service;
+
+import com.eventman.Event;
+import com.eventman.EventSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Opaque keyset cursor for event listings: the (startDateTime, id) of the last
+ * event on a page, encoded as URL-safe Base64 so clients treat it as a token.
+ */
+public final class EventCursor {
+
+    private final Instant startDateTime;
+    private final long id;
+
+    public EventCursor(Instant startDateTime, long id) {
+        this.startDateTime = startDateTime;
+        this.id = id;
+    }
+
+    public static EventCursor after(Event event) {
+        return new EventCursor(event.getStartDateTime(), event.getId());
+    }
+
+    public static EventCursor after(EventSummary event) {
+        return new EventCursor(event.getStartDateTime(), event.getId());
+    }
+
+    /**
+     * Parse a cursor produced by {@link #encode()}; throws IllegalArgumentException if it was tampered with
+     */
+    public static EventCursor decode(String cursor) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+
+        int separator = raw.lastIndexOf('|');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        try {
+            return new EventCursor(Instant.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public String encode() {
+        String raw = startDateTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof EventCursor)) return false;
+        EventCursor other = (EventCursor) o;
+        return id == other.id && Objects.equals(startDateTime, other.startDateTime);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(startDateTime, id);
+    }
+
+    public Instant getStartDateTime() { return startDateTime; }
+
+    public long getId() { return id; }
+}
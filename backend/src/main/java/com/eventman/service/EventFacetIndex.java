@@ -0,0 +1,419 @@
+package com.eventman.service;
+
+import com.eventman.Event;
+import com.eventman.EventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory facet counts over events by status, type, category and tag.
+ *
+ * Each event gets a dense document number with its facet values stored per
+ * document, and every facet value keeps a sorted list of its documents. With no
+ * filter the counts are simply the list sizes; with a filter the shortest
+ * matching list is walked once, checking the other filters and counting every
+ * facet of the documents that pass. Event writes update only the lists of the
+ * values that changed, so no GROUP BY over the events table is ever needed.
+ */
+@Service
+public class EventFacetIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(EventFacetIndex.class);
+
+    private static final Event.EventStatus[] STATUSES = Event.EventStatus.values();
+    private static final Event.EventType[] TYPES = Event.EventType.values();
+
+    private final EventRepository eventRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LongIntMap docsByEvent = new LongIntMap();
+    private int[] freeDocs = new int[16];
+    private int freeCount;
+    private int docCount;
+    private int liveCount;
+
+    // Per document facet values; -1 marks a free document or a missing value
+    private byte[] statuses = new byte[1024];
+    private byte[] types = new byte[1024];
+    private int[] categories = new int[1024];
+    private int[][] tags = new int[1024][];
+
+    private final SortedInts[] statusDocs = newPostings(STATUSES.length);
+    private final SortedInts[] typeDocs = newPostings(TYPES.length);
+    private final Dictionary categoryDictionary = new Dictionary();
+    private final Dictionary tagDictionary = new Dictionary();
+
+    public EventFacetIndex(EventRepository eventRepository) {
+        this.eventRepository = eventRepository;
+    }
+
+    /** Facet counts for the events matching a filter */
+    public static final class Facets {
+        private final int total;
+        private final Map<String, Integer> status;
+        private final Map<String, Integer> type;
+        private final Map<String, Integer> category;
+        private final Map<String, Integer> tags;
+
+        Facets(int total, Map<String, Integer> status, Map<String, Integer> type,
+               Map<String, Integer> category, Map<String, Integer> tags) {
+            this.total = total;
+            this.status = status;
+            this.type = type;
+            this.category = category;
+            this.tags = tags;
+        }
+
+        public int getTotal() { return total; }
+
+        public Map<String, Integer> getStatus() { return status; }
+
+        public Map<String, Integer> getType() { return type; }
+
+        public Map<String, Integer> getCategory() { return category; }
+
+        public Map<String, Integer> getTags() { return tags; }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        lock.writeLock().lock();
+        try {
+            for (Object[] row : eventRepository.findFacetValues()) {
+                put((Long) row[0], (Event.EventStatus) row[1], (Event.EventType) row[2],
+                        (String) row[3], (String) row[4]);
+            }
+            log.info("Event facet index built: {} events, {} categories, {} tags",
+                    liveCount, categoryDictionary.size(), tagDictionary.size());
+        } catch (Exception e) {
+            log.warn("Failed to build event facet index: {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChange(EventChange change) {
+        lock.writeLock().lock();
+        try {
+            Event event = change.getCurrent();
+            if (event == null) {
+                remove(change.getEventId());
+            } else {
+                put(event.getId(), event.getStatus(), event.getType(), event.getCategory(), event.getTags());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Counts per status, type, category and tag over the events matching every
+     * given filter (null or empty filters are ignored). Category and tag counts are
+     * limited to the {@code limit} largest.
+     */
+    public Facets count(Event.EventStatus status, Event.EventType type, String category, List<String> tagFilter, int limit) {
+        lock.readLock().lock();
+        try {
+            List<SortedInts> required = new ArrayList<>();
+            if (status != null) {
+                required.add(statusDocs[status.ordinal()]);
+            }
+            if (type != null) {
+                required.add(typeDocs[type.ordinal()]);
+            }
+            int categoryId = -1;
+            if (category != null) {
+                categoryId = categoryDictionary.id(category.trim());
+                if (categoryId < 0) {
+                    return empty();
+                }
+                required.add(categoryDictionary.docs(categoryId));
+            }
+            int[] tagIds = new int[tagFilter != null ? tagFilter.size() : 0];
+            for (int i = 0; i < tagIds.length; i++) {
+                tagIds[i] = tagDictionary.id(tagFilter.get(i));
+                if (tagIds[i] < 0) {
+                    return empty();
+                }
+                required.add(tagDictionary.docs(tagIds[i]));
+            }
+
+            int[] statusCounts = new int[STATUSES.length];
+            int[] typeCounts = new int[TYPES.length];
+            int[] categoryCounts = new int[categoryDictionary.size()];
+            int[] tagCounts = new int[tagDictionary.size()];
+            int total;
+
+            if (required.isEmpty()) {
+                total = liveCount;
+                for (int s = 0; s < STATUSES.length; s++) {
+                    statusCounts[s] = statusDocs[s].size;
+                }
+                for (int t = 0; t < TYPES.length; t++) {
+                    typeCounts[t] = typeDocs[t].size;
+                }
+                for (int c = 0; c < categoryCounts.length; c++) {
+                    categoryCounts[c] = categoryDictionary.docs(c).size;
+                }
+                for (int t = 0; t < tagCounts.length; t++) {
+                    tagCounts[t] = tagDictionary.docs(t).size;
+                }
+            } else {
+                SortedInts smallest = required.get(0);
+                for (SortedInts docs : required) {
+                    if (docs.size < smallest.size) {
+                        smallest = docs;
+                    }
+                }
+
+                total = 0;
+                for (int i = 0; i < smallest.size; i++) {
+                    int doc = smallest.values[i];
+                    if (!matches(doc, status, type, categoryId, tagIds)) {
+                        continue;
+                    }
+                    total++;
+                    statusCounts[statuses[doc]]++;
+                    if (types[doc] >= 0) {
+                        typeCounts[types[doc]]++;
+                    }
+                    if (categories[doc] >= 0) {
+                        categoryCounts[categories[doc]]++;
+                    }
+                    for (int tag : tags[doc]) {
+                        tagCounts[tag]++;
+                    }
+                }
+            }
+
+            Map<String, Integer> statusFacet = new LinkedHashMap<>();
+            for (int s = 0; s < STATUSES.length; s++) {
+                if (statusCounts[s] > 0) {
+                    statusFacet.put(STATUSES[s].name(), statusCounts[s]);
+                }
+            }
+            Map<String, Integer> typeFacet = new LinkedHashMap<>();
+            for (int t = 0; t < TYPES.length; t++) {
+                if (typeCounts[t] > 0) {
+                    typeFacet.put(TYPES[t].name(), typeCounts[t]);
+                }
+            }
+            return new Facets(total, statusFacet, typeFacet,
+                    top(categoryCounts, categoryDictionary, limit), top(tagCounts, tagDictionary, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean matches(int doc, Event.EventStatus status, Event.EventType type, int categoryId, int[] tagIds) {
+        if (status != null && statuses[doc] != status.ordinal()) {
+            return false;
+        }
+        if (type != null && types[doc] != type.ordinal()) {
+            return false;
+        }
+        if (categoryId >= 0 && categories[doc] != categoryId) {
+            return false;
+        }
+        for (int tag : tagIds) {
+            if (!contains(tags[doc], tag)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void put(Long eventId, Event.EventStatus status, Event.EventType type, String category, String tagString) {
+        int doc = docsByEvent.get(eventId);
+        if (doc >= 0) {
+            unlink(doc);
+        } else {
+            doc = allocate();
+            docsByEvent.put(eventId, doc);
+            liveCount++;
+        }
+
+        statuses[doc] = (byte) (status != null ? status.ordinal() : Event.EventStatus.DRAFT.ordinal());
+        statusDocs[statuses[doc]].add(doc);
+        types[doc] = (byte) (type != null ? type.ordinal() : -1);
+        if (types[doc] >= 0) {
+            typeDocs[types[doc]].add(doc);
+        }
+
+        String categoryKey = category != null ? category.trim() : "";
+        categories[doc] = categoryKey.isEmpty() ? -1 : categoryDictionary.idOrAdd(categoryKey);
+        if (categories[doc] >= 0) {
+            categoryDictionary.docs(categories[doc]).add(doc);
+        }
+
+        List<String> normalizedTags = EventTagService.normalize(tagString);
+        int[] tagIds = new int[normalizedTags.size()];
+        for (int i = 0; i < tagIds.length; i++) {
+            tagIds[i] = tagDictionary.idOrAdd(normalizedTags.get(i));
+            tagDictionary.docs(tagIds[i]).add(doc);
+        }
+        tags[doc] = tagIds;
+    }
+
+    private void remove(Long eventId) {
+        int doc = docsByEvent.remove(eventId);
+        if (doc < 0) {
+            return;
+        }
+        unlink(doc);
+        statuses[doc] = -1;
+        liveCount--;
+        if (freeCount == freeDocs.length) {
+            freeDocs = Arrays.copyOf(freeDocs, freeCount * 2);
+        }
+        freeDocs[freeCount++] = doc;
+    }
+
+    /**
+     * Take a document out of every facet value list it is on
+     */
+    private void unlink(int doc) {
+        statusDocs[statuses[doc]].remove(doc);
+        if (types[doc] >= 0) {
+            typeDocs[types[doc]].remove(doc);
+        }
+        if (categories[doc] >= 0) {
+            categoryDictionary.docs(categories[doc]).remove(doc);
+        }
+        for (int tag : tags[doc]) {
+            tagDictionary.docs(tag).remove(doc);
+        }
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeDocs[--freeCount];
+        }
+        if (docCount == statuses.length) {
+            int capacity = docCount * 2;
+            statuses = Arrays.copyOf(statuses, capacity);
+            types = Arrays.copyOf(types, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            tags = Arrays.copyOf(tags, capacity);
+        }
+        return docCount++;
+    }
+
+    private Facets empty() {
+        return new Facets(0, Map.of(), Map.of(), Map.of(), Map.of());
+    }
+
+    /**
+     * The {@code limit} largest non-zero counts, largest first
+     */
+    private static Map<String, Integer> top(int[] counts, Dictionary dictionary, int limit) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) {
+                ids.add(id);
+            }
+        }
+        ids.sort((a, b) -> counts[a] != counts[b]
+                ? Integer.compare(counts[b], counts[a])
+                : dictionary.name(a).compareTo(dictionary.name(b)));
+
+        Map<String, Integer> top = new LinkedHashMap<>();
+        for (int i = 0; i < Math.min(limit, ids.size()); i++) {
+            top.put(dictionary.name(ids.get(i)), counts[ids.get(i)]);
+        }
+        return top;
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static SortedInts[] newPostings(int count) {
+        SortedInts[] postings = new SortedInts[count];
+        for (int i = 0; i < count; i++) {
+            postings[i] = new SortedInts();
+        }
+        return postings;
+    }
+
+    /** Facet values of one free-text facet, each with its sorted document list */
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<SortedInts> docs = new ArrayList<>();
+
+        int id(String name) {
+            Integer id = ids.get(name);
+            return id != null ? id : -1;
+        }
+
+        int idOrAdd(String name) {
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = names.size();
+                ids.put(name, id);
+                names.add(name);
+                docs.add(new SortedInts());
+            }
+            return id;
+        }
+
+        String name(int id) {
+            return names.get(id);
+        }
+
+        SortedInts docs(int id) {
+            return docs.get(id);
+        }
+
+        int size() {
+            return names.size();
+        }
+    }
+
+    /** Sorted set of document numbers backed by a growable array */
+    private static final class SortedInts {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            int index = size == 0 || values[size - 1] < value ? size : Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0 && index < size) {
+                return;
+            }
+            index = index < 0 ? -index - 1 : index;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            size++;
+        }
+
+        void remove(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                size--;
+            }
+        }
+    }
+}
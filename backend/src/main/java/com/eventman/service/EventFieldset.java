@@ -0,0 +1,83 @@
+package com.eventman.service;
+
+import com.eventman.EventSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sparse fieldset of an event listing ({@code fields=} parameter). Listings with a
+ * fieldset are read as {@link EventSummary} projections and serialized with only
+ * the requested properties; the id is always included so clients can key rows.
+ */
+public final class EventFieldset {
+
+    /** Properties a fieldset may name, in serialization order */
+    public static final List<String> FIELDS = List.of("id", "name", "location", "startDateTime", "endDateTime",
+            "status", "type", "category", "price", "currency", "capacity");
+
+    private static final String ALL = "summary";
+
+    private final Set<String> fields;
+    private final SimpleFilterProvider filters;
+
+    private EventFieldset(Set<String> fields) {
+        this.fields = Collections.unmodifiableSet(fields);
+        this.filters = new SimpleFilterProvider()
+                .addFilter(EventSummary.FIELDS_FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(fields));
+    }
+
+    /**
+     * Parse a comma-separated list of fields ("summary" for all of them); null when no
+     * fieldset was requested, IllegalArgumentException for an unknown field
+     */
+    public static EventFieldset parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+
+        Set<String> fields = new LinkedHashSet<>();
+        fields.add("id");
+        for (String field : value.split(",")) {
+            String name = field.trim();
+            if (name.equalsIgnoreCase(ALL)) {
+                fields.addAll(FIELDS);
+            } else if (FIELDS.contains(name)) {
+                fields.add(name);
+            } else if (!name.isEmpty()) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+        }
+        return new EventFieldset(fields);
+    }
+
+    /**
+     * Writer that serializes EventSummary objects with only this fieldset's properties
+     */
+    public ObjectWriter writer(ObjectMapper objectMapper) {
+        return objectMapper.writer(filters);
+    }
+
+    public Set<String> getFields() { return fields; }
+
+    public FilterProvider getFilters() { return filters; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof EventFieldset)) return false;
+        return fields.equals(((EventFieldset) o).fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return fields.hashCode();
+    }
+}
@@ -0,0 +1,218 @@
+package com.eventman.service;
+
+import com.eventman.Event;
+import com.eventman.EventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Moves events through their lifecycle on time: PUBLISHED becomes ACTIVE at the
+ * start time and ACTIVE becomes COMPLETED at the end time.
+ *
+ * Only boundaries within {@code events.lifecycle.horizon-ms} are kept, each as a
+ * timeout in a {@link TimingWheel}; the horizon is refilled periodically with two
+ * index range queries and event writes re-arm their own event. Due events are
+ * flipped in batched UPDATEs and published as EventChange like any other write,
+ * so caches, indexes and streams follow. On startup, events whose boundary passed
+ * while the application was down are caught up first.
+ */
+@Service
+public class EventLifecycleScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(EventLifecycleScheduler.class);
+
+    private final EventRepository eventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long horizonMs;
+    private final int batchSize;
+
+    private final TimingWheel<Long> boundaries;
+    private final Map<Long, TimingWheel.Timeout<Long>> armed = new ConcurrentHashMap<>();
+
+    public EventLifecycleScheduler(EventRepository eventRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   ApplicationEventPublisher eventPublisher,
+                                   @Value("${events.lifecycle.tick-ms:1000}") long tickMs,
+                                   @Value("${events.lifecycle.horizon-ms:86400000}") long horizonMs,
+                                   @Value("${events.lifecycle.batch-size:500}") int batchSize) {
+        this.eventRepository = eventRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.horizonMs = horizonMs;
+        this.batchSize = Math.max(1, batchSize);
+        this.boundaries = new TimingWheel<>(tickMs, System.currentTimeMillis());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        try {
+            int caughtUp = catchUp(Event.EventStatus.PUBLISHED) + catchUp(Event.EventStatus.ACTIVE);
+            if (caughtUp > 0) {
+                log.info("Caught up lifecycle status of {} events", caughtUp);
+            }
+            loadHorizon();
+        } catch (Exception e) {
+            log.warn("Failed to recover event lifecycle state: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Arm every boundary falling within the horizon. Runs every half horizon, so
+     * each boundary is seen by at least one load before it is due.
+     */
+    @Scheduled(initialDelayString = "${events.lifecycle.reload-ms:43200000}",
+               fixedDelayString = "${events.lifecycle.reload-ms:43200000}")
+    public void loadHorizon() {
+        Instant now = Instant.now();
+        Instant until = now.plusMillis(horizonMs);
+        int loaded = 0;
+        for (Object[] row : eventRepository.findStartsBetween(Event.EventStatus.PUBLISHED, now, until)) {
+            arm((Long) row[0], (Instant) row[1]);
+            loaded++;
+        }
+        for (Object[] row : eventRepository.findEndsBetween(Event.EventStatus.ACTIVE, now, until)) {
+            arm((Long) row[0], (Instant) row[1]);
+            loaded++;
+        }
+        log.debug("Armed {} event lifecycle boundaries until {}", loaded, until);
+    }
+
+    @Scheduled(fixedDelayString = "${events.lifecycle.tick-ms:1000}")
+    public void tick() {
+        List<Long> due = new ArrayList<>();
+        boundaries.advance(System.currentTimeMillis(), eventId -> {
+            armed.remove(eventId);
+            due.add(eventId);
+        });
+
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Long> batch = due.subList(from, Math.min(due.size(), from + batchSize));
+            try {
+                flip(batch);
+            } catch (Exception e) {
+                // Already due, so re-arming retries them on the next tick; flip skips any that no longer need it
+                Instant now = Instant.now();
+                batch.forEach(eventId -> armed.computeIfAbsent(eventId,
+                        id -> boundaries.schedule(id, now.toEpochMilli())));
+                log.warn("Failed to apply lifecycle transitions: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Re-arm an event whenever it is written, including by this scheduler
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChange(EventChange change) {
+        TimingWheel.Timeout<Long> previous = armed.remove(change.getEventId());
+        boundaries.cancel(previous);
+
+        Event event = change.getCurrent();
+        Instant boundary = event != null ? nextBoundary(event) : null;
+        if (boundary != null && boundary.isBefore(Instant.now().plusMillis(horizonMs))) {
+            arm(event.getId(), boundary);
+        }
+    }
+
+    private void arm(Long eventId, Instant boundary) {
+        TimingWheel.Timeout<Long> timeout = boundaries.schedule(eventId, boundary.toEpochMilli());
+        boundaries.cancel(armed.put(eventId, timeout));
+    }
+
+    /**
+     * Flip every event of a status whose boundary has already passed, batch by batch
+     */
+    private int catchUp(Event.EventStatus status) {
+        int flipped = 0;
+        while (true) {
+            Instant now = Instant.now();
+            List<Long> ids = status == Event.EventStatus.PUBLISHED
+                    ? eventRepository.findIdsStartedBy(status, now, PageRequest.of(0, batchSize))
+                    : eventRepository.findIdsEndedBy(status, now, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return flipped;
+            }
+            int changed = flip(ids);
+            if (changed == 0) {
+                // Nothing in this batch was due after all; avoid looping on it
+                return flipped;
+            }
+            flipped += changed;
+        }
+    }
+
+    /**
+     * Move each of the given events to the status it should have now, one UPDATE
+     * per target status, and publish the changes once committed
+     */
+    private int flip(List<Long> ids) {
+        Instant now = Instant.now();
+        List<EventChange> changes = new ArrayList<>();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Event.EventStatus, List<Long>> byTarget = new EnumMap<>(Event.EventStatus.class);
+            // Locked so a concurrent edit cannot slip between the check and the UPDATE
+            for (Event event : eventRepository.findAllByIdForUpdate(ids)) {
+                Event.EventStatus target = nextStatus(event, now);
+                if (target == null) {
+                    continue;
+                }
+                byTarget.computeIfAbsent(target, s -> new ArrayList<>()).add(event.getId());
+
+                Event previous = EventChange.snapshot(event);
+                Event current = EventChange.snapshot(event);
+                current.setStatus(target);
+                changes.add(EventChange.updated(previous, current));
+            }
+            byTarget.forEach((target, targetIds) -> eventRepository.updateStatus(targetIds, target));
+            changes.forEach(eventPublisher::publishEvent);
+        });
+
+        return changes.size();
+    }
+
+    /**
+     * The status an event should have at the given time, or null if it is already right
+     */
+    private static Event.EventStatus nextStatus(Event event, Instant now) {
+        boolean started = event.getStartDateTime() != null && !event.getStartDateTime().isAfter(now);
+        boolean ended = event.getEndDateTime() != null && !event.getEndDateTime().isAfter(now);
+        if (event.getStatus() == Event.EventStatus.PUBLISHED && started) {
+            return ended ? Event.EventStatus.COMPLETED : Event.EventStatus.ACTIVE;
+        }
+        if (event.getStatus() == Event.EventStatus.ACTIVE && ended) {
+            return Event.EventStatus.COMPLETED;
+        }
+        return null;
+    }
+
+    /**
+     * When the event's status next changes on its own, or null if it never does
+     */
+    private static Instant nextBoundary(Event event) {
+        if (event.getStatus() == Event.EventStatus.PUBLISHED) {
+            return event.getStartDateTime();
+        }
+        if (event.getStatus() == Event.EventStatus.ACTIVE) {
+            return event.getEndDateTime();
+        }
+        return null;
+    }
+}
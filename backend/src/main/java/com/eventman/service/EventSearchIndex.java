@@ -0,0 +1,665 @@
+package com.eventman.service;
+
+import com.eventman.Event;
+import com.eventman.EventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over event name, description, location, tags and
+ * category, ranked with BM25 (field weights are folded into term frequencies).
+ *
+ * Every query token must match, either exactly or as a prefix of an indexed
+ * term. Postings are sorted by internal document id, so the rarest token
+ * produces the candidates and the others are checked by binary search.
+ * Updates tombstone the old document and append a new one; tombstones are
+ * compacted away once they make up a quarter of the index.
+ */
+@Service
+public class EventSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(EventSearchIndex.class);
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final float PREFIX_MATCH_WEIGHT = 0.5f;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int TAGS_WEIGHT = 2;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int LOCATION_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "at", "by", "for", "in", "is", "of", "on", "or", "the", "to", "with");
+
+    private final EventRepository eventRepository;
+    private final int rebuildChunkSize;
+    private final int rebuildThreads;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Segment segment = new Segment();
+    private boolean rebuilding;
+    private final List<Document> pendingChanges = new ArrayList<>();
+
+    public EventSearchIndex(EventRepository eventRepository,
+                            @Value("${search.index.rebuild-chunk-size:5000}") int rebuildChunkSize,
+                            @Value("${search.index.rebuild-threads:0}") int rebuildThreads) {
+        this.eventRepository = eventRepository;
+        this.rebuildChunkSize = Math.max(1, rebuildChunkSize);
+        this.rebuildThreads = rebuildThreads > 0 ? rebuildThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /** A matching event and its relevance score */
+    public static final class Hit {
+        private final long eventId;
+        private final float score;
+
+        Hit(long eventId, float score) {
+            this.eventId = eventId;
+            this.score = score;
+        }
+
+        public long getEventId() { return eventId; }
+
+        public float getScore() { return score; }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("Failed to build event search index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the index from the events table. Id ranges are loaded and tokenized
+     * in parallel and merged in id order; writes that arrive meanwhile are replayed
+     * on the new index before it replaces the old one.
+     */
+    public void rebuild() throws Exception {
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            pendingChanges.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(rebuildThreads);
+        Segment built = new Segment();
+        boolean complete = false;
+        try {
+            Long minId = eventRepository.findMinId();
+            Long maxId = eventRepository.findMaxId();
+            if (minId != null && maxId != null) {
+                Deque<Future<List<Document>>> inFlight = new ArrayDeque<>();
+                long nextFrom = minId;
+                while (nextFrom <= maxId || !inFlight.isEmpty()) {
+                    while (nextFrom <= maxId && inFlight.size() < rebuildThreads * 2) {
+                        long from = nextFrom;
+                        long to = Math.min(maxId, from + rebuildChunkSize - 1);
+                        inFlight.add(pool.submit(() -> analyzeAll(eventRepository.findByIdBetweenOrderByIdAsc(from, to))));
+                        nextFrom = to + 1;
+                    }
+                    for (Document document : inFlight.poll().get()) {
+                        built.add(document);
+                    }
+                }
+            }
+            complete = true;
+        } finally {
+            pool.shutdownNow();
+            lock.writeLock().lock();
+            try {
+                if (complete) {
+                    for (Document change : pendingChanges) {
+                        built.apply(change);
+                    }
+                    segment = built;
+                }
+                pendingChanges.clear();
+                rebuilding = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Event search index built: {} events, {} terms", built.liveCount, built.terms.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChange(EventChange change) {
+        Document document = change.getCurrent() != null
+                ? analyze(change.getCurrent())
+                : Document.removal(change.getEventId());
+
+        lock.writeLock().lock();
+        try {
+            segment.apply(document);
+            if (rebuilding) {
+                pendingChanges.add(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Top {@code limit} events matching every token of the query, best first
+     */
+    public List<Hit> search(String query, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (tokens.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            Segment s = segment;
+            if (s.liveCount == 0) {
+                return Collections.emptyList();
+            }
+
+            List<TermMatch[]> matches = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                TermMatch[] tokenMatches = s.expand(token);
+                if (tokenMatches.length == 0) {
+                    return Collections.emptyList();
+                }
+                matches.add(tokenMatches);
+            }
+            matches.sort((a, b) -> Long.compare(cost(a), cost(b)));
+
+            float avgLength = (float) s.totalLength / s.liveCount;
+            Candidates candidates = s.collect(matches.get(0), avgLength);
+            for (int i = 1; i < matches.size() && candidates.size > 0; i++) {
+                s.retain(candidates, matches.get(i), avgLength);
+            }
+            return candidates.top(limit, s.docEvents);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return segment.liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lower-cased alphanumeric tokens with common stop words removed
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                current.append(Character.toLowerCase(c));
+            } else if (current.length() > 0) {
+                String token = current.toString();
+                if (!STOP_WORDS.contains(token)) {
+                    tokens.add(token);
+                }
+                current.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    private static List<Document> analyzeAll(List<Event> events) {
+        List<Document> documents = new ArrayList<>(events.size());
+        for (Event event : events) {
+            documents.add(analyze(event));
+        }
+        return documents;
+    }
+
+    private static Document analyze(Event event) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        length += addField(frequencies, event.getName(), NAME_WEIGHT);
+        length += addField(frequencies, event.getTags(), TAGS_WEIGHT);
+        length += addField(frequencies, event.getCategory(), CATEGORY_WEIGHT);
+        length += addField(frequencies, event.getLocation(), LOCATION_WEIGHT);
+        length += addField(frequencies, event.getDescription(), DESCRIPTION_WEIGHT);
+        return new Document(event.getId(), frequencies, length);
+    }
+
+    private static int addField(Map<String, Integer> frequencies, String text, int weight) {
+        List<String> tokens = tokenize(text);
+        for (String token : tokens) {
+            frequencies.merge(token, weight, Integer::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    private static long cost(TermMatch[] matches) {
+        long cost = 0;
+        for (TermMatch match : matches) {
+            cost += match.postings.size;
+        }
+        return cost;
+    }
+
+    /** Analyzed event, or a removal when frequencies is null */
+    private static final class Document {
+        final long eventId;
+        final Map<String, Integer> frequencies;
+        final int length;
+
+        Document(long eventId, Map<String, Integer> frequencies, int length) {
+            this.eventId = eventId;
+            this.frequencies = frequencies;
+            this.length = length;
+        }
+
+        static Document removal(long eventId) {
+            return new Document(eventId, null, 0);
+        }
+    }
+
+    /** Sorted document ids and (weighted, capped) term frequencies for one term */
+    private static final class Postings {
+        int[] docs = new int[4];
+        byte[] frequencies = new byte[4];
+        int size;
+
+        void add(int doc, int frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            frequencies[size] = (byte) Math.min(frequency, 255);
+            size++;
+        }
+
+        int frequency(int index) {
+            return frequencies[index] & 0xFF;
+        }
+    }
+
+    /** One indexed term a query token expanded to, with its idf and match weight folded together */
+    private static final class TermMatch {
+        final Postings postings;
+        final float weight;
+
+        TermMatch(Postings postings, float weight) {
+            this.postings = postings;
+            this.weight = weight;
+        }
+    }
+
+    private static final class Segment {
+        final NavigableMap<String, Postings> terms = new TreeMap<>();
+        final LongIntMap docsByEvent = new LongIntMap();
+        final BitSet deleted = new BitSet();
+        long[] docEvents = new long[1024];
+        int[] docLengths = new int[1024];
+        int docCount;
+        int liveCount;
+        int deletedCount;
+        long totalLength;
+
+        void apply(Document document) {
+            remove(document.eventId);
+            if (document.frequencies != null) {
+                add(document);
+            }
+        }
+
+        void add(Document document) {
+            if (docsByEvent.get(document.eventId) >= 0) {
+                remove(document.eventId);
+            }
+            if (docCount == docEvents.length) {
+                docEvents = Arrays.copyOf(docEvents, docCount * 2);
+                docLengths = Arrays.copyOf(docLengths, docCount * 2);
+            }
+
+            int doc = docCount++;
+            docEvents[doc] = document.eventId;
+            docLengths[doc] = document.length;
+            for (Map.Entry<String, Integer> entry : document.frequencies.entrySet()) {
+                terms.computeIfAbsent(entry.getKey(), term -> new Postings()).add(doc, entry.getValue());
+            }
+            docsByEvent.put(document.eventId, doc);
+            liveCount++;
+            totalLength += document.length;
+        }
+
+        void remove(long eventId) {
+            int doc = docsByEvent.remove(eventId);
+            if (doc < 0) {
+                return;
+            }
+            deleted.set(doc);
+            deletedCount++;
+            liveCount--;
+            totalLength -= docLengths[doc];
+
+            if (deletedCount > 1024 && deletedCount > liveCount / 4) {
+                compact();
+            }
+        }
+
+        /**
+         * Drop tombstoned documents and renumber the rest, keeping postings sorted
+         */
+        void compact() {
+            int[] remap = new int[docCount];
+            int next = 0;
+            for (int doc = 0; doc < docCount; doc++) {
+                if (deleted.get(doc)) {
+                    remap[doc] = -1;
+                } else {
+                    remap[doc] = next;
+                    docEvents[next] = docEvents[doc];
+                    docLengths[next] = docLengths[doc];
+                    docsByEvent.put(docEvents[next], next);
+                    next++;
+                }
+            }
+
+            terms.values().removeIf(postings -> {
+                int size = 0;
+                for (int i = 0; i < postings.size; i++) {
+                    int doc = remap[postings.docs[i]];
+                    if (doc >= 0) {
+                        postings.docs[size] = doc;
+                        postings.frequencies[size] = postings.frequencies[i];
+                        size++;
+                    }
+                }
+                postings.size = size;
+                return size == 0;
+            });
+
+            docCount = next;
+            deleted.clear();
+            deletedCount = 0;
+        }
+
+        /**
+         * The exact term (if indexed) and terms starting with the token, MAX_PREFIX_EXPANSIONS in all
+         */
+        TermMatch[] expand(String token) {
+            List<TermMatch> matches = new ArrayList<>();
+            Postings exact = terms.get(token);
+            if (exact != null) {
+                matches.add(new TermMatch(exact, idf(exact)));
+            }
+            if (token.length() >= MIN_PREFIX_LENGTH) {
+                for (Postings postings : terms.subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+                    if (matches.size() >= MAX_PREFIX_EXPANSIONS) {
+                        break;
+                    }
+                    matches.add(new TermMatch(postings, idf(postings) * PREFIX_MATCH_WEIGHT));
+                }
+            }
+            return matches.toArray(new TermMatch[0]);
+        }
+
+        float idf(Postings postings) {
+            int df = Math.min(postings.size, liveCount);
+            return (float) Math.log(1 + (liveCount - df + 0.5) / (df + 0.5));
+        }
+
+        float score(TermMatch match, int index, float avgLength) {
+            int doc = match.postings.docs[index];
+            float tf = match.postings.frequency(index);
+            float norm = K1 * (1 - B + B * docLengths[doc] / avgLength);
+            return match.weight * tf * (K1 + 1) / (tf + norm);
+        }
+
+        /**
+         * Score every live document matched by the cheapest token
+         */
+        Candidates collect(TermMatch[] matches, float avgLength) {
+            if (matches.length == 1) {
+                // A single postings list is already sorted and duplicate free
+                TermMatch match = matches[0];
+                Candidates candidates = new Candidates(match.postings.size);
+                for (int i = 0; i < match.postings.size; i++) {
+                    int doc = match.postings.docs[i];
+                    if (!deleted.get(doc)) {
+                        candidates.append(doc, score(match, i, avgLength));
+                    }
+                }
+                return candidates;
+            }
+
+            ScoreMap scores = new ScoreMap((int) Math.min(cost(matches), Integer.MAX_VALUE / 4));
+            for (TermMatch match : matches) {
+                for (int i = 0; i < match.postings.size; i++) {
+                    int doc = match.postings.docs[i];
+                    if (!deleted.get(doc)) {
+                        scores.add(doc, score(match, i, avgLength));
+                    }
+                }
+            }
+            Candidates candidates = scores.toCandidates();
+            candidates.sortByDoc();
+            return candidates;
+        }
+
+        /**
+         * Keep only candidates that also match one of the token's terms, adding that score.
+         * Candidates and postings are both sorted by doc id, so each postings list is
+         * walked forward once with galloping search.
+         */
+        void retain(Candidates candidates, TermMatch[] matches, float avgLength) {
+            int[] positions = new int[matches.length];
+            int kept = 0;
+            for (int c = 0; c < candidates.size; c++) {
+                int doc = candidates.docs[c];
+                float tokenScore = 0;
+                boolean matched = false;
+                for (int m = 0; m < matches.length; m++) {
+                    Postings postings = matches[m].postings;
+                    int index = advance(postings, positions[m], doc);
+                    positions[m] = index;
+                    if (index < postings.size && postings.docs[index] == doc) {
+                        tokenScore += score(matches[m], index, avgLength);
+                        matched = true;
+                    }
+                }
+                if (matched) {
+                    candidates.docs[kept] = doc;
+                    candidates.scores[kept] = candidates.scores[c] + tokenScore;
+                    kept++;
+                }
+            }
+            candidates.size = kept;
+        }
+
+        /**
+         * First index at or after {@code from} whose doc id is not below {@code doc}
+         */
+        private static int advance(Postings postings, int from, int doc) {
+            if (from >= postings.size || postings.docs[from] >= doc) {
+                return from;
+            }
+            int low = from;
+            int step = 1;
+            int high = from + 1;
+            while (high < postings.size && postings.docs[high] < doc) {
+                low = high;
+                step <<= 1;
+                high = low + step;
+            }
+            int index = Arrays.binarySearch(postings.docs, low + 1, Math.min(high, postings.size), doc);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+
+    /** Parallel arrays of candidate documents and their accumulated scores */
+    private static final class Candidates {
+        int[] docs;
+        float[] scores;
+        int size;
+
+        Candidates(int capacity) {
+            this.docs = new int[Math.max(1, capacity)];
+            this.scores = new float[Math.max(1, capacity)];
+        }
+
+        void append(int doc, float score) {
+            docs[size] = doc;
+            scores[size] = score;
+            size++;
+        }
+
+        /**
+         * Candidates sorted by doc id, as retain() expects
+         */
+        void sortByDoc() {
+            long[] packed = new long[size];
+            for (int c = 0; c < size; c++) {
+                packed[c] = ((long) docs[c] << 32) | (Float.floatToRawIntBits(scores[c]) & 0xFFFFFFFFL);
+            }
+            Arrays.sort(packed);
+            for (int c = 0; c < size; c++) {
+                docs[c] = (int) (packed[c] >>> 32);
+                scores[c] = Float.intBitsToFloat((int) packed[c]);
+            }
+        }
+
+        /**
+         * Best {@code limit} candidates, using a min-heap of candidate positions
+         */
+        List<Hit> top(int limit, long[] docEvents) {
+            int[] heap = new int[Math.min(limit, size)];
+            int heapSize = 0;
+            for (int c = 0; c < size; c++) {
+                if (heapSize < heap.length) {
+                    heap[heapSize] = c;
+                    siftUp(heap, heapSize++);
+                } else if (scores[c] > scores[heap[0]]) {
+                    heap[0] = c;
+                    siftDown(heap, heapSize);
+                }
+            }
+
+            Hit[] hits = new Hit[heapSize];
+            while (heapSize > 0) {
+                int c = heap[0];
+                hits[--heapSize] = new Hit(docEvents[docs[c]], scores[c]);
+                heap[0] = heap[heapSize];
+                siftDown(heap, heapSize);
+            }
+            return Arrays.asList(hits);
+        }
+
+        private void siftUp(int[] heap, int index) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (scores[heap[parent]] <= scores[heap[index]]) {
+                    return;
+                }
+                swap(heap, parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int[] heap, int heapSize) {
+            int index = 0;
+            while (true) {
+                int smallest = index;
+                int left = 2 * index + 1;
+                int right = left + 1;
+                if (left < heapSize && scores[heap[left]] < scores[heap[smallest]]) {
+                    smallest = left;
+                }
+                if (right < heapSize && scores[heap[right]] < scores[heap[smallest]]) {
+                    smallest = right;
+                }
+                if (smallest == index) {
+                    return;
+                }
+                swap(heap, smallest, index);
+                index = smallest;
+            }
+        }
+
+        private static void swap(int[] heap, int i, int j) {
+            int tmp = heap[i];
+            heap[i] = heap[j];
+            heap[j] = tmp;
+        }
+    }
+
+    /** Open-addressing doc id to score accumulator used when a token expands to several terms */
+    private static final class ScoreMap {
+        final int[] keys;
+        final float[] values;
+        final int mask;
+        int size;
+
+        ScoreMap(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, expected) * 2 - 1) << 1;
+            this.keys = new int[capacity];
+            this.values = new float[capacity];
+            this.mask = capacity - 1;
+            Arrays.fill(keys, -1);
+        }
+
+        void add(int doc, float score) {
+            int slot = (doc * 0x9E3779B9) & mask;
+            while (keys[slot] != -1 && keys[slot] != doc) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == -1) {
+                keys[slot] = doc;
+                size++;
+            }
+            values[slot] += score;
+        }
+
+        Candidates toCandidates() {
+            Candidates candidates = new Candidates(size);
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != -1) {
+                    candidates.append(keys[slot], values[slot]);
+                }
+            }
+            return candidates;
+        }
+    }
+}
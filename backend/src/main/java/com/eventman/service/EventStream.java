@@ -0,0 +1,77 @@
+package com.eventman.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pushes event catalog changes to GET /api/events/stream subscribers as
+ * {@code created}, {@code updated} and {@code deleted} server-sent events, so
+ * clients can keep a local copy of the catalog instead of re-fetching it.
+ * Created and updated events carry the full event; deleted events carry its id.
+ */
+@Service
+public class EventStream {
+
+    private static final Logger log = LoggerFactory.getLogger(EventStream.class);
+
+    private final ObjectMapper objectMapper;
+    private final SseBroadcaster broadcaster;
+
+    public EventStream(ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry,
+                       @Value("${events.stream.queue-capacity:256}") int queueCapacity,
+                       @Value("${events.stream.replay-size:256}") int replaySize,
+                       @Value("${events.stream.max-clients:1000}") int maxClients,
+                       @Value("${events.stream.timeout-ms:1800000}") long timeoutMs,
+                       @Value("${events.stream.write-timeout-ms:10000}") long writeTimeoutMs,
+                       @Value("${events.stream.sender-threads:2}") int senderThreads,
+                       @Value("${events.stream.max-sender-threads:64}") int maxSenderThreads) {
+        this.objectMapper = objectMapper;
+        this.broadcaster = new SseBroadcaster("events", queueCapacity, replaySize, maxClients, timeoutMs,
+                writeTimeoutMs, senderThreads, maxSenderThreads, meterRegistry);
+    }
+
+    /**
+     * Subscribe a client, replaying changes after {@code lastEventId}; null if too many clients are connected
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        return broadcaster.connect(lastEventId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChange(EventChange change) {
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("id", change.getEventId());
+        if (change.getCurrent() != null) {
+            delta.put("event", change.getCurrent());
+        }
+
+        try {
+            broadcaster.broadcast(change.getType().name().toLowerCase(), objectMapper.writeValueAsString(delta));
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize change of event {}: {}", change.getEventId(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${events.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        broadcaster.heartbeat();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        broadcaster.shutdown();
+    }
+}
@@ -0,0 +1,112 @@
+package com.eventman.service;
+
+import com.eventman.EventTag;
+import com.eventman.EventTagRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Keeps {@code event_tags} in step with the comma-separated {@code Event.tags}
+ * string, which stays the API representation. Every event write that changes
+ * the tags replaces the event's rows in the same transaction as the event
+ * itself, so the two never drift and a failed tag write rolls the event back.
+ * Rows for events written before the table existed are backfilled in batches
+ * at startup.
+ */
+@Service
+public class EventTagService {
+
+    private static final Logger log = LoggerFactory.getLogger(EventTagService.class);
+
+    private static final int MAX_TAG_LENGTH = 100;
+
+    private final EventTagRepository eventTagRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int backfillBatchSize;
+
+    public EventTagService(EventTagRepository eventTagRepository,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${events.tags.backfill-batch-size:500}") int backfillBatchSize) {
+        this.eventTagRepository = eventTagRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.backfillBatchSize = Math.max(1, backfillBatchSize);
+    }
+
+    /**
+     * Distinct, trimmed, lower-case tags of a comma-separated tags string, in order
+     */
+    public static List<String> normalize(String tags) {
+        Set<String> normalized = new LinkedHashSet<>();
+        if (tags != null) {
+            for (String tag : tags.split(",")) {
+                String value = tag.trim().toLowerCase(Locale.ROOT);
+                if (!value.isEmpty()) {
+                    normalized.add(value.length() > MAX_TAG_LENGTH ? value.substring(0, MAX_TAG_LENGTH) : value);
+                }
+            }
+        }
+        return new ArrayList<>(normalized);
+    }
+
+    /**
+     * Replace an event's rows if its tags changed (either side null for a create
+     * or delete). Must join the transaction that writes the event.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void sync(Long eventId, String previousTags, String currentTags) {
+        List<String> before = normalize(previousTags);
+        List<String> after = normalize(currentTags);
+        if (!before.equals(after)) {
+            replaceTags(eventId, after);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            long afterId = 0;
+            int backfilled = 0;
+            while (true) {
+                List<Object[]> rows = eventTagRepository.findUntaggedEvents(afterId, PageRequest.of(0, backfillBatchSize));
+                if (rows.isEmpty()) {
+                    break;
+                }
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (Object[] row : rows) {
+                        replaceTags((Long) row[0], normalize((String) row[1]));
+                    }
+                });
+                backfilled += rows.size();
+                afterId = (Long) rows.get(rows.size() - 1)[0];
+            }
+            if (backfilled > 0) {
+                log.info("Backfilled event_tags for {} events", backfilled);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to backfill event tags: {}", e.getMessage());
+        }
+    }
+
+    private void replaceTags(Long eventId, List<String> tags) {
+        eventTagRepository.deleteByEventId(eventId);
+        List<EventTag> rows = new ArrayList<>(tags.size());
+        for (String tag : tags) {
+            rows.add(new EventTag(eventId, tag));
+        }
+        eventTagRepository.saveAll(rows);
+    }
+}
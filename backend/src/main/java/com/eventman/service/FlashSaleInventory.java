@@ -0,0 +1,413 @@
+package com.eventman.service;
+
+import com.eventman.FlashSale;
+import com.eventman.FlashSaleRepository;
+import com.eventman.Payment;
+import com.eventman.PaymentRepository;
+import com.eventman.Ticket;
+import com.eventman.TicketHoldRepository;
+import com.eventman.TicketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Flash-sale mode for hot tickets. When enabled, the ticket's remaining quantity
+ * moves into a {@link Sale}: N striped counters decremented with CAS, so buyers
+ * no longer queue on the ticket row lock. Each unit lives in exactly one stripe,
+ * and a stripe that runs dry triggers a rebalance that regathers and respreads
+ * the units, so the sale can never oversell.
+ *
+ * Payments are still inserted per purchase (inserts do not contend); the
+ * ticket's {@code quantity_available} is written behind in batches. On restart
+ * the remaining quantity is rebuilt from the payments recorded since the sale
+ * started, which are the durable record of what was sold.
+ *
+ * Sales are node-local, like the other in-memory structures of this service.
+ */
+@Service
+public class FlashSaleInventory {
+
+    private static final Logger log = LoggerFactory.getLogger(FlashSaleInventory.class);
+
+    private final TicketRepository ticketRepository;
+    private final FlashSaleRepository flashSaleRepository;
+    private final PaymentRepository paymentRepository;
+    private final TicketHoldRepository ticketHoldRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int stripes;
+    private final long drainTimeoutMs;
+
+    private final Map<Long, Sale> sales = new ConcurrentHashMap<>();
+
+    public FlashSaleInventory(TicketRepository ticketRepository,
+                              FlashSaleRepository flashSaleRepository,
+                              PaymentRepository paymentRepository,
+                              TicketHoldRepository ticketHoldRepository,
+                              TransactionTemplate transactionTemplate,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${tickets.flash-sale.stripes:0}") int stripes,
+                              @Value("${tickets.flash-sale.drain-timeout-ms:10000}") long drainTimeoutMs) {
+        this.ticketRepository = ticketRepository;
+        this.flashSaleRepository = flashSaleRepository;
+        this.paymentRepository = paymentRepository;
+        this.ticketHoldRepository = ticketHoldRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.stripes = stripes > 0 ? stripes : 2 * Runtime.getRuntime().availableProcessors();
+        this.drainTimeoutMs = drainTimeoutMs;
+    }
+
+    /** Result of ending a flash sale */
+    public enum Ending {
+        ENDED, NO_SALE,
+        // Purchases were still running after the drain timeout; the sale keeps selling
+        PURCHASES_IN_FLIGHT
+    }
+
+    /**
+     * The running sale of a ticket, or null if it is not in flash-sale mode
+     */
+    public Sale sale(Long ticketId) {
+        return sales.get(ticketId);
+    }
+
+    /**
+     * Switch a ticket to flash-sale mode. Returns the sale, or null if the ticket
+     * does not exist, is not ACTIVE or still has units on hold (their confirming
+     * payments would be counted as sold from the sale).
+     */
+    public Sale enable(Long ticketId) {
+        Sale existing = sales.get(ticketId);
+        if (existing != null) {
+            return existing;
+        }
+
+        Sale sale = transactionTemplate.execute(status -> {
+            // The row lock waits out regular purchases in flight; once flagged, none can start
+            Optional<Ticket> locked = ticketRepository.findByIdForUpdate(ticketId);
+            if (locked.isEmpty() || locked.get().getStatus() != Ticket.TicketStatus.ACTIVE
+                    || ticketHoldRepository.countByTicketId(ticketId) > 0) {
+                return null;
+            }
+            Ticket ticket = locked.get();
+            ticket.setFlashSale(true);
+
+            FlashSale flashSale = flashSaleRepository.findById(ticketId).orElseGet(() -> flashSaleRepository.save(
+                    new FlashSale(ticketId, ticket.getQuantityAvailable(), paymentRepository.findMaxId(),
+                            LocalDateTime.now().toString())));
+            return new Sale(ticket, remaining(flashSale), stripes);
+        });
+
+        if (sale != null) {
+            Sale raced = sales.putIfAbsent(ticketId, sale);
+            sale = raced != null ? raced : sale;
+            eventPublisher.publishEvent(TicketChange.of(sale.ticket()));
+            log.info("Flash sale started for ticket {} with {} tickets over {} stripes",
+                    ticketId, sale.remaining(), stripes);
+        }
+        return sale;
+    }
+
+    /**
+     * End a ticket's flash sale: stop selling, wait for purchases in flight and
+     * write the remaining quantity back. If they do not finish within the drain
+     * timeout the sale is reopened, since writing back now would miss their payments.
+     */
+    public Ending disable(Long ticketId) {
+        Sale sale = sales.get(ticketId);
+        if (sale == null) {
+            return Ending.NO_SALE;
+        }
+        try {
+            if (!sale.close(drainTimeoutMs)) {
+                log.warn("Flash sale for ticket {} not ended: purchases still in flight", ticketId);
+                return Ending.PURCHASES_IN_FLIGHT;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Ending.PURCHASES_IN_FLIGHT;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Optional<Ticket> ticket = ticketRepository.findByIdForUpdate(ticketId);
+            Optional<FlashSale> flashSale = flashSaleRepository.findById(ticketId);
+            if (ticket.isPresent()) {
+                int remaining = flashSale.map(this::remaining).orElse(sale.persistedQuantity());
+                ticket.get().setQuantityAvailable(remaining);
+                if (remaining == 0) {
+                    ticket.get().setStatus(Ticket.TicketStatus.SOLD_OUT);
+                }
+                ticket.get().setFlashSale(false);
+                eventPublisher.publishEvent(TicketChange.of(ticket.get()));
+            }
+            flashSale.ifPresent(flashSaleRepository::delete);
+        });
+        sales.remove(ticketId, sale);
+        log.info("Flash sale ended for ticket {}", ticketId);
+        return Ending.ENDED;
+    }
+
+    /**
+     * Write the remaining quantity of every sale that sold something since the last flush
+     */
+    @Scheduled(fixedDelayString = "${tickets.flash-sale.flush-ms:500}")
+    public void flush() {
+        if (sales.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Sale sale : sales.values()) {
+                    if (sale.dirty.getAndSet(false)) {
+                        ticketRepository.writeFlashSaleQuantity(sale.ticketId, sale.persistedQuantity(),
+                                Ticket.TicketStatus.SOLD_OUT);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            // Mark everything dirty again so the next flush retries
+            sales.values().forEach(sale -> sale.dirty.set(true));
+            log.warn("Failed to flush flash sale quantities: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild running sales from the flash_sales table and the payments made since each started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        try {
+            for (FlashSale flashSale : flashSaleRepository.findAll()) {
+                Sale sale = transactionTemplate.execute(status -> {
+                    Ticket ticket = ticketRepository.findByIdForUpdate(flashSale.getTicketId()).orElse(null);
+                    if (ticket == null) {
+                        flashSaleRepository.delete(flashSale);
+                        return null;
+                    }
+                    int remaining = remaining(flashSale);
+                    ticket.setQuantityAvailable(remaining);
+                    if (remaining == 0) {
+                        ticket.setStatus(Ticket.TicketStatus.SOLD_OUT);
+                    }
+                    ticket.setFlashSale(true);
+                    return new Sale(ticket, remaining, stripes);
+                });
+                if (sale != null) {
+                    sales.put(flashSale.getTicketId(), sale);
+                    log.info("Recovered flash sale for ticket {} with {} tickets left",
+                            flashSale.getTicketId(), sale.remaining());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to recover flash sales: {}", e.getMessage());
+        }
+    }
+
+    private int remaining(FlashSale flashSale) {
+        // Failed or refunded payments did not take a unit
+        long sold = paymentRepository.sumQuantityByTicketIdAfter(flashSale.getTicketId(), flashSale.getPaymentWatermark(),
+                Payment.PaymentStatus.COMPLETED);
+        return (int) Math.max(0, flashSale.getBaseQuantity() - sold);
+    }
+
+    /**
+     * Inventory of one ticket in flash-sale mode
+     */
+    public static final class Sale {
+
+        // Stripes sit 64 bytes apart so CAS on one does not invalidate its neighbours' cache line
+        private static final int PAD = 16;
+
+        private final Long ticketId;
+        private final Ticket ticket;
+        private final int baseQuantity;
+        private final int stripeCount;
+        private final AtomicIntegerArray stripes;
+        private final LongAdder sold = new LongAdder();
+        private final LongAdder inFlight = new LongAdder();
+        private final AtomicBoolean dirty = new AtomicBoolean();
+        // Monitor a closing sale waits on for the purchases in flight
+        private final Object drained = new Object();
+        private volatile boolean closed;
+
+        Sale(Ticket ticket, int remaining, int stripeCount) {
+            this.ticketId = ticket.getId();
+            this.ticket = new Ticket(ticket.getId(), ticket.getName(), ticket.getDescription(), ticket.getPrice(),
+                    ticket.getCurrency(), null, ticket.getEventId(), ticket.getEventName(), ticket.getStatus(),
+                    ticket.getCreatedAt());
+            this.ticket.setFlashSale(true);
+            this.baseQuantity = remaining;
+            this.stripeCount = stripeCount;
+            this.stripes = new AtomicIntegerArray(stripeCount * PAD);
+            spread(remaining);
+        }
+
+        /**
+         * Take {@code quantity} units; false if the sale is closed or not enough are
+         * left. Every successful take must be followed by {@link #commit} or {@link #giveBack}.
+         */
+        public boolean take(int quantity) {
+            inFlight.increment();
+            if (closed) {
+                leave();
+                return false;
+            }
+
+            int home = ThreadLocalRandom.current().nextInt(stripeCount);
+            for (int i = 0; i < stripeCount; i++) {
+                if (tryTake((home + i) % stripeCount, quantity)) {
+                    return true;
+                }
+            }
+            if (rebalance(quantity)) {
+                return true;
+            }
+            leave();
+            return false;
+        }
+
+        /** The payment for the taken units has committed */
+        public void commit(int quantity) {
+            sold.add(quantity);
+            dirty.set(true);
+            leave();
+        }
+
+        /** The taken units were not sold after all */
+        public void giveBack(int quantity) {
+            stripes.addAndGet(ThreadLocalRandom.current().nextInt(stripeCount) * PAD, quantity);
+            leave();
+        }
+
+        /** Units still available to take */
+        public int remaining() {
+            int remaining = 0;
+            for (int i = 0; i < stripeCount; i++) {
+                remaining += stripes.get(i * PAD);
+            }
+            return remaining;
+        }
+
+        /**
+         * Copy of the ticket with the current remaining quantity, SOLD_OUT when none
+         * is left as flush writes it to the row
+         */
+        public Ticket ticket() {
+            int remaining = remaining();
+            Ticket.TicketStatus status = ticket.getStatus();
+            if (remaining == 0) {
+                status = Ticket.TicketStatus.SOLD_OUT;
+            } else if (status == Ticket.TicketStatus.SOLD_OUT) {
+                status = Ticket.TicketStatus.ACTIVE;
+            }
+            Ticket copy = new Ticket(ticket.getId(), ticket.getName(), ticket.getDescription(), ticket.getPrice(),
+                    ticket.getCurrency(), remaining, ticket.getEventId(), ticket.getEventName(),
+                    status, ticket.getCreatedAt());
+            copy.setFlashSale(true);
+            return copy;
+        }
+
+        /**
+         * Quantity to persist: only paid units count as gone, so units in flight stay
+         * available in the database until their payment commits
+         */
+        private int persistedQuantity() {
+            return (int) Math.max(0, baseQuantity - sold.sum());
+        }
+
+        private boolean tryTake(int stripe, int quantity) {
+            int index = stripe * PAD;
+            while (true) {
+                int current = stripes.get(index);
+                if (current < quantity) {
+                    return false;
+                }
+                if (stripes.compareAndSet(index, current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Gather every stripe's units, take the requested quantity from the pool and
+         * spread the rest again. Units are only ever moved, never copied, so the total
+         * is conserved even while other buyers keep taking from the stripes.
+         */
+        private synchronized boolean rebalance(int quantity) {
+            int pool = 0;
+            for (int i = 0; i < stripeCount; i++) {
+                pool += stripes.getAndSet(i * PAD, 0);
+            }
+            boolean taken = pool >= quantity;
+            spread(taken ? pool - quantity : pool);
+            return taken;
+        }
+
+        /**
+         * Add units across the stripes evenly; when fewer than one per stripe are
+         * left they all go to the first stripe so a multi-ticket purchase can still succeed
+         */
+        private void spread(int units) {
+            if (units < stripeCount) {
+                stripes.addAndGet(0, units);
+                return;
+            }
+            int share = units / stripeCount;
+            int extra = units % stripeCount;
+            for (int i = 0; i < stripeCount; i++) {
+                stripes.addAndGet(i * PAD, share + (i < extra ? 1 : 0));
+            }
+        }
+
+        /**
+         * Refuse new purchases and wait up to {@code timeoutMs} for those in flight to
+         * commit or give back. Returns false, with the sale open again, if some are still running.
+         */
+        boolean close(long timeoutMs) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            synchronized (drained) {
+                closed = true;
+                while (inFlight.sum() > 0) {
+                    long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remainingMs <= 0) {
+                        closed = false;
+                        return false;
+                    }
+                    drained.wait(remainingMs);
+                }
+                return true;
+            }
+        }
+
+        /**
+         * A purchase is no longer in flight; wakes a closing sale. The closed flag is
+         * read after the decrement, so either this sees it or close() sees the decrement.
+         */
+        private void leave() {
+            inFlight.decrement();
+            if (closed) {
+                synchronized (drained) {
+                    drained.notifyAll();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.eventman.service;
+
+import com.eventman.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+
+/**
+ * Warm Bloom filter of every registered email. A miss means the email is
+ * certainly new, so registration can go straight to the insert; a hit is only
+ * a hint and must be confirmed against the database (or the unique constraint).
+ */
+@Service
+public class KnownEmailFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(KnownEmailFilter.class);
+
+    private final UserRepository userRepository;
+    private final BloomFilter filter;
+    private volatile boolean warm;
+
+    public KnownEmailFilter(UserRepository userRepository,
+                            @Value("${registration.email-filter.expected-users:1000000}") long expectedUsers,
+                            @Value("${registration.email-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.filter = new BloomFilter(expectedUsers, falsePositiveRate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            userRepository.findAllEmails().forEach(this::add);
+            warm = true;
+            log.info("Known email filter warmed");
+        } catch (Exception e) {
+            log.warn("Failed to warm known email filter: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * False only if the email is definitely not registered. Until the filter has
+     * been warmed every email is reported as possibly known.
+     */
+    public boolean mightContain(String email) {
+        return !warm || filter.mightContain(normalize(email));
+    }
+
+    public void add(String email) {
+        if (email != null) {
+            filter.put(normalize(email));
+        }
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
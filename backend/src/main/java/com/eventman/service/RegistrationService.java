@@ -0,0 +1,74 @@
+package com.eventman.service;
+
+import com.eventman.User;
+import com.eventman.UserRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Locale;
+
+/**
+ * Creates new accounts. The user row and the queued verification email are
+ * written in one transaction, so a committed user always gets their email
+ * and a failed registration never sends one.
+ *
+ * Registration is insert-first: duplicates are detected by the unique
+ * constraint on {@code users.email}, which surfaces as a
+ * {@link org.springframework.dao.DataIntegrityViolationException}. That also
+ * closes the race between concurrent sign-ups for the same email.
+ */
+@Service
+public class RegistrationService {
+
+    private final UserRepository userRepository;
+    private final VerificationCodeStore verificationCodeStore;
+    private final EmailService emailService;
+    private final KnownEmailFilter knownEmailFilter;
+
+    public RegistrationService(UserRepository userRepository, VerificationCodeStore verificationCodeStore,
+                               EmailService emailService, KnownEmailFilter knownEmailFilter) {
+        this.userRepository = userRepository;
+        this.verificationCodeStore = verificationCodeStore;
+        this.emailService = emailService;
+        this.knownEmailFilter = knownEmailFilter;
+    }
+
+    /**
+     * Cheap duplicate pre-check: only emails the Bloom filter may have seen cost a
+     * database lookup; everything else goes straight to the insert
+     */
+    public boolean isEmailTaken(String email) {
+        return knownEmailFilter.mightContain(email) && userRepository.existsByEmail(email);
+    }
+
+    /**
+     * Whether a failed registration hit the unique key on {@code users.email}, as
+     * opposed to any other constraint (e.g. a value too long for its column).
+     * Schemas created before the key was named report another name for it, so
+     * then the email itself is looked up.
+     */
+    public boolean isDuplicateEmail(DataIntegrityViolationException e, String email) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+                    && violation.getConstraintName().toLowerCase(Locale.ROOT).endsWith(User.EMAIL_UNIQUE_KEY)) {
+                return true;
+            }
+        }
+        return email != null && userRepository.existsByEmail(email);
+    }
+
+    @Transactional
+    public User register(User newUser) {
+        // Flush now so a duplicate email fails here, before anything else is queued
+        User savedUser = userRepository.saveAndFlush(newUser);
+        knownEmailFilter.add(savedUser.getEmail());
+
+        // Verification code is kept in the code store, not on the users row
+        String verificationCode = verificationCodeStore.issue(savedUser.getEmail());
+        emailService.sendVerificationEmail(savedUser.getEmail(), verificationCode);
+
+        return savedUser;
+    }
+}
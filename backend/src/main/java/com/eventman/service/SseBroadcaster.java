@@ -0,0 +1,385 @@
+package com.eventman.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fan-out of server-sent events to many clients without letting any of them
+ * slow down the publisher or each other.
+ *
+ * Publishing formats an event once and only offers it to each client's bounded
+ * queue; a shared pool of sender threads drains the queues, at most one drain
+ * per client at a time. A client whose queue overflows is too slow to keep up
+ * and is disconnected (EventSource reconnects with Last-Event-ID).
+ *
+ * Servlet writes block, so a client that stops reading stalls the sender
+ * writing to it until the container's write timeout
+ * ({@code server.tomcat.connection-timeout}) fails the write. The pool therefore
+ * grows from its core size up to a maximum while sends are stuck, and a client
+ * whose send has been in flight for longer than {@code writeTimeoutMs} is
+ * disconnected at the next broadcast or heartbeat. Up to the pool's maximum
+ * clients can be stalled at once before the others have to wait. The last
+ * {@code replaySize} events are kept so reconnecting clients can catch up; if
+ * their last event is older than that, or the backlog does not fit in their
+ * queue, they get a {@code reset} event instead. The replay buffer is clamped to
+ * the queue capacity, since a longer one could never be replayed whole.
+ * Event ids are {@code <epoch>-<sequence>} with a random epoch per broadcaster,
+ * so an id from before a restart or from another node also gets a reset rather
+ * than a replay of an unrelated sequence.
+ */
+public class SseBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(SseBroadcaster.class);
+
+    /** Sent to a reconnecting client whose last event is no longer in the replay buffer */
+    public static final String RESET_EVENT = "reset";
+
+    private final String name;
+    private final int queueCapacity;
+    private final int replaySize;
+    private final int maxClients;
+    private final long timeoutMs;
+    private final long writeTimeoutNanos;
+    private final ExecutorService senders;
+    private final boolean ownsSenders;
+    // Connection slots, possibly shared with other broadcasters: one permit per connected client
+    private final Semaphore slots;
+
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private final Deque<Message> replay = new ArrayDeque<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final Counter evicted;
+
+    public SseBroadcaster(String name, int queueCapacity, int replaySize, int maxClients, long timeoutMs,
+                          long writeTimeoutMs, int senderThreads, int maxSenderThreads, MeterRegistry meterRegistry) {
+        this(name, queueCapacity, replaySize, maxClients, timeoutMs, writeTimeoutMs,
+                senderPool(name, senderThreads, maxSenderThreads), true, new Semaphore(Math.max(0, maxClients)),
+                Counter.builder(name + ".stream.evicted")
+                        .description("Stream clients disconnected because they fell too far behind")
+                        .register(meterRegistry));
+        meterRegistry.gauge(name + ".stream.clients", clients, Set::size);
+    }
+
+    /**
+     * A broadcaster sending through a pool shared with others, for when there are
+     * many short-lived broadcasters (one per topic). {@link #shutdown} leaves the
+     * pool running and evictions are counted into the given counter. Each client
+     * also takes a permit from {@code slots}, which caps all of them together.
+     */
+    public SseBroadcaster(String name, int queueCapacity, int replaySize, int maxClients, long timeoutMs,
+                          long writeTimeoutMs, ExecutorService senders, Semaphore slots, Counter evicted) {
+        this(name, queueCapacity, replaySize, maxClients, timeoutMs, writeTimeoutMs, senders, false, slots, evicted);
+    }
+
+    private SseBroadcaster(String name, int queueCapacity, int replaySize, int maxClients, long timeoutMs,
+                           long writeTimeoutMs, ExecutorService senders, boolean ownsSenders, Semaphore slots,
+                           Counter evicted) {
+        this.name = name;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        if (replaySize > this.queueCapacity) {
+            log.warn("{} stream replay size {} exceeds the client queue capacity, using {}",
+                    name, replaySize, this.queueCapacity);
+        }
+        this.replaySize = Math.max(0, Math.min(replaySize, this.queueCapacity));
+        this.maxClients = maxClients;
+        this.timeoutMs = timeoutMs;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, writeTimeoutMs));
+        this.senders = senders;
+        this.ownsSenders = ownsSenders;
+        this.slots = slots;
+        this.evicted = evicted;
+    }
+
+    /**
+     * Pool of daemon sender threads named after the stream: {@code senderThreads}
+     * are kept, and more (up to {@code maxSenderThreads}) are started only while
+     * the others are stuck in blocked writes. Beyond that, drains are refused and
+     * retried on the next broadcast or heartbeat.
+     */
+    public static ExecutorService senderPool(String name, int senderThreads, int maxSenderThreads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        int core = Math.max(1, senderThreads);
+        return new ThreadPoolExecutor(core, Math.max(core, maxSenderThreads), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, name + "-sse-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Connect a client, replaying what it missed since {@code lastEventId} (the
+     * Last-Event-ID header, may be null). Returns null when the broadcaster is full.
+     */
+    public SseEmitter connect(String lastEventId) {
+        return connect(lastEventId, null, null);
+    }
+
+    /**
+     * Connect a client as above, then send it one unnumbered event first (such as a
+     * snapshot of the current state) when {@code initialEvent} is given
+     */
+    public SseEmitter connect(String lastEventId, String initialEvent, String initialData) {
+        if (clients.size() >= maxClients || !slots.tryAcquire()) {
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Client client = new Client(emitter);
+        emitter.onCompletion(() -> remove(client));
+        emitter.onTimeout(() -> disconnect(client));
+        emitter.onError(error -> disconnect(client));
+
+        // Register and snapshot the backlog under the replay lock so no message is missed or sent twice
+        synchronized (replay) {
+            clients.add(client);
+            List<Message> missed = missedSince(lastEventId);
+            if (missed == null || !client.offerAll(missed)) {
+                // A partial replay would leave the client silently missing changes
+                client.queue.clear();
+                client.offer(new Message(null, SseEmitter.event().name(RESET_EVENT).data("{}").build()));
+            }
+            if (initialEvent != null) {
+                client.offer(new Message(null, SseEmitter.event().name(initialEvent).data(initialData).build()));
+            }
+        }
+        schedule(client);
+        return emitter;
+    }
+
+    /**
+     * Send an event with a JSON (or plain text) payload to every connected client
+     */
+    public void broadcast(String eventName, String data) {
+        synchronized (replay) {
+            long id = sequence.incrementAndGet();
+            Message message = new Message(id, SseEmitter.event()
+                    .id(epoch + "-" + id)
+                    .name(eventName)
+                    .data(data)
+                    .build());
+            if (replaySize > 0) {
+                if (replay.size() == replaySize) {
+                    replay.removeFirst();
+                }
+                replay.addLast(message);
+            }
+            long now = System.nanoTime();
+            for (Client client : clients) {
+                if (!client.stalled(now) && client.offer(message)) {
+                    schedule(client);
+                } else {
+                    evict(client);
+                }
+            }
+        }
+    }
+
+    /**
+     * Send a comment line to every client; keeps proxies from closing idle
+     * connections and surfaces dead ones
+     */
+    public void heartbeat() {
+        Message ping = new Message(null, SseEmitter.event().comment("ping").build());
+        long now = System.nanoTime();
+        for (Client client : clients) {
+            if (client.stalled(now)) {
+                evict(client);
+            } else if (!client.queue.isEmpty() || client.offer(ping)) {
+                // A client with a backlog needs no ping, but its drain may have been refused
+                schedule(client);
+            }
+        }
+    }
+
+    public int clientCount() {
+        return clients.size();
+    }
+
+    /**
+     * Disconnect every client and stop the sender threads, unless they are shared
+     */
+    public void shutdown() {
+        for (Client client : clients) {
+            disconnect(client);
+        }
+        if (ownsSenders) {
+            senders.shutdownNow();
+        }
+    }
+
+    /**
+     * Messages after {@code lastEventId}, or null if some of them have already
+     * left the replay buffer or the id is from another epoch. Caller holds the replay lock.
+     */
+    private List<Message> missedSince(String lastEventId) {
+        List<Message> missed = new ArrayList<>();
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return missed;
+        }
+
+        String id = lastEventId.trim();
+        int dash = id.indexOf('-');
+        if (dash < 0 || !id.substring(0, dash).equals(epoch)) {
+            return null;
+        }
+        long lastId;
+        try {
+            lastId = Long.parseLong(id.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (lastId >= sequence.get()) {
+            return lastId == sequence.get() ? missed : null;
+        }
+        if (replay.isEmpty() || replay.peekFirst().id > lastId + 1) {
+            return null;
+        }
+        for (Message message : replay) {
+            if (message.id > lastId) {
+                missed.add(message);
+            }
+        }
+        return missed;
+    }
+
+    private void schedule(Client client) {
+        if (client.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(client));
+            } catch (RejectedExecutionException e) {
+                client.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Client client) {
+        try {
+            Message message;
+            while ((message = client.queue.poll()) != null) {
+                client.sendingSince = System.nanoTime();
+                client.emitter.send(message.data);
+                client.sendingSince = 0;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away (or the emitter already completed)
+            client.sendingSince = 0;
+            disconnect(client);
+            return;
+        } finally {
+            client.draining.set(false);
+        }
+        if (!clients.contains(client)) {
+            // Evicted while this send was stuck; completion was left to us
+            client.complete();
+            return;
+        }
+        // A message may have arrived after the last poll but before the flag was cleared
+        if (!client.queue.isEmpty()) {
+            schedule(client);
+        }
+    }
+
+    private void evict(Client client) {
+        if (clients.contains(client)) {
+            evicted.increment();
+            log.debug("Evicting slow {} stream client", name);
+            disconnect(client);
+        }
+    }
+
+    private void disconnect(Client client) {
+        if (remove(client)) {
+            client.queue.clear();
+            // complete() waits for the emitter's lock, which a stuck send holds; its drain completes it instead
+            if (client.sendingSince == 0) {
+                client.complete();
+            }
+        }
+    }
+
+    private boolean remove(Client client) {
+        if (clients.remove(client)) {
+            slots.release();
+            return true;
+        }
+        return false;
+    }
+
+    private final class Client {
+        private final SseEmitter emitter;
+        private final Queue<Message> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        // nanoTime when the send in flight started, 0 when none is
+        private volatile long sendingSince;
+
+        private Client(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void complete() {
+            if (completed.compareAndSet(false, true)) {
+                emitter.complete();
+            }
+        }
+
+        private boolean stalled(long now) {
+            long since = sendingSince;
+            return since != 0 && now - since > writeTimeoutNanos;
+        }
+
+        private boolean offer(Message message) {
+            return queue.offer(message);
+        }
+
+        /** Offer every message in order; false as soon as one does not fit */
+        private boolean offerAll(List<Message> messages) {
+            if (messages.size() > queueCapacity) {
+                return false;
+            }
+            for (Message message : messages) {
+                if (!queue.offer(message)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** One formatted event, shared by every client it is sent to */
+    private static final class Message {
+        private final Long id;
+        private final Set<ResponseBodyEmitter.DataWithMediaType> data;
+
+        private Message(Long id, Set<ResponseBodyEmitter.DataWithMediaType> data) {
+            this.id = id;
+            this.data = data;
+        }
+    }
+}
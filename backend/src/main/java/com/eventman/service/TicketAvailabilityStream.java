@@ -0,0 +1,239 @@
+package com.eventman.service;
+
+import com.eventman.Ticket;
+import com.eventman.TicketRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Live ticket availability per event over server-sent events. Each watched event
+ * has a channel holding the current quantity and status of its tickets in memory:
+ * subscribers get a {@code snapshot} of it on connect and then {@code availability}
+ * events listing only the tickets that changed, coalesced to at most one per
+ * {@code tickets.availability.flush-ms}.
+ *
+ * {@link TicketChange}s from the ticket write paths only mark tickets dirty:
+ * after-commit listeners of concurrent transactions run in no particular order,
+ * so each flush re-reads a channel's dirty tickets in one query instead of
+ * trusting whichever change arrived last. A busy event page therefore costs one
+ * query when its first viewer arrives and at most one per flush after that,
+ * however many viewers it has. Channels without viewers are dropped on the next
+ * flush and changes to unwatched events are ignored.
+ */
+@Service
+public class TicketAvailabilityStream {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketAvailabilityStream.class);
+
+    private final TicketRepository ticketRepository;
+    private final FlashSaleInventory flashSaleInventory;
+    private final ObjectMapper objectMapper;
+    private final int queueCapacity;
+    private final int maxClients;
+    private final long timeoutMs;
+    private final long writeTimeoutMs;
+    private final ExecutorService senders;
+    private final Semaphore slots;
+    private final Counter evicted;
+
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+
+    public TicketAvailabilityStream(TicketRepository ticketRepository,
+                                    FlashSaleInventory flashSaleInventory,
+                                    ObjectMapper objectMapper,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${tickets.availability.queue-capacity:64}") int queueCapacity,
+                                    @Value("${tickets.availability.max-clients-per-event:10000}") int maxClients,
+                                    @Value("${tickets.availability.max-clients:20000}") int maxTotalClients,
+                                    @Value("${tickets.availability.timeout-ms:1800000}") long timeoutMs,
+                                    @Value("${tickets.availability.write-timeout-ms:10000}") long writeTimeoutMs,
+                                    @Value("${tickets.availability.sender-threads:2}") int senderThreads,
+                                    @Value("${tickets.availability.max-sender-threads:64}") int maxSenderThreads) {
+        this.ticketRepository = ticketRepository;
+        this.flashSaleInventory = flashSaleInventory;
+        this.objectMapper = objectMapper;
+        this.queueCapacity = queueCapacity;
+        this.maxClients = maxClients;
+        this.timeoutMs = timeoutMs;
+        this.writeTimeoutMs = writeTimeoutMs;
+        // Shared by every event's channel, so one stalled viewer never holds up another event's
+        this.senders = SseBroadcaster.senderPool("availability", senderThreads, maxSenderThreads);
+        this.slots = new Semaphore(Math.max(0, maxTotalClients));
+        this.evicted = Counter.builder("tickets.availability.stream.evicted")
+                .description("Availability stream clients disconnected because they fell too far behind")
+                .register(meterRegistry);
+
+        meterRegistry.gauge("tickets.availability.stream.events", channels, Map::size);
+        meterRegistry.gauge("tickets.availability.stream.clients", channels,
+                c -> c.values().stream().mapToInt(channel -> channel.broadcaster.clientCount()).sum());
+    }
+
+    /**
+     * Subscribe to an event's ticket availability; null if the event, or the
+     * stream as a whole, already has as many viewers as allowed. The caller checks
+     * that the event exists.
+     */
+    public SseEmitter subscribe(Long eventId) {
+        while (true) {
+            Channel channel = channels.computeIfAbsent(eventId, Channel::new);
+            synchronized (channel) {
+                if (channel.closed) {
+                    // Dropped by a flush in the meantime; a new one is created on the next pass
+                    continue;
+                }
+                if (!channel.loaded) {
+                    for (Ticket ticket : ticketRepository.findByEventId(eventId)) {
+                        channel.tickets.put(ticket.getId(), current(ticket));
+                    }
+                    channel.loaded = true;
+                }
+                String snapshot = serialize(eventId, new ArrayList<>(channel.tickets.values()));
+                return snapshot != null ? channel.broadcaster.connect(null, "snapshot", snapshot) : null;
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTicketChange(TicketChange change) {
+        Channel channel = change.getEventId() != null ? channels.get(change.getEventId()) : null;
+        if (channel != null) {
+            // Only which ticket changed: its state is read back at the next flush
+            channel.dirty.add(change.getTicketId());
+        }
+    }
+
+    /**
+     * Push each channel's changed tickets as one event, and drop channels nobody watches
+     */
+    @Scheduled(fixedDelayString = "${tickets.availability.flush-ms:500}")
+    public void flush() {
+        for (Channel channel : channels.values()) {
+            synchronized (channel) {
+                if (channel.broadcaster.clientCount() == 0) {
+                    channel.closed = true;
+                    channels.remove(channel.eventId, channel);
+                    channel.broadcaster.shutdown();
+                    continue;
+                }
+                if (channel.dirty.isEmpty()) {
+                    continue;
+                }
+
+                Set<Long> ticketIds = new HashSet<>();
+                for (Long ticketId : channel.dirty) {
+                    // Removed before reading, so a change landing during the read is read again next time
+                    if (channel.dirty.remove(ticketId)) {
+                        ticketIds.add(ticketId);
+                    }
+                }
+                List<TicketChange> changed;
+                try {
+                    changed = reload(channel.eventId, ticketIds);
+                } catch (Exception e) {
+                    channel.dirty.addAll(ticketIds);
+                    log.warn("Failed to read ticket availability of event {}: {}", channel.eventId, e.getMessage());
+                    continue;
+                }
+
+                for (TicketChange change : changed) {
+                    if (change.isRemoved()) {
+                        channel.tickets.remove(change.getTicketId());
+                    } else {
+                        channel.tickets.put(change.getTicketId(), change);
+                    }
+                }
+                String data = serialize(channel.eventId, changed);
+                if (data != null) {
+                    channel.broadcaster.broadcast("availability", data);
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${tickets.availability.heartbeat-ms:15000}")
+    public void heartbeat() {
+        channels.values().forEach(channel -> channel.broadcaster.heartbeat());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        channels.values().forEach(channel -> channel.broadcaster.shutdown());
+        senders.shutdownNow();
+    }
+
+    /**
+     * The current state of the given tickets; those gone or moved to another event count as removed
+     */
+    private List<TicketChange> reload(Long eventId, Set<Long> ticketIds) {
+        Map<Long, TicketChange> current = new HashMap<>();
+        for (Ticket ticket : ticketRepository.findAllById(ticketIds)) {
+            if (eventId.equals(ticket.getEventId())) {
+                current.put(ticket.getId(), current(ticket));
+            }
+        }
+        List<TicketChange> changes = new ArrayList<>();
+        for (Long ticketId : ticketIds) {
+            changes.add(current.getOrDefault(ticketId, TicketChange.removed(ticketId, eventId)));
+        }
+        return changes;
+    }
+
+    private TicketChange current(Ticket ticket) {
+        // A flash sale's row quantity is written behind; the sale itself is current
+        FlashSaleInventory.Sale sale = ticket.isFlashSale() ? flashSaleInventory.sale(ticket.getId()) : null;
+        return TicketChange.of(sale != null ? sale.ticket() : ticket);
+    }
+
+    private String serialize(Long eventId, List<TicketChange> tickets) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("eventId", eventId);
+        payload.put("tickets", tickets);
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize ticket availability of event {}: {}", eventId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Viewers of one event and what they have been told so far
+     */
+    private final class Channel {
+        private final Long eventId;
+        private final SseBroadcaster broadcaster;
+        // Guarded by the channel: the state as last broadcast
+        private final Map<Long, TicketChange> tickets = new LinkedHashMap<>();
+        private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+        private boolean loaded;
+        private boolean closed;
+
+        private Channel(Long eventId) {
+            this.eventId = eventId;
+            // No replay: a reconnecting viewer gets a fresh snapshot instead
+            this.broadcaster = new SseBroadcaster("availability", queueCapacity, 0, maxClients, timeoutMs,
+                    writeTimeoutMs, senders, slots, evicted);
+        }
+    }
+}
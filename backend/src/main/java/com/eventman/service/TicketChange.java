@@ -0,0 +1,42 @@
+package com.eventman.service;
+
+import com.eventman.Ticket;
+
+/**
+ * Published whenever a ticket's availability may have changed (purchases,
+ * holds, flash sales and ticket edits), carrying its state afterwards.
+ * {@code status} and {@code quantityAvailable} are null when the ticket was
+ * deleted or moved to another event.
+ */
+public class TicketChange {
+
+    private final Long ticketId;
+    private final Long eventId;
+    private final Integer quantityAvailable;
+    private final Ticket.TicketStatus status;
+
+    private TicketChange(Long ticketId, Long eventId, Integer quantityAvailable, Ticket.TicketStatus status) {
+        this.ticketId = ticketId;
+        this.eventId = eventId;
+        this.quantityAvailable = quantityAvailable;
+        this.status = status;
+    }
+
+    public static TicketChange of(Ticket ticket) {
+        return new TicketChange(ticket.getId(), ticket.getEventId(), ticket.getQuantityAvailable(), ticket.getStatus());
+    }
+
+    public static TicketChange removed(Long ticketId, Long eventId) {
+        return new TicketChange(ticketId, eventId, null, null);
+    }
+
+    public Long getTicketId() { return ticketId; }
+
+    public Long getEventId() { return eventId; }
+
+    public Integer getQuantityAvailable() { return quantityAvailable; }
+
+    public Ticket.TicketStatus getStatus() { return status; }
+
+    public boolean isRemoved() { return status == null; }
+}
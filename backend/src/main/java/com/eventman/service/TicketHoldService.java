@@ -0,0 +1,273 @@
+package com.eventman.service;
+
+import com.eventman.Payment;
+import com.eventman.PaymentRepository;
+import com.eventman.Ticket;
+import com.eventman.TicketHold;
+import com.eventman.TicketHoldRepository;
+import com.eventman.TicketRepository;
+import com.eventman.User;
+import com.eventman.service.TicketInventoryService.Purchase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time-limited holds on ticket inventory, so a buyer keeps their seats while
+ * paying. Creating a hold takes the units with the same conditional UPDATE as a
+ * purchase; confirming it records the payment, releasing or expiring it gives
+ * the units back.
+ *
+ * Expiry is driven by a {@link TimingWheel}: each hold is one O(1) timeout and
+ * nothing polls the database. The ticket_holds table only backs the wheel, so
+ * pending holds are re-armed from it on startup (those that expired meanwhile
+ * are returned on the first tick). Whichever of confirm, release and expiry
+ * deletes the hold row first acts on the units, so they are never returned twice.
+ */
+@Service
+public class TicketHoldService {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketHoldService.class);
+
+    private final TicketRepository ticketRepository;
+    private final TicketHoldRepository ticketHoldRepository;
+    private final PaymentRepository paymentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long ttlMs;
+    private final int batchSize;
+
+    private final TimingWheel<TicketHold> expiries;
+    private final Map<Long, TimingWheel.Timeout<TicketHold>> armed = new ConcurrentHashMap<>();
+
+    public TicketHoldService(TicketRepository ticketRepository,
+                             TicketHoldRepository ticketHoldRepository,
+                             PaymentRepository paymentRepository,
+                             TransactionTemplate transactionTemplate,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${tickets.holds.ttl-ms:600000}") long ttlMs,
+                             @Value("${tickets.holds.tick-ms:1000}") long tickMs,
+                             @Value("${tickets.holds.batch-size:500}") int batchSize) {
+        this.ticketRepository = ticketRepository;
+        this.ticketHoldRepository = ticketHoldRepository;
+        this.paymentRepository = paymentRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.ttlMs = ttlMs;
+        this.batchSize = Math.max(1, batchSize);
+        this.expiries = new TimingWheel<>(tickMs, System.currentTimeMillis());
+    }
+
+    /** Result of a hold attempt */
+    public static final class Reservation {
+
+        public enum Outcome {
+            HELD, TICKET_NOT_FOUND, NOT_ON_SALE, INSUFFICIENT_QUANTITY
+        }
+
+        private final Outcome outcome;
+        private final TicketHold hold;
+        private final Ticket ticket;
+
+        private Reservation(Outcome outcome, TicketHold hold, Ticket ticket) {
+            this.outcome = outcome;
+            this.hold = hold;
+            this.ticket = ticket;
+        }
+
+        public Outcome getOutcome() { return outcome; }
+
+        /** The created hold; null unless held */
+        public TicketHold getHold() { return hold; }
+
+        /** The ticket after the hold (or as found, if it failed); null if not found */
+        public Ticket getTicket() { return ticket; }
+    }
+
+    /**
+     * Take {@code quantity} of a ticket for a user until the hold TTL runs out
+     */
+    public Reservation hold(Long ticketId, int quantity, User buyer) {
+        Instant expiresAt = Instant.now().plusMillis(ttlMs);
+        Reservation reservation = transactionTemplate.execute(status -> {
+            int updated = ticketRepository.decrementAvailable(ticketId, quantity,
+                    Ticket.TicketStatus.ACTIVE, Ticket.TicketStatus.SOLD_OUT);
+
+            Optional<Ticket> ticket = ticketRepository.findById(ticketId);
+            if (ticket.isEmpty()) {
+                return new Reservation(Reservation.Outcome.TICKET_NOT_FOUND, null, null);
+            }
+            if (updated == 0) {
+                Reservation.Outcome outcome = TicketInventoryService.unavailable(ticket.get()) == Purchase.Outcome.NOT_ON_SALE
+                        ? Reservation.Outcome.NOT_ON_SALE
+                        : Reservation.Outcome.INSUFFICIENT_QUANTITY;
+                return new Reservation(outcome, null, ticket.get());
+            }
+
+            TicketHold hold = ticketHoldRepository.save(new TicketHold(ticketId, buyer.getId(), quantity, expiresAt));
+            eventPublisher.publishEvent(TicketChange.of(ticket.get()));
+            return new Reservation(Reservation.Outcome.HELD, hold, ticket.get());
+        });
+
+        if (reservation.getOutcome() == Reservation.Outcome.HELD) {
+            arm(reservation.getHold());
+        }
+        return reservation;
+    }
+
+    /**
+     * Pay for a hold: the held units become a completed payment. Fails with
+     * HOLD_NOT_FOUND if the hold is not the user's or has already expired.
+     */
+    public Purchase confirm(Long holdId, User buyer, Payment.PaymentMethod paymentMethod, String notes) {
+        Purchase purchase = transactionTemplate.execute(status -> {
+            Optional<TicketHold> hold = ownHold(holdId, buyer);
+            // A hold past its deadline is expired even if the wheel has not swept it yet
+            if (hold.isEmpty() || !hold.get().getExpiresAt().isAfter(Instant.now())
+                    || ticketHoldRepository.deleteHold(holdId) == 0) {
+                return new Purchase(Purchase.Outcome.HOLD_NOT_FOUND, null, null);
+            }
+
+            Optional<Ticket> ticket = ticketRepository.findById(hold.get().getTicketId());
+            if (ticket.isEmpty()) {
+                return new Purchase(Purchase.Outcome.TICKET_NOT_FOUND, null, null);
+            }
+            Payment payment = paymentRepository.save(TicketInventoryService.payment(ticket.get(),
+                    hold.get().getQuantity(), buyer, paymentMethod, notes));
+            return new Purchase(Purchase.Outcome.PURCHASED, payment, ticket.get());
+        });
+
+        if (purchase.getOutcome() != Purchase.Outcome.HOLD_NOT_FOUND) {
+            disarm(holdId);
+        }
+        return purchase;
+    }
+
+    /**
+     * Give a user's hold back before it expires. Returns false if there was no such hold.
+     */
+    public boolean release(Long holdId, User buyer) {
+        Boolean released = transactionTemplate.execute(status -> {
+            Optional<TicketHold> hold = ownHold(holdId, buyer);
+            if (hold.isEmpty() || !returnUnits(hold.get())) {
+                return false;
+            }
+            publishReturned(Set.of(hold.get().getTicketId()));
+            return true;
+        });
+
+        if (Boolean.TRUE.equals(released)) {
+            disarm(holdId);
+            return true;
+        }
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${tickets.holds.tick-ms:1000}")
+    public void tick() {
+        List<TicketHold> due = new ArrayList<>();
+        expiries.advance(System.currentTimeMillis(), hold -> {
+            armed.remove(hold.getId());
+            due.add(hold);
+        });
+
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<TicketHold> batch = due.subList(from, Math.min(due.size(), from + batchSize));
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    Set<Long> ticketIds = new HashSet<>();
+                    for (TicketHold hold : batch) {
+                        if (returnUnits(hold)) {
+                            ticketIds.add(hold.getTicketId());
+                        }
+                    }
+                    publishReturned(ticketIds);
+                });
+            } catch (Exception e) {
+                // Already due, so re-arming retries them on the next tick
+                batch.forEach(this::arm);
+                log.warn("Failed to expire ticket holds: {}", e.getMessage());
+            }
+        }
+        if (!due.isEmpty()) {
+            log.debug("Expired {} ticket holds", due.size());
+        }
+    }
+
+    /**
+     * Re-arm every pending hold from the ticket_holds table, in id order and batches
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        try {
+            long afterId = 0;
+            int loaded = 0;
+            while (true) {
+                List<TicketHold> holds = ticketHoldRepository.findByIdGreaterThanOrderByIdAsc(afterId,
+                        PageRequest.of(0, batchSize));
+                if (holds.isEmpty()) {
+                    break;
+                }
+                holds.forEach(this::arm);
+                loaded += holds.size();
+                afterId = holds.get(holds.size() - 1).getId();
+            }
+            if (loaded > 0) {
+                log.info("Re-armed {} ticket holds", loaded);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to recover ticket holds: {}", e.getMessage());
+        }
+    }
+
+    private Optional<TicketHold> ownHold(Long holdId, User buyer) {
+        return ticketHoldRepository.findById(holdId).filter(hold -> hold.getUserId().equals(buyer.getId()));
+    }
+
+    /**
+     * Delete the hold and put its units back on the ticket, unless someone else
+     * already deleted it
+     */
+    private boolean returnUnits(TicketHold hold) {
+        if (ticketHoldRepository.deleteHold(hold.getId()) == 0) {
+            return false;
+        }
+        ticketRepository.returnAvailable(hold.getTicketId(), hold.getQuantity(),
+                Ticket.TicketStatus.ACTIVE, Ticket.TicketStatus.SOLD_OUT);
+        return true;
+    }
+
+    /**
+     * Announce the availability of tickets that got units back; one read per batch
+     */
+    private void publishReturned(Set<Long> ticketIds) {
+        if (!ticketIds.isEmpty()) {
+            ticketRepository.findAllById(ticketIds).forEach(ticket -> eventPublisher.publishEvent(TicketChange.of(ticket)));
+        }
+    }
+
+    private void arm(TicketHold hold) {
+        TimingWheel.Timeout<TicketHold> timeout = expiries.schedule(hold, hold.getExpiresAt().toEpochMilli());
+        expiries.cancel(armed.put(hold.getId(), timeout));
+    }
+
+    private void disarm(Long holdId) {
+        expiries.cancel(armed.remove(holdId));
+    }
+}
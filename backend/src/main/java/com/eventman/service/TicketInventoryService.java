@@ -0,0 +1,159 @@
+package com.eventman.service;
+
+import com.eventman.Payment;
+import com.eventman.PaymentRepository;
+import com.eventman.Ticket;
+import com.eventman.TicketRepository;
+import com.eventman.User;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Ticket purchases that cannot oversell. Inventory is taken with a single
+ * conditional UPDATE ({@code quantity_available >= n}), so the database row lock
+ * serializes concurrent buyers without a read-modify-write; the payment is
+ * recorded in the same short transaction. Tickets in flash-sale mode are sold
+ * from {@link FlashSaleInventory} instead of the ticket row.
+ */
+@Service
+public class TicketInventoryService {
+
+    private final TicketRepository ticketRepository;
+    private final PaymentRepository paymentRepository;
+    private final FlashSaleInventory flashSaleInventory;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public TicketInventoryService(TicketRepository ticketRepository, PaymentRepository paymentRepository,
+                                  FlashSaleInventory flashSaleInventory, ApplicationEventPublisher eventPublisher) {
+        this.ticketRepository = ticketRepository;
+        this.paymentRepository = paymentRepository;
+        this.flashSaleInventory = flashSaleInventory;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /** Result of a purchase attempt */
+    public static final class Purchase {
+
+        public enum Outcome {
+            PURCHASED, TICKET_NOT_FOUND, NOT_ON_SALE, INSUFFICIENT_QUANTITY,
+            // Confirming a hold that expired, was released or belongs to someone else
+            HOLD_NOT_FOUND
+        }
+
+        private final Outcome outcome;
+        private final Payment payment;
+        private final Ticket ticket;
+
+        Purchase(Outcome outcome, Payment payment, Ticket ticket) {
+            this.outcome = outcome;
+            this.payment = payment;
+            this.ticket = ticket;
+        }
+
+        public Outcome getOutcome() { return outcome; }
+
+        /** The recorded payment; null unless purchased */
+        public Payment getPayment() { return payment; }
+
+        /** The ticket after the purchase (or as found, if it failed); null if not found */
+        public Ticket getTicket() { return ticket; }
+    }
+
+    /**
+     * Buy {@code quantity} of a ticket for a user: decrement inventory, flip the
+     * ticket to SOLD_OUT at zero and record a completed payment, all or nothing
+     */
+    @Transactional
+    public Purchase purchase(Long ticketId, int quantity, User buyer, Payment.PaymentMethod paymentMethod, String notes) {
+        FlashSaleInventory.Sale sale = flashSaleInventory.sale(ticketId);
+        if (sale != null) {
+            return purchaseFromSale(sale, quantity, buyer, paymentMethod, notes);
+        }
+
+        int updated = ticketRepository.decrementAvailable(ticketId, quantity,
+                Ticket.TicketStatus.ACTIVE, Ticket.TicketStatus.SOLD_OUT);
+
+        Optional<Ticket> ticket = ticketRepository.findById(ticketId);
+        if (ticket.isEmpty()) {
+            return new Purchase(Purchase.Outcome.TICKET_NOT_FOUND, null, null);
+        }
+        if (updated == 0) {
+            return new Purchase(unavailable(ticket.get()), null, ticket.get());
+        }
+
+        Payment payment = paymentRepository.save(payment(ticket.get(), quantity, buyer, paymentMethod, notes));
+        // Delivered once the transaction commits
+        eventPublisher.publishEvent(TicketChange.of(ticket.get()));
+        return new Purchase(Purchase.Outcome.PURCHASED, payment, ticket.get());
+    }
+
+    /**
+     * Flash-sale purchase: the units come from the in-memory sale, so the only
+     * statement is the payment INSERT. The units stay in flight until the
+     * transaction completes, so ending the sale waits until the payment is
+     * visible to the quantity it writes back.
+     */
+    private Purchase purchaseFromSale(FlashSaleInventory.Sale sale, int quantity, User buyer,
+                                      Payment.PaymentMethod paymentMethod, String notes) {
+        if (!sale.take(quantity)) {
+            return new Purchase(Purchase.Outcome.INSUFFICIENT_QUANTITY, null, sale.ticket());
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // An unknown outcome counts as sold: the payment may exist, and overselling is worse
+                if (status == STATUS_ROLLED_BACK) {
+                    sale.giveBack(quantity);
+                } else {
+                    sale.commit(quantity);
+                }
+            }
+        });
+
+        Payment payment = paymentRepository.save(payment(sale.ticket(), quantity, buyer, paymentMethod, notes));
+        Ticket ticket = sale.ticket();
+        eventPublisher.publishEvent(TicketChange.of(ticket));
+        return new Purchase(Purchase.Outcome.PURCHASED, payment, ticket);
+    }
+
+    /**
+     * Why a conditional decrement of this ticket matched nothing. A flash-sale
+     * ticket whose sale is not loaded (yet) is not on sale either.
+     */
+    static Purchase.Outcome unavailable(Ticket ticket) {
+        return ticket.getStatus() == Ticket.TicketStatus.ACTIVE && !ticket.isFlashSale()
+                ? Purchase.Outcome.INSUFFICIENT_QUANTITY
+                : Purchase.Outcome.NOT_ON_SALE;
+    }
+
+    static Payment payment(Ticket ticket, int quantity, User buyer, Payment.PaymentMethod paymentMethod,
+                                   String notes) {
+        Payment payment = new Payment();
+        payment.setAmount(ticket.getPrice() * quantity);
+        payment.setCurrency(ticket.getCurrency() != null ? ticket.getCurrency() : "USD");
+        // Payment processing is simulated (see PaymentController.processPayment), so it completes immediately
+        payment.setStatus(Payment.PaymentStatus.COMPLETED);
+        payment.setPaymentMethod(paymentMethod);
+        payment.setTransactionId("TXN_" + UUID.randomUUID());
+        payment.setUserId(buyer.getId());
+        payment.setUserEmail(buyer.getEmail());
+        payment.setEventId(ticket.getEventId());
+        payment.setEventName(ticket.getEventName());
+        payment.setTicketId(ticket.getId());
+        payment.setTicketName(ticket.getName());
+        payment.setQuantity(quantity);
+        payment.setNotes(notes);
+
+        String now = LocalDateTime.now().toString();
+        payment.setCreatedAt(now);
+        payment.setUpdatedAt(now);
+        return payment;
+    }
+}
@@ -0,0 +1,188 @@
+package com.eventman.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel (Varghese &amp; Lauck). Scheduling and cancelling a
+ * timeout are O(1); advancing the clock costs O(1) per tick plus O(1) per timeout
+ * that expires or cascades to a finer level. Nothing is ever scanned.
+ *
+ * The wheel has no thread of its own: the owner calls {@link #advance} from a
+ * scheduled task, usually once per tick. All methods are synchronized on the wheel.
+ */
+public class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMs;
+    private final Bucket<T>[][] buckets;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMs, long startMillis) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("tickMs must be positive");
+        }
+        this.tickMs = tickMs;
+        this.currentTick = startMillis / tickMs;
+        this.buckets = (Bucket<T>[][]) new Bucket<?>[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                buckets[level][slot] = new Bucket<>();
+            }
+        }
+    }
+
+    /**
+     * Schedule an item to expire at the given wall-clock time. Items that are
+     * already due expire on the next call to {@link #advance}.
+     */
+    public synchronized Timeout<T> schedule(T item, long deadlineMillis) {
+        long expirationTick = Math.max((deadlineMillis + tickMs - 1) / tickMs, currentTick + 1);
+        Timeout<T> timeout = new Timeout<>(item, expirationTick);
+        insert(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Cancel a pending timeout. Returns false if it already expired or was cancelled.
+     */
+    public synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout == null || timeout.bucket == null) {
+            return false;
+        }
+        timeout.bucket.remove(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Move the clock forward to {@code nowMillis} and hand every expired item to the consumer
+     */
+    public void advance(long nowMillis, Consumer<T> onExpired) {
+        List<T> expired = new ArrayList<>();
+        synchronized (this) {
+            long targetTick = nowMillis / tickMs;
+            if (size == 0) {
+                currentTick = Math.max(currentTick, targetTick);
+                return;
+            }
+
+            while (currentTick < targetTick) {
+                currentTick++;
+                cascade();
+
+                Bucket<T> due = buckets[0][(int) (currentTick & SLOT_MASK)];
+                for (Timeout<T> timeout = due.head; timeout != null; timeout = due.head) {
+                    due.remove(timeout);
+                    size--;
+                    expired.add(timeout.item);
+                }
+
+                if (size == 0) {
+                    currentTick = targetTick;
+                }
+            }
+        }
+
+        // Run callbacks outside the lock so they may schedule new timeouts
+        for (T item : expired) {
+            onExpired.accept(item);
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Whenever a coarser level's slot boundary is reached, redistribute that slot's
+     * timeouts into finer levels. Highest level first, so entries cascade all the
+     * way down within the same tick.
+     */
+    private void cascade() {
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            long levelMask = (1L << (SLOT_BITS * level)) - 1;
+            if ((currentTick & levelMask) != 0) {
+                continue;
+            }
+
+            Bucket<T> bucket = buckets[level][(int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK)];
+            for (Timeout<T> timeout = bucket.head; timeout != null; timeout = bucket.head) {
+                bucket.remove(timeout);
+                insert(timeout);
+            }
+        }
+    }
+
+    private void insert(Timeout<T> timeout) {
+        long delta = timeout.expirationTick - currentTick;
+        long tick = timeout.expirationTick;
+
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+
+        // Beyond the top level's range: park it as far out as possible, it will cascade back here
+        long topRange = 1L << (SLOT_BITS * LEVELS);
+        if (delta >= topRange) {
+            tick = currentTick + topRange - (1L << (SLOT_BITS * (LEVELS - 1)));
+        }
+
+        buckets[level][(int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK)].add(timeout);
+    }
+
+    /**
+     * Handle to a scheduled item
+     */
+    public static final class Timeout<T> {
+        private final T item;
+        private final long expirationTick;
+        private Bucket<T> bucket;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(T item, long expirationTick) {
+            this.item = item;
+            this.expirationTick = expirationTick;
+        }
+
+        public T getItem() { return item; }
+    }
+
+    private static final class Bucket<T> {
+        private Timeout<T> head;
+
+        private void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        private void remove(Timeout<T> timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.eventman.service;
+
+import com.eventman.VerificationCode;
+import com.eventman.VerificationCodeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Expiring store of email verification codes with per-email attempt counters.
+ *
+ * Codes live in memory and expire through a {@link TimingWheel}, so expired
+ * codes are evicted without scanning any table. When
+ * {@code verification.codes.persist} is enabled (the default), codes are also
+ * written through to {@code verification_codes}, reloaded on startup and read
+ * from there whenever this node does not hold the submitted code, so a code
+ * issued by another node or before a restart still verifies. The {@code users}
+ * row is only written once verification succeeds.
+ */
+@Service
+public class VerificationCodeStore {
+
+    private static final Logger log = LoggerFactory.getLogger(VerificationCodeStore.class);
+
+    public enum Result {
+        VERIFIED, INVALID, EXPIRED, TOO_MANY_ATTEMPTS, NOT_FOUND
+    }
+
+    private final VerificationService verificationService;
+    private final VerificationCodeRepository verificationCodeRepository;
+    private final long ttlMs;
+    private final int maxAttempts;
+    private final boolean persist;
+
+    private final Map<String, Entry> codes = new ConcurrentHashMap<>();
+    private final TimingWheel<Entry> expiries;
+
+    public VerificationCodeStore(VerificationService verificationService,
+                                 VerificationCodeRepository verificationCodeRepository,
+                                 @Value("${verification.codes.ttl-ms:900000}") long ttlMs,
+                                 @Value("${verification.codes.max-attempts:5}") int maxAttempts,
+                                 @Value("${verification.codes.persist:true}") boolean persist) {
+        this.verificationService = verificationService;
+        this.verificationCodeRepository = verificationCodeRepository;
+        this.ttlMs = ttlMs;
+        this.maxAttempts = maxAttempts;
+        this.persist = persist;
+        this.expiries = new TimingWheel<>(1000, System.currentTimeMillis());
+    }
+
+    /**
+     * Generate a fresh code for an email, replacing any previous one
+     */
+    public String issue(String email) {
+        String key = normalize(email);
+        String code = verificationService.generateVerificationCode();
+        Entry entry = new Entry(key, code, System.currentTimeMillis() + ttlMs);
+
+        Entry previous = codes.put(key, entry);
+        if (previous != null) {
+            expiries.cancel(previous.timeout);
+        }
+        entry.timeout = expiries.schedule(entry, entry.expiresAtMillis);
+
+        if (persist) {
+            verificationCodeRepository.save(entry.toEntity());
+        }
+        return code;
+    }
+
+    /**
+     * Check a submitted code. A correct code is consumed; after too many wrong
+     * attempts the code is discarded and a new one must be requested.
+     */
+    public Result verify(String email, String code) {
+        String key = normalize(email);
+        Entry entry = codes.get(key);
+        if (persist && (entry == null || !matches(entry.code, code))) {
+            // The table is authoritative: the code may have been issued, re-issued or spent elsewhere
+            entry = reload(key, entry);
+        }
+        if (entry == null) {
+            return Result.NOT_FOUND;
+        }
+
+        synchronized (entry) {
+            if (System.currentTimeMillis() >= entry.expiresAtMillis) {
+                discard(entry);
+                return Result.EXPIRED;
+            }
+
+            if (matches(entry.code, code)) {
+                discard(entry);
+                return Result.VERIFIED;
+            }
+
+            entry.attempts++;
+            if (entry.attempts >= maxAttempts) {
+                discard(entry);
+                return Result.TOO_MANY_ATTEMPTS;
+            }
+
+            if (persist) {
+                verificationCodeRepository.save(entry.toEntity());
+            }
+            return Result.INVALID;
+        }
+    }
+
+    /**
+     * Drop any pending code for an email
+     */
+    public void remove(String email) {
+        Entry entry = codes.get(normalize(email));
+        if (entry != null) {
+            discard(entry);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPersistedCodes() {
+        if (!persist) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        List<String> expired = new ArrayList<>();
+        for (VerificationCode stored : verificationCodeRepository.findAll()) {
+            long expiresAt = stored.getExpiresAt().toEpochMilli();
+            if (expiresAt <= now) {
+                expired.add(stored.getEmail());
+                continue;
+            }
+
+            Entry entry = new Entry(stored.getEmail(), stored.getCode(), expiresAt);
+            entry.attempts = stored.getAttempts();
+            codes.put(entry.email, entry);
+            entry.timeout = expiries.schedule(entry, expiresAt);
+        }
+
+        if (!expired.isEmpty()) {
+            verificationCodeRepository.deleteAllById(expired);
+        }
+        log.info("Loaded {} pending verification codes", codes.size());
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void evictExpired() {
+        List<String> expired = new ArrayList<>();
+        expiries.advance(System.currentTimeMillis(), entry -> {
+            if (codes.remove(entry.email, entry)) {
+                expired.add(entry.email);
+            }
+        });
+
+        if (persist && !expired.isEmpty()) {
+            try {
+                verificationCodeRepository.deleteAllById(expired);
+            } catch (Exception e) {
+                log.warn("Failed to delete expired verification codes: {}", e.getMessage());
+            }
+        }
+    }
+
+    public int size() {
+        return codes.size();
+    }
+
+    private void discard(Entry entry) {
+        if (codes.remove(entry.email, entry)) {
+            expiries.cancel(entry.timeout);
+            if (persist) {
+                verificationCodeRepository.deleteById(entry.email);
+            }
+        }
+    }
+
+    /**
+     * The stored row for an email, replacing the cached entry if it differs; null if there is none
+     */
+    private Entry reload(String key, Entry cached) {
+        Optional<VerificationCode> stored = verificationCodeRepository.findById(key);
+        if (stored.isEmpty()) {
+            if (cached != null && codes.remove(key, cached)) {
+                expiries.cancel(cached.timeout);
+            }
+            return null;
+        }
+        if (cached != null && cached.code.equals(stored.get().getCode())) {
+            return cached;
+        }
+
+        Entry entry = new Entry(key, stored.get().getCode(), stored.get().getExpiresAt().toEpochMilli());
+        entry.attempts = stored.get().getAttempts();
+        Entry previous = codes.put(key, entry);
+        if (previous != null) {
+            expiries.cancel(previous.timeout);
+        }
+        entry.timeout = expiries.schedule(entry, entry.expiresAtMillis);
+        return entry;
+    }
+
+    /**
+     * Constant-time comparison, so response timing does not reveal how much of a guess was right
+     */
+    public static boolean matches(String expected, String submitted) {
+        return submitted != null && MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                submitted.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Entry {
+        private final String email;
+        private final String code;
+        private final long expiresAtMillis;
+        private int attempts;
+        private TimingWheel.Timeout<Entry> timeout;
+
+        private Entry(String email, String code, long expiresAtMillis) {
+            this.email = email;
+            this.code = code;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        private VerificationCode toEntity() {
+            return new VerificationCode(email, code, Instant.ofEpochMilli(expiresAtMillis), attempts);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.eventman.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for hot on-sales. While an event's waiting room is open,
+ * buyers join a queue and get an HMAC-signed token carrying their sequence
+ * number; a scheduled task moves the admission watermark forward at the room's
+ * rate, and tokens at or below it may buy. Tokens also carry the room's random
+ * epoch, so a token from a room that was closed and reopened does not carry its
+ * old place into the new queue.
+ *
+ * A room is two AtomicLongs (last sequence handed out, last admitted) plus a
+ * map so a user who joins twice keeps their place. Checking a position only
+ * verifies the token and reads the watermark: no lock, no database, no user lookup.
+ *
+ * Rooms are node-local, like the other in-memory structures of this service;
+ * tokens verify on any node sharing {@code events.waiting-room.secret}.
+ */
+@Service
+public class WaitingRoomService {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitingRoomService.class);
+
+    private static final String HMAC = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final long tokenTtlMs;
+    private final long minPollMs;
+    private final long maxPollMs;
+    private final ThreadLocal<Mac> macs;
+
+    private final Map<Long, Room> rooms = new ConcurrentHashMap<>();
+
+    public WaitingRoomService(@Value("${events.waiting-room.secret:}") String secret,
+                              @Value("${events.waiting-room.token-ttl-ms:7200000}") long tokenTtlMs,
+                              @Value("${events.waiting-room.min-poll-ms:2000}") long minPollMs,
+                              @Value("${events.waiting-room.max-poll-ms:30000}") long maxPollMs) {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            log.info("No waiting room secret configured; queue tokens are only valid on this node until restart");
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, HMAC);
+        this.tokenTtlMs = tokenTtlMs;
+        this.minPollMs = minPollMs;
+        this.maxPollMs = Math.max(minPollMs, maxPollMs);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 unavailable", e);
+            }
+        });
+    }
+
+    /**
+     * Open (or re-rate) an event's waiting room, admitting {@code admitPerSecond} buyers per second
+     */
+    public Room open(Long eventId, int admitPerSecond) {
+        Room room = rooms.computeIfAbsent(eventId, id -> new Room(admitPerSecond, System.currentTimeMillis()));
+        room.admitPerSecond = admitPerSecond;
+        log.info("Waiting room open for event {} admitting {} per second", eventId, admitPerSecond);
+        return room;
+    }
+
+    /**
+     * Close an event's waiting room; everyone may buy again. Returns false if it was not open.
+     */
+    public boolean close(Long eventId) {
+        Room room = rooms.remove(eventId);
+        if (room != null) {
+            log.info("Waiting room closed for event {} after {} joined", eventId, room.joined.get());
+        }
+        return room != null;
+    }
+
+    public boolean hasOpenRooms() {
+        return !rooms.isEmpty();
+    }
+
+    public boolean isOpen(Long eventId) {
+        return rooms.containsKey(eventId);
+    }
+
+    /**
+     * Put a user in an event's queue (or find their existing place) and sign a token
+     * for it. Returns null if the event has no open waiting room.
+     */
+    public Position join(Long eventId, String subject) {
+        Room room = rooms.get(eventId);
+        if (room == null) {
+            return null;
+        }
+        long sequence = room.join(subject);
+        return position(room, sequence, sign(eventId, room.epoch, sequence, subject, System.currentTimeMillis()));
+    }
+
+    /**
+     * Where a token stands in its event's queue, or null if the token is invalid,
+     * expired, for another event or from an earlier opening of the room. A closed
+     * room admits everyone.
+     */
+    public Position status(Long eventId, String token) {
+        QueueToken parsed = verify(token);
+        if (parsed == null || parsed.eventId != eventId) {
+            return null;
+        }
+        Room room = rooms.get(eventId);
+        if (room == null) {
+            return new Position(0, true, 0, null);
+        }
+        return parsed.epoch == room.epoch ? position(room, parsed.sequence, null) : null;
+    }
+
+    /**
+     * Whether a user may enter the purchase flow for an event: always when no room
+     * is open, otherwise only with a valid token of theirs that has been admitted
+     */
+    public boolean isAdmitted(Long eventId, String subject, String token) {
+        Room room = rooms.get(eventId);
+        if (room == null) {
+            return true;
+        }
+        QueueToken parsed = verify(token);
+        return parsed != null && parsed.eventId == eventId && parsed.epoch == room.epoch
+                && parsed.subject.equals(subject) && parsed.sequence <= room.admitted.get();
+    }
+
+    @Scheduled(fixedRateString = "${events.waiting-room.admit-interval-ms:100}")
+    public void admit() {
+        long now = System.currentTimeMillis();
+        rooms.values().forEach(room -> room.admit(now));
+    }
+
+    private Position position(Room room, long sequence, String token) {
+        long ahead = Math.max(0, sequence - room.admitted.get());
+        // Poll about four times over the expected wait, so polling load shrinks as the queue grows
+        long waitMs = ahead * 1000 / Math.max(1, room.admitPerSecond);
+        long retryAfterMs = Math.min(maxPollMs, Math.max(minPollMs, waitMs / 4));
+        return new Position(ahead, ahead == 0, ahead == 0 ? 0 : retryAfterMs, token);
+    }
+
+    private String sign(long eventId, long epoch, long sequence, String subject, long issuedAt) {
+        byte[] payload = (eventId + ":" + epoch + ":" + sequence + ":" + issuedAt + ":" + subject)
+                .getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(macs.get().doFinal(payload));
+    }
+
+    private QueueToken verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        try {
+            byte[] payload = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, macs.get().doFinal(payload))) {
+                return null;
+            }
+
+            String[] parts = new String(payload, StandardCharsets.UTF_8).split(":", 5);
+            if (parts.length != 5 || System.currentTimeMillis() - Long.parseLong(parts[3]) > tokenTtlMs) {
+                return null;
+            }
+            return new QueueToken(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                    parts[4]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A user's place in a queue
+     */
+    public static final class Position {
+        private final long ahead;
+        private final boolean admitted;
+        private final long retryAfterMs;
+        private final String token;
+
+        private Position(long ahead, boolean admitted, long retryAfterMs, String token) {
+            this.ahead = ahead;
+            this.admitted = admitted;
+            this.retryAfterMs = retryAfterMs;
+            this.token = token;
+        }
+
+        /** Buyers still to be admitted before this one; 0 once admitted */
+        public long getAhead() { return ahead; }
+
+        public boolean isAdmitted() { return admitted; }
+
+        /** When the client should check again; 0 once admitted */
+        public long getRetryAfterMs() { return retryAfterMs; }
+
+        /** The signed queue token; only set when joining */
+        public String getToken() { return token; }
+    }
+
+    /**
+     * The queue of one event
+     */
+    public static final class Room {
+        // Sequences restart at 1 in every room, so tokens are bound to the room that issued them
+        private final long epoch = ThreadLocalRandom.current().nextLong();
+        private final AtomicLong joined = new AtomicLong();
+        private final AtomicLong admitted = new AtomicLong();
+        private final Map<String, Long> sequences = new ConcurrentHashMap<>();
+        private volatile int admitPerSecond;
+
+        // Only touched by the admitting task
+        private double credit;
+        private long lastAdmitMillis;
+
+        private Room(int admitPerSecond, long now) {
+            this.admitPerSecond = admitPerSecond;
+            this.lastAdmitMillis = now;
+        }
+
+        public long getJoined() { return joined.get(); }
+
+        public long getAdmitted() { return admitted.get(); }
+
+        public int getAdmitPerSecond() { return admitPerSecond; }
+
+        private long join(String subject) {
+            Long existing = sequences.get(subject);
+            if (existing != null) {
+                return existing;
+            }
+            long sequence = joined.incrementAndGet();
+            // A lost race leaves a gap in the sequence, which is simply admitted with its neighbours
+            Long raced = sequences.putIfAbsent(subject, sequence);
+            return raced != null ? raced : sequence;
+        }
+
+        /**
+         * Move the watermark forward by the rate times the elapsed time. Unused
+         * credit is capped at one second's worth, so an idle room lets at most
+         * that many arrivals straight through.
+         */
+        private void admit(long now) {
+            int rate = admitPerSecond;
+            credit = Math.min(rate, credit + rate * (now - lastAdmitMillis) / 1000.0);
+            lastAdmitMillis = now;
+
+            long current = admitted.get();
+            long target = Math.min(joined.get(), current + (long) credit);
+            if (target > current) {
+                admitted.set(target);
+                credit -= target - current;
+            }
+        }
+    }
+
+    private static final class QueueToken {
+        private final long eventId;
+        private final long epoch;
+        private final long sequence;
+        private final String subject;
+
+        private QueueToken(long eventId, long epoch, long sequence, String subject) {
+            this.eventId = eventId;
+            this.epoch = epoch;
+            this.sequence = sequence;
+            this.subject = subject;
+        }
+    }
+}
@@ -15,15 +15,15 @@ INSERT INTO users (email, name, password, phone, role, created_at) VALUES
 ('lisa@example.com', 'Lisa Davis', '$2a$10$92IXUNpkjO0rOQ5byMi.Ye4oKoEa3Ro9llC/.og/at2.uheWG/igi', '+91-9876543218', 'ATTENDEE', '2024-09-09T10:00:00Z');
 
 -- Insert Events
-INSERT INTO events (name, description, location, start_date_time, end_date_time, capacity, price, currency, type, category, tags, status, organizer_id, organizer_name, created_at) VALUES
-('Diwali Festival Celebration', 'Grand Diwali festival celebration with traditional dances, music, and fireworks. Experience the festival of lights with authentic Indian cultural performances.', 'Jawaharlal Nehru Stadium, Delhi', '2024-11-12T18:00:00Z', '2024-11-12T23:00:00Z', 5000, 1500.00, 'INR', 'FESTIVAL', 'Cultural', 'diwali,festival,cultural,traditional,lights', 'ACTIVE', 2, 'Priya Patel', '2024-09-15T10:00:00Z'),
-('TechCrunch Mumbai 2024', 'Leading technology conference featuring AI, blockchain, and startup innovations. Network with industry leaders and discover cutting-edge technologies.', 'Bombay Exhibition Centre, Mumbai', '2024-10-25T09:00:00Z', '2024-10-25T18:00:00Z', 1200, 8500.00, 'INR', 'CONFERENCE', 'Technology', 'tech,ai,blockchain,startups,innovation', 'ACTIVE', 3, 'Amit Singh', '2024-09-16T10:00:00Z'),
-('Traditional South Indian Wedding', 'Elegant South Indian wedding ceremony featuring traditional rituals, classical music, and authentic cuisine. A celebration of love and culture.', 'Taj Mahal Palace, Mumbai', '2024-10-18T10:00:00Z', '2024-10-18T22:00:00Z', 300, 25000.00, 'INR', 'WEDDING', 'Wedding', 'wedding,south-indian,traditional,culture,ceremony', 'ACTIVE', 4, 'Sunita Reddy', '2024-09-17T10:00:00Z'),
-('Bollywood Dance Workshop', 'Learn authentic Bollywood dance moves from professional choreographers. Perfect for beginners and intermediate dancers.', 'Dance Academy, Bangalore', '2024-09-28T14:00:00Z', '2024-09-28T17:00:00Z', 50, 2500.00, 'INR', 'WORKSHOP', 'Dance', 'bollywood,dance,workshop,choreography,entertainment', 'ACTIVE', 2, 'Priya Patel', '2024-09-18T10:00:00Z'),
-('Guru Purnima Spiritual Retreat', 'Meditation and spiritual guidance session with renowned spiritual leaders. Find inner peace and enlightenment.', 'Ashram, Rishikesh', '2024-07-21T06:00:00Z', '2024-07-21T20:00:00Z', 200, 5000.00, 'INR', 'OTHER', 'Spiritual', 'meditation,spiritual,guru,purnima,retreat', 'COMPLETED', 4, 'Sunita Reddy', '2024-06-01T10:00:00Z'),
-('Startup Pitch Competition', 'Annual startup pitch competition featuring emerging entrepreneurs. Win prizes and connect with investors.', 'IIT Delhi Campus', '2024-12-05T10:00:00Z', '2024-12-05T16:00:00Z', 300, 1000.00, 'INR', 'CONFERENCE', 'Business', 'startup,pitch,competition,entrepreneurship,investment', 'DRAFT', 3, 'Amit Singh', '2024-09-19T10:00:00Z'),
-('Holi Color Festival 2024', 'Vibrant Holi celebration with colors, music, and traditional sweets. Experience the festival of colors in its true essence.', 'India Gate, Delhi', '2024-03-25T08:00:00Z', '2024-03-25T18:00:00Z', 2000, 800.00, 'INR', 'FESTIVAL', 'Cultural', 'holi,festival,colors,cultural,celebration', 'COMPLETED', 2, 'Priya Patel', '2024-02-01T10:00:00Z'),
-('Digital Marketing Masterclass', 'Comprehensive digital marketing workshop covering SEO, social media, and content marketing strategies.', 'Online Webinar', '2024-11-08T15:00:00Z', '2024-11-08T18:00:00Z', 500, 3500.00, 'INR', 'WEBINAR', 'Education', 'digital-marketing,seo,social-media,content,online', 'ACTIVE', 3, 'Amit Singh', '2024-09-20T10:00:00Z');
+INSERT INTO events (name, description, location, starts_at, ends_at, capacity, price, currency, type, category, tags, status, organizer_id, organizer_name, created_at) VALUES
+('Diwali Festival Celebration', 'Grand Diwali festival celebration with traditional dances, music, and fireworks. Experience the festival of lights with authentic Indian cultural performances.', 'Jawaharlal Nehru Stadium, Delhi', '2024-11-12 18:00:00', '2024-11-12 23:00:00', 5000, 1500.00, 'INR', 'FESTIVAL', 'Cultural', 'diwali,festival,cultural,traditional,lights', 'ACTIVE', 2, 'Priya Patel', '2024-09-15T10:00:00Z'),
+('TechCrunch Mumbai 2024', 'Leading technology conference featuring AI, blockchain, and startup innovations. Network with industry leaders and discover cutting-edge technologies.', 'Bombay Exhibition Centre, Mumbai', '2024-10-25 09:00:00', '2024-10-25 18:00:00', 1200, 8500.00, 'INR', 'CONFERENCE', 'Technology', 'tech,ai,blockchain,startups,innovation', 'ACTIVE', 3, 'Amit Singh', '2024-09-16T10:00:00Z'),
+('Traditional South Indian Wedding', 'Elegant South Indian wedding ceremony featuring traditional rituals, classical music, and authentic cuisine. A celebration of love and culture.', 'Taj Mahal Palace, Mumbai', '2024-10-18 10:00:00', '2024-10-18 22:00:00', 300, 25000.00, 'INR', 'WEDDING', 'Wedding', 'wedding,south-indian,traditional,culture,ceremony', 'ACTIVE', 4, 'Sunita Reddy', '2024-09-17T10:00:00Z'),
+('Bollywood Dance Workshop', 'Learn authentic Bollywood dance moves from professional choreographers. Perfect for beginners and intermediate dancers.', 'Dance Academy, Bangalore', '2024-09-28 14:00:00', '2024-09-28 17:00:00', 50, 2500.00, 'INR', 'WORKSHOP', 'Dance', 'bollywood,dance,workshop,choreography,entertainment', 'ACTIVE', 2, 'Priya Patel', '2024-09-18T10:00:00Z'),
+('Guru Purnima Spiritual Retreat', 'Meditation and spiritual guidance session with renowned spiritual leaders. Find inner peace and enlightenment.', 'Ashram, Rishikesh', '2024-07-21 06:00:00', '2024-07-21 20:00:00', 200, 5000.00, 'INR', 'OTHER', 'Spiritual', 'meditation,spiritual,guru,purnima,retreat', 'COMPLETED', 4, 'Sunita Reddy', '2024-06-01T10:00:00Z'),
+('Startup Pitch Competition', 'Annual startup pitch competition featuring emerging entrepreneurs. Win prizes and connect with investors.', 'IIT Delhi Campus', '2024-12-05 10:00:00', '2024-12-05 16:00:00', 300, 1000.00, 'INR', 'CONFERENCE', 'Business', 'startup,pitch,competition,entrepreneurship,investment', 'DRAFT', 3, 'Amit Singh', '2024-09-19T10:00:00Z'),
+('Holi Color Festival 2024', 'Vibrant Holi celebration with colors, music, and traditional sweets. Experience the festival of colors in its true essence.', 'India Gate, Delhi', '2024-03-25 08:00:00', '2024-03-25 18:00:00', 2000, 800.00, 'INR', 'FESTIVAL', 'Cultural', 'holi,festival,colors,cultural,celebration', 'COMPLETED', 2, 'Priya Patel', '2024-02-01T10:00:00Z'),
+('Digital Marketing Masterclass', 'Comprehensive digital marketing workshop covering SEO, social media, and content marketing strategies.', 'Online Webinar', '2024-11-08 15:00:00', '2024-11-08 18:00:00', 500, 3500.00, 'INR', 'WEBINAR', 'Education', 'digital-marketing,seo,social-media,content,online', 'ACTIVE', 3, 'Amit Singh', '2024-09-20T10:00:00Z');
 
 -- Insert Tickets
 INSERT INTO tickets (name, description, price, currency, quantity_available, event_id, event_name, status, created_at) VALUES
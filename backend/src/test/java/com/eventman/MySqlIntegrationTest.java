@@ -0,0 +1,43 @@
+package com.eventman;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+
+/**
+ * Base of the tests that need a real MySQL: conditional updates, unique keys
+ * and SKIP LOCKED behave differently (or not at all) on embedded databases.
+ * They need Docker and only run with {@code mvn test -Pintegration}.
+ *
+ * One container is shared by every subclass and lives as long as the JVM.
+ */
+@Tag("mysql")
+@SpringBootTest
+@AutoConfigureMockMvc
+public abstract class MySqlIntegrationTest {
+
+    // Batched as in production: multi-row INSERTs with a block of generated ids
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0")
+            .withUrlParam("rewriteBatchedStatements", "true");
+
+    static {
+        MYSQL.start();
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("jwt.keys.ephemeral", () -> "true");
+        // The tests hammer single endpoints from one address
+        registry.add("security.rate-limit.ip.capacity", () -> "100000");
+        registry.add("security.rate-limit.email.capacity", () -> "100000");
+        // Nothing is mailed: the outbox dispatcher only runs when a test calls it
+        registry.add("email.outbox.poll-interval-ms", () -> "3600000");
+    }
+}
@@ -0,0 +1,82 @@
+package com.eventman.controller;
+
+import com.eventman.MySqlIntegrationTest;
+import com.eventman.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+class AuthControllerRegistrationTest extends MySqlIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void concurrentRegistrationsOfOneEmailCreateOneUser() throws Exception {
+        String email = "race@example.com";
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<MockHttpServletResponse>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Callable<MockHttpServletResponse> register = () -> {
+                start.await();
+                return mockMvc.perform(post("/api/auth/register")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body(email, "Race Condition")))
+                        .andReturn().getResponse();
+            };
+            results.add(pool.submit(register));
+        }
+        start.countDown();
+
+        int created = 0;
+        for (Future<MockHttpServletResponse> result : results) {
+            MockHttpServletResponse response = result.get();
+            if (response.getStatus() == 200) {
+                created++;
+            } else {
+                assertThat(response.getStatus()).isEqualTo(400);
+                assertThat(response.getContentAsString()).contains("User with this email already exists");
+            }
+        }
+        pool.shutdown();
+
+        assertThat(created).isEqualTo(1);
+        assertThat(userRepository.findByEmail(email)).isPresent();
+    }
+
+    @Test
+    void otherConstraintViolationsAreNotReportedAsDuplicateEmails() throws Exception {
+        // users.name is VARCHAR(255)
+        MockHttpServletResponse response = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body("too-long@example.com", "x".repeat(300))))
+                .andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(400);
+        assertThat(response.getContentAsString()).doesNotContain("already exists");
+        assertThat(userRepository.findByEmail("too-long@example.com")).isEmpty();
+    }
+
+    private static String body(String email, String name) {
+        return "{\"email\":\"" + email + "\",\"password\":\"secret123\",\"name\":\"" + name + "\"}";
+    }
+}
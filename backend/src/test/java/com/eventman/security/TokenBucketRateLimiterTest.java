@@ -0,0 +1,69 @@
+package com.eventman.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketRateLimiterTest {
+
+    @Test
+    void allowsABurstUpToCapacityThenRejects() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(3, 1, 100, 1);
+
+        assertThat(limiter.tryAcquire("10.0.0.1")).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.1")).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.1")).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.1")).isPositive();
+    }
+
+    @Test
+    void keysHaveIndependentBuckets() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, 100, 4);
+
+        assertThat(limiter.tryAcquire("a@example.com")).isZero();
+        assertThat(limiter.tryAcquire("a@example.com")).isPositive();
+        assertThat(limiter.tryAcquire("b@example.com")).isZero();
+    }
+
+    @Test
+    void aFloodOfNewKeysNeverThrottlesAnUnrelatedKey() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, 8, 1);
+
+        // Fill the only stripe with exhausted buckets, then keep adding keys
+        for (int i = 0; i < 1_000; i++) {
+            String key = "attacker-" + i;
+            limiter.tryAcquire(key);
+            limiter.tryAcquire(key);
+        }
+
+        assertThat(limiter.size()).isLessThanOrEqualTo(8);
+        assertThat(limiter.tryAcquire("victim")).isZero();
+    }
+
+    @Test
+    void evictIdleAfterEvictionsForgetsEveryBucket() throws InterruptedException {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 60_000, 4, 1);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("key-" + i);
+        }
+        assertThat(limiter.size()).isEqualTo(4);
+        Thread.sleep(5);
+
+        limiter.evictIdle();
+
+        assertThat(limiter.size()).isZero();
+        assertThat(limiter.tryAcquire("key-0")).isZero();
+    }
+
+    @Test
+    void evictIdleForgetsRefilledBuckets() throws InterruptedException {
+        // 60000 per minute: a token every millisecond
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 60_000, 100, 1);
+        limiter.tryAcquire("idle");
+        Thread.sleep(5);
+
+        limiter.evictIdle();
+
+        assertThat(limiter.size()).isZero();
+    }
+}
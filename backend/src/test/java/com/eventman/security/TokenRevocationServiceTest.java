@@ -0,0 +1,92 @@
+package com.eventman.security;
+
+import com.eventman.RevokedToken;
+import com.eventman.RevokedTokenRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationServiceTest {
+
+    private final RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+    private final JwtUtil jwtUtil = mock(JwtUtil.class);
+    private final TokenRevocationService service = new TokenRevocationService(repository, jwtUtil, 0.01);
+
+    @Test
+    void revokedAccessTokenIsRejected() {
+        VerifiedToken token = token("jti-1", VerifiedToken.TYPE_ACCESS);
+
+        service.revoke(token);
+
+        assertThat(service.isRevoked(token)).isTrue();
+        assertThat(service.isRevoked(token("jti-2", VerifiedToken.TYPE_ACCESS))).isFalse();
+    }
+
+    @Test
+    void refreshTokenCanBeClaimedOnce() {
+        VerifiedToken token = token("jti-1", VerifiedToken.TYPE_REFRESH);
+        when(repository.insertClaimed(eq("jti-1"), anyString(), any(), any()))
+                .thenReturn(1)
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry"));
+
+        assertThat(service.claim(token)).isTrue();
+        assertThat(service.claim(token)).isFalse();
+    }
+
+    @Test
+    void revokingARefreshTokenSpendsItInsteadOfFillingTheSnapshot() {
+        VerifiedToken token = token("jti-1", VerifiedToken.TYPE_REFRESH);
+
+        service.revoke(token);
+
+        verify(repository).insertClaimed(eq("jti-1"), eq("alice@example.com"), any(), any());
+        verify(repository, never()).save(any());
+        assertThat(service.isRevoked(token)).isFalse();
+    }
+
+    @Test
+    void revocationDuringARebuildSurvivesTheSwap() {
+        when(jwtUtil.getAccessTokenTtlMs()).thenReturn(900_000L);
+        when(repository.findByExpiresAtAfterAndClaimedFalse(any())).thenAnswer(invocation -> {
+            // Lands after the rebuild read the table
+            service.revokeAccessForSubject("alice@example.com");
+            return List.<RevokedToken>of();
+        });
+
+        service.rebuild();
+
+        long now = System.currentTimeMillis();
+        VerifiedToken issuedEarlier = new VerifiedToken("jti-1", VerifiedToken.TYPE_ACCESS, "alice@example.com",
+                new String[0], now - 60_000, now + 600_000);
+        assertThat(service.isRevoked(issuedEarlier)).isTrue();
+    }
+
+    @Test
+    void subjectRevocationCatchesTokensIssuedEarlierInTheSameSecond() {
+        when(jwtUtil.getAccessTokenTtlMs()).thenReturn(900_000L);
+        long before = System.currentTimeMillis() - 1;
+
+        service.revokeAccessForSubject("alice@example.com");
+
+        long after = System.currentTimeMillis() + 1;
+        assertThat(service.isRevoked(new VerifiedToken("jti-1", VerifiedToken.TYPE_ACCESS, "alice@example.com",
+                new String[0], before, before + 600_000))).isTrue();
+        assertThat(service.isRevoked(new VerifiedToken("jti-2", VerifiedToken.TYPE_ACCESS, "alice@example.com",
+                new String[0], after, after + 600_000))).isFalse();
+    }
+
+    private static VerifiedToken token(String id, String type) {
+        long now = System.currentTimeMillis();
+        return new VerifiedToken(id, type, "alice@example.com", new String[0], now - 1_000, now + 600_000);
+    }
+}
@@ -0,0 +1,167 @@
+package com.eventman.service;
+
+import com.eventman.EmailOutboxMessage;
+import com.eventman.EmailOutboxRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmailOutboxDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final Map<Long, EmailOutboxMessage> table = new ConcurrentHashMap<>();
+    private final List<String> transactions = new ArrayList<>();
+    private EmailOutboxRepository repository;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(EmailOutboxRepository.class);
+        when(repository.lockDueMessages(any(), anyInt())).thenAnswer(invocation -> {
+            Instant now = invocation.getArgument(0);
+            List<EmailOutboxMessage> due = new ArrayList<>();
+            table.values().stream()
+                    .filter(m -> m.getStatus() == EmailOutboxMessage.OutboxStatus.PENDING && !m.getNextAttemptAt().isAfter(now))
+                    .limit(invocation.<Integer>getArgument(1))
+                    .forEach(due::add);
+            return due;
+        });
+        when(repository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(repository.findAllById(any())).thenAnswer(invocation -> {
+            List<EmailOutboxMessage> found = new ArrayList<>();
+            invocation.<Iterable<Long>>getArgument(0).forEach(id -> found.add(table.get(id)));
+            return found;
+        });
+
+        transactionTemplate = new TransactionTemplate(new PlatformTransactionManager() {
+            @Override
+            public SimpleTransactionStatus getTransaction(TransactionDefinition definition) {
+                transactions.add("begin");
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+                transactions.add("commit");
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+                transactions.add("rollback");
+            }
+        });
+    }
+
+    @Test
+    void sendsQueuedMessagesOverSmtpAndMarksThemSent() throws Exception {
+        queue(1L, "alice@example.com", "Verify your email", "Code: 123456");
+        queue(2L, "bob@example.com", "Verify your email", "Code: 654321");
+
+        dispatcher(mailSender(ServerSetupTest.SMTP.getPort()), 50).dispatch();
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(2);
+        assertThat(received).extracting(message -> message.getAllRecipients()[0].toString())
+                .containsExactlyInAnyOrder("alice@example.com", "bob@example.com");
+        assertThat(table.values()).allSatisfy(message -> {
+            assertThat(message.getStatus()).isEqualTo(EmailOutboxMessage.OutboxStatus.SENT);
+            assertThat(message.getAttempts()).isEqualTo(1);
+            assertThat(message.getSentAt()).isNotNull();
+        });
+    }
+
+    @Test
+    void sendsOutsideTheLeaseAndRecordTransactions() {
+        queue(1L, "alice@example.com", "Hello", "Body");
+        JavaMailSenderImpl smtp = mailSender(ServerSetupTest.SMTP.getPort());
+        JavaMailSenderImpl recording = new JavaMailSenderImpl() {
+            @Override
+            public void send(SimpleMailMessage... simpleMessages) {
+                transactions.add("send");
+                smtp.send(simpleMessages);
+            }
+        };
+
+        dispatcher(recording, 50).dispatch();
+
+        assertThat(transactions).containsExactly("begin", "commit", "send", "begin", "commit");
+    }
+
+    @Test
+    void backsOffWhenTheServerIsUnreachable() {
+        EmailOutboxMessage message = queue(1L, "alice@example.com", "Hello", "Body");
+        Instant before = Instant.now();
+
+        // Nothing listens one port below the test server
+        dispatcher(mailSender(ServerSetupTest.SMTP.getPort() - 1), 50).dispatch();
+
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+        assertThat(message.getStatus()).isEqualTo(EmailOutboxMessage.OutboxStatus.PENDING);
+        assertThat(message.getAttempts()).isEqualTo(1);
+        assertThat(message.getLastError()).isNotBlank();
+        assertThat(message.getNextAttemptAt()).isAfterOrEqualTo(before.plusMillis(30_000));
+    }
+
+    @Test
+    void leavesMessagesWhoseLeaseWasTakenOverAlone() {
+        EmailOutboxMessage message = queue(1L, "alice@example.com", "Hello", "Body");
+        JavaMailSenderImpl smtp = mailSender(ServerSetupTest.SMTP.getPort());
+        JavaMailSenderImpl slow = new JavaMailSenderImpl() {
+            @Override
+            public void send(SimpleMailMessage... simpleMessages) {
+                smtp.send(simpleMessages);
+                // Another dispatcher re-leased the row while this one was sending
+                message.setNextAttemptAt(Instant.now().plusSeconds(600));
+            }
+        };
+
+        dispatcher(slow, 50).dispatch();
+
+        assertThat(message.getStatus()).isEqualTo(EmailOutboxMessage.OutboxStatus.PENDING);
+        assertThat(message.getAttempts()).isZero();
+    }
+
+    private EmailOutboxMessage queue(Long id, String to, String subject, String body) {
+        EmailOutboxMessage message = new EmailOutboxMessage(to, subject, body);
+        message.setId(id);
+        table.put(id, message);
+        return message;
+    }
+
+    private EmailOutboxDispatcher dispatcher(JavaMailSenderImpl mailSender, int batchSize) {
+        return new EmailOutboxDispatcher(repository, mailSender, transactionTemplate, new SimpleMeterRegistry(),
+                "noreply@festify.test", batchSize, 8, 30_000, 3_600_000, 300_000);
+    }
+
+    private static JavaMailSenderImpl mailSender(int port) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(port);
+        return mailSender;
+    }
+}
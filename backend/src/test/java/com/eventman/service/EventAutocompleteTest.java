@@ -0,0 +1,105 @@
+package com.eventman.service;
+
+import com.eventman.Event;
+import com.eventman.EventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EventAutocompleteTest {
+
+    private final List<Object[]> rows = new ArrayList<>();
+    private EventAutocomplete autocomplete;
+    private long nextId = 1;
+
+    @BeforeEach
+    void setUp() {
+        EventRepository eventRepository = mock(EventRepository.class);
+        when(eventRepository.findAutocompleteValues()).thenReturn(rows);
+        autocomplete = new EventAutocomplete(eventRepository, 10);
+    }
+
+    @Test
+    void aSplitEdgeKeepsTheValuesAlreadyBelowIt() {
+        create("Mumbai");
+        create("Mumbra");
+
+        assertThat(suggest("mum")).containsExactlyInAnyOrder("Mumbai", "Mumbra");
+        assertThat(suggest("mumba")).containsExactly("Mumbai");
+        assertThat(suggest("mumbr")).containsExactly("Mumbra");
+    }
+
+    @Test
+    void aKeyEndingInsideAnEdgeStillSeesTheLongerValues() {
+        create("Pune Tech Summit");
+        create("Pune");
+
+        assertThat(suggest("pun")).containsExactlyInAnyOrder("Pune", "Pune Tech Summit");
+    }
+
+    @Test
+    void matchesTheStartOfLaterWords() {
+        create("Bombay Exhibition Centre, Mumbai");
+
+        assertThat(suggest("mum")).containsExactly("Bombay Exhibition Centre, Mumbai");
+        assertThat(suggest("exhib")).containsExactly("Bombay Exhibition Centre, Mumbai");
+        assertThat(suggest("umba")).isEmpty();
+    }
+
+    @Test
+    void aPrefixLongerThanTheStoredKeysStillMatches() {
+        create("International Conference on Distributed Systems");
+
+        assertThat(suggest("international conference on distributed"))
+                .containsExactly("International Conference on Distributed Systems");
+    }
+
+    @Test
+    void ranksByNumberOfEvents() {
+        create("Delhi");
+        create("Dehradun");
+        create("Dehradun");
+
+        assertThat(suggest("de")).containsExactly("Dehradun", "Delhi");
+    }
+
+    @Test
+    void forgetsValuesWhoseLastEventIsGone() {
+        Event mumbai = create("Mumbai");
+        create("Mumbra");
+
+        autocomplete.onEventChange(EventChange.deleted(mumbai));
+
+        assertThat(suggest("mum")).containsExactly("Mumbra");
+        assertThat(suggest("mumba")).isEmpty();
+    }
+
+    @Test
+    void rebuildMatchesIncrementalInserts() {
+        rows.add(new Object[]{"Mumbai", null, null});
+        rows.add(new Object[]{"Mumbra", null, null});
+        rows.add(new Object[]{"Mumbra", null, null});
+
+        autocomplete.rebuild();
+
+        assertThat(suggest("mum")).containsExactly("Mumbra", "Mumbai");
+    }
+
+    private Event create(String name) {
+        Event event = new Event();
+        event.setId(nextId++);
+        event.setName(name);
+        autocomplete.onEventChange(EventChange.created(event));
+        return event;
+    }
+
+    private List<String> suggest(String prefix) {
+        return autocomplete.suggest(EventAutocomplete.Field.NAME, prefix, 10);
+    }
+}
@@ -0,0 +1,115 @@
+package com.eventman.service;
+
+import com.eventman.Event;
+import com.eventman.EventRepository;
+import com.eventman.MySqlIntegrationTest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * NDJSON import against MySQL with {@code rewriteBatchedStatements}, in batches
+ * of four so one input spans several batches and one of them has to fall back
+ * to row-by-row inserts.
+ */
+class EventBulkServiceImportTest extends MySqlIntegrationTest {
+
+    private static final String TIMES = "\"startDateTime\":\"2030-01-01T10:00:00Z\",\"endDateTime\":\"2030-01-01T12:00:00Z\"";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private EventTagService eventTagService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    private EventBulkService eventBulkService;
+
+    @BeforeEach
+    void setUp() {
+        eventBulkService = new EventBulkService(jdbcTemplate, dataSource, transactionTemplate, objectMapper,
+                eventPublisher, eventTagService, 4, 500, 1);
+    }
+
+    @Test
+    void reportsEveryLineInOrderAndMatchesGeneratedIdsToRows() throws Exception {
+        String input = String.join("\n",
+                valid(1),
+                "not json",
+                valid(3),
+                "",
+                "{\"type\":\"WORKSHOP\"," + TIMES + "}",
+                valid(6),
+                valid(7),
+                valid(8),
+                // Passes validation but is outside MySQL's DATETIME range, so its batch is retried row by row
+                "{\"name\":\"Import 9\",\"type\":\"WORKSHOP\",\"startDateTime\":400000000000000,"
+                        + "\"endDateTime\":400000000000000}",
+                valid(10),
+                valid(11));
+
+        List<JsonNode> output = importEvents(input);
+
+        JsonNode summary = output.get(output.size() - 1);
+        assertThat(summary.get("status").asText()).isEqualTo("done");
+        assertThat(summary.get("created").asInt()).isEqualTo(7);
+        assertThat(summary.get("failed").asInt()).isEqualTo(3);
+
+        List<JsonNode> results = output.subList(0, output.size() - 1);
+        assertThat(results).extracting(result -> result.get("line").asInt())
+                .containsExactly(1, 2, 3, 5, 6, 7, 8, 9, 10, 11);
+        for (JsonNode result : results) {
+            int line = result.get("line").asInt();
+            if (line == 2 || line == 5 || line == 9) {
+                assertThat(result.get("status").asText()).isEqualTo("error");
+                continue;
+            }
+            assertThat(result.get("status").asText()).isEqualTo("created");
+            Event event = eventRepository.findById(result.get("id").asLong()).orElseThrow();
+            assertThat(event.getName()).isEqualTo("Import " + line);
+        }
+    }
+
+    private static String valid(int line) {
+        return "{\"name\":\"Import " + line + "\",\"type\":\"WORKSHOP\"," + TIMES + "}";
+    }
+
+    private List<JsonNode> importEvents(String input) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        eventBulkService.importEvents(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out);
+
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+}
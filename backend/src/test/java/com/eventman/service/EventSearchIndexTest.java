@@ -0,0 +1,129 @@
+package com.eventman.service;
+
+import com.eventman.Event;
+import com.eventman.EventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EventSearchIndexTest {
+
+    private EventRepository eventRepository;
+    private EventSearchIndex index;
+    private long nextId = 1;
+
+    @BeforeEach
+    void setUp() {
+        eventRepository = mock(EventRepository.class);
+        index = new EventSearchIndex(eventRepository, 2, 2);
+    }
+
+    @Test
+    void ranksNameMatchesAboveDescriptionMatches() {
+        Event inDescription = create("Weekend meetup", "An afternoon of jazz and coffee");
+        Event inName = create("Jazz night", "Live music downtown");
+
+        assertThat(search("jazz")).containsExactly(inName.getId(), inDescription.getId());
+    }
+
+    @Test
+    void everyTokenMustMatch() {
+        Event both = create("Jazz night", "Live music");
+        create("Jazz brunch", "Coffee and pastries");
+
+        assertThat(search("jazz live")).containsExactly(both.getId());
+        assertThat(search("jazz opera")).isEmpty();
+    }
+
+    @Test
+    void expandsPrefixesBelowExactMatches() {
+        Event prefix = create("Javascript workshop", null);
+        Event exact = create("Java workshop", null);
+
+        assertThat(search("jav")).containsExactlyInAnyOrder(prefix.getId(), exact.getId());
+        assertThat(search("java")).containsExactly(exact.getId(), prefix.getId());
+        // Single letters are only matched exactly
+        assertThat(search("j")).isEmpty();
+    }
+
+    @Test
+    void updatesAndDeletesSurviveCompaction() {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 1_500; i++) {
+            events.add(create("Conference " + i, null));
+        }
+
+        // Past 1024 tombstones the segment compacts
+        for (int i = 0; i < 1_000; i++) {
+            Event renamed = copy(events.get(i), "Summit " + i);
+            index.onEventChange(EventChange.updated(events.get(i), renamed));
+        }
+        for (int i = 1_000; i < 1_500; i++) {
+            index.onEventChange(EventChange.deleted(events.get(i)));
+        }
+
+        assertThat(index.size()).isEqualTo(1_000);
+        assertThat(search("conference")).isEmpty();
+        assertThat(search("summit 999")).containsExactly(events.get(999).getId());
+        assertThat(index.search("summit", 2_000)).hasSize(1_000);
+    }
+
+    @Test
+    void rebuildReplaysChangesMadeWhileLoading() throws Exception {
+        Event renamed = event(1L, "Old name", null);
+        Event removed = event(2L, "Removed event", null);
+        Event kept = event(3L, "Kept event", null);
+        when(eventRepository.findMinId()).thenReturn(1L);
+        when(eventRepository.findMaxId()).thenReturn(3L);
+        when(eventRepository.findByIdBetweenOrderByIdAsc(anyLong(), anyLong())).thenAnswer(invocation -> {
+            long from = invocation.getArgument(0);
+            if (from == 1L) {
+                // The rows were read before these writes landed
+                index.onEventChange(EventChange.updated(renamed, copy(renamed, "New name")));
+                index.onEventChange(EventChange.deleted(removed));
+                return List.of(renamed, removed);
+            }
+            return List.of(kept);
+        });
+
+        index.rebuild();
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(search("new")).containsExactly(1L);
+        assertThat(search("old")).isEmpty();
+        assertThat(search("removed")).isEmpty();
+        assertThat(search("kept")).containsExactly(3L);
+    }
+
+    private Event create(String name, String description) {
+        Event event = event(nextId++, name, description);
+        index.onEventChange(EventChange.created(event));
+        return event;
+    }
+
+    private static Event event(long id, String name, String description) {
+        Event event = new Event();
+        event.setId(id);
+        event.setName(name);
+        event.setDescription(description);
+        return event;
+    }
+
+    private static Event copy(Event event, String name) {
+        return event(event.getId(), name, event.getDescription());
+    }
+
+    private List<Long> search(String query) {
+        return index.search(query, 10).stream()
+                .map(EventSearchIndex.Hit::getEventId)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,144 @@
+package com.eventman.service;
+
+import com.eventman.Ticket;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlashSaleInventorySaleTest {
+
+    @Test
+    void takesUntilNothingIsLeft() {
+        FlashSaleInventory.Sale sale = new FlashSaleInventory.Sale(ticket(), 5, 4);
+
+        assertThat(sale.take(3)).isTrue();
+        sale.commit(3);
+        assertThat(sale.take(3)).isFalse();
+        assertThat(sale.take(2)).isTrue();
+        sale.commit(2);
+
+        assertThat(sale.remaining()).isZero();
+        assertThat(sale.take(1)).isFalse();
+    }
+
+    @Test
+    void ticketIsReportedSoldOutOnceNothingIsLeft() {
+        FlashSaleInventory.Sale sale = new FlashSaleInventory.Sale(ticket(), 2, 4);
+        assertThat(sale.ticket().getStatus()).isEqualTo(Ticket.TicketStatus.ACTIVE);
+
+        assertThat(sale.take(2)).isTrue();
+        Ticket soldOut = sale.ticket();
+        assertThat(soldOut.getQuantityAvailable()).isZero();
+        assertThat(soldOut.getStatus()).isEqualTo(Ticket.TicketStatus.SOLD_OUT);
+
+        // A failed purchase puts the units back on sale
+        sale.giveBack(1);
+        assertThat(sale.ticket().getStatus()).isEqualTo(Ticket.TicketStatus.ACTIVE);
+    }
+
+    @Test
+    void multiUnitTakeSucceedsWhenUnitsAreSpreadOverStripes() {
+        // 8 units over 8 stripes: no single stripe holds 3, the rebalance gathers them
+        FlashSaleInventory.Sale sale = new FlashSaleInventory.Sale(ticket(), 8, 8);
+
+        assertThat(sale.take(3)).isTrue();
+        assertThat(sale.remaining()).isEqualTo(5);
+    }
+
+    @Test
+    void givenBackUnitsCanBeTakenAgain() {
+        FlashSaleInventory.Sale sale = new FlashSaleInventory.Sale(ticket(), 2, 4);
+
+        assertThat(sale.take(2)).isTrue();
+        sale.giveBack(2);
+
+        assertThat(sale.remaining()).isEqualTo(2);
+        assertThat(sale.take(2)).isTrue();
+    }
+
+    @Test
+    void closeWaitsForPurchasesInFlight() throws Exception {
+        FlashSaleInventory.Sale sale = new FlashSaleInventory.Sale(ticket(), 10, 4);
+        assertThat(sale.take(2)).isTrue();
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<Boolean> closed = pool.submit(() -> sale.close(10_000));
+        Thread.sleep(100);
+        assertThat(closed).isNotDone();
+        assertThat(sale.take(1)).isFalse();
+
+        sale.commit(2);
+        assertThat(closed.get(5, TimeUnit.SECONDS)).isTrue();
+        pool.shutdown();
+    }
+
+    @Test
+    void closeGivesUpAndReopensWhilePurchasesAreStillInFlight() throws Exception {
+        FlashSaleInventory.Sale sale = new FlashSaleInventory.Sale(ticket(), 10, 4);
+        assertThat(sale.take(2)).isTrue();
+
+        assertThat(sale.close(50)).isFalse();
+
+        // Still selling, and the purchase that held it open can finish normally
+        assertThat(sale.take(1)).isTrue();
+        sale.commit(1);
+        sale.commit(2);
+        assertThat(sale.close(50)).isTrue();
+    }
+
+    @Test
+    void concurrentBuyersNeverOversell() throws Exception {
+        int units = 1_000;
+        int threads = 16;
+        FlashSaleInventory.Sale sale = new FlashSaleInventory.Sale(ticket(), units, 8);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                int sold = 0;
+                for (int i = 0; i < 500; i++) {
+                    int quantity = 1 + ThreadLocalRandom.current().nextInt(3);
+                    if (!sale.take(quantity)) {
+                        continue;
+                    }
+                    // Some purchases fail after taking and return their units
+                    if (ThreadLocalRandom.current().nextInt(10) == 0) {
+                        sale.giveBack(quantity);
+                    } else {
+                        sale.commit(quantity);
+                        sold += quantity;
+                    }
+                }
+                return sold;
+            }));
+        }
+        start.countDown();
+
+        int sold = 0;
+        for (Future<Integer> result : results) {
+            sold += result.get();
+        }
+        pool.shutdown();
+
+        assertThat(sold).isLessThanOrEqualTo(units);
+        assertThat(sold + sale.remaining()).isEqualTo(units);
+        // 16 x 500 attempts of up to 3 units cannot fail to drain 1000, bar the last unit or two
+        assertThat(sale.remaining()).isLessThan(3);
+    }
+
+    private static Ticket ticket() {
+        return new Ticket(1L, "General admission", null, 10.0, "USD", null, 1L, "Launch", Ticket.TicketStatus.ACTIVE, null);
+    }
+}
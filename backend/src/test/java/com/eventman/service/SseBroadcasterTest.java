@@ -0,0 +1,93 @@
+package com.eventman.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SseBroadcasterTest {
+
+    private final ExecutorService senders = SseBroadcaster.senderPool("test", 1, 2);
+    private final Counter evicted = Counter.builder("test.evicted").register(new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        senders.shutdownNow();
+    }
+
+    @Test
+    void sharedSlotsCapClientsAcrossBroadcasters() {
+        Semaphore slots = new Semaphore(2);
+        SseBroadcaster first = new SseBroadcaster("first", 8, 0, 10, 60_000, 10_000, senders, slots, evicted);
+        SseBroadcaster second = new SseBroadcaster("second", 8, 0, 10, 60_000, 10_000, senders, slots, evicted);
+
+        assertThat(first.connect(null)).isNotNull();
+        assertThat(second.connect(null)).isNotNull();
+        assertThat(second.connect(null)).isNull();
+
+        // Disconnecting gives the slots back
+        first.shutdown();
+        assertThat(second.connect(null)).isNotNull();
+        assertThat(second.clientCount()).isEqualTo(2);
+    }
+
+    @Test
+    void perBroadcasterLimitStillApplies() {
+        SseBroadcaster broadcaster = new SseBroadcaster("one", 8, 0, 1, 60_000, 10_000, senders, new Semaphore(10), evicted);
+
+        assertThat(broadcaster.connect(null)).isNotNull();
+        assertThat(broadcaster.connect(null)).isNull();
+    }
+
+    @Test
+    void reconnectWithinTheQueueCapacityReplaysWhatWasMissed() throws InterruptedException {
+        SseBroadcaster broadcaster = new SseBroadcaster("replay", 4, 4, 10, 60_000, 10_000, senders, new Semaphore(10), evicted);
+        for (int i = 1; i <= 10; i++) {
+            broadcaster.broadcast("change", "{\"n\":" + i + "}");
+        }
+
+        SseEmitter emitter = broadcaster.connect(epoch(broadcaster) + "-7");
+
+        String sent = sent(emitter);
+        assertThat(sent).contains("\"n\":8", "\"n\":9", "\"n\":10").doesNotContain("\"n\":7", "event:reset");
+    }
+
+    @Test
+    void reconnectBehindByMoreThanTheQueueCapacityGetsReset() throws InterruptedException {
+        // A replay buffer longer than the queue is clamped to it
+        SseBroadcaster broadcaster = new SseBroadcaster("replay", 4, 16, 10, 60_000, 10_000, senders, new Semaphore(10), evicted);
+        for (int i = 1; i <= 10; i++) {
+            broadcaster.broadcast("change", "{\"n\":" + i + "}");
+        }
+
+        SseEmitter emitter = broadcaster.connect(epoch(broadcaster) + "-1");
+
+        String sent = sent(emitter);
+        assertThat(sent).contains("event:reset").doesNotContain("\"n\":");
+    }
+
+    private static String epoch(SseBroadcaster broadcaster) {
+        return (String) ReflectionTestUtils.getField(broadcaster, "epoch");
+    }
+
+    /** What was sent to an emitter that was never attached to a response, once the senders are done */
+    @SuppressWarnings("unchecked")
+    private String sent(SseEmitter emitter) throws InterruptedException {
+        senders.shutdown();
+        assertThat(senders.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        Set<ResponseBodyEmitter.DataWithMediaType> early =
+                (Set<ResponseBodyEmitter.DataWithMediaType>) ReflectionTestUtils.getField(emitter, "earlySendAttempts");
+        return early.stream().map(data -> String.valueOf(data.getData())).collect(Collectors.joining());
+    }
+}
@@ -0,0 +1,85 @@
+package com.eventman.service;
+
+import com.eventman.Payment;
+import com.eventman.PaymentRepository;
+import com.eventman.Ticket;
+import com.eventman.TicketRepository;
+import com.eventman.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Flash-sale purchases keep their units in flight until the surrounding
+ * transaction completes. The transaction is simulated by driving the registered
+ * synchronizations by hand.
+ */
+class TicketInventoryServiceFlashSaleTest {
+
+    private final PaymentRepository paymentRepository = mock(PaymentRepository.class);
+    private final FlashSaleInventory flashSaleInventory = mock(FlashSaleInventory.class);
+    private final TicketInventoryService service = new TicketInventoryService(mock(TicketRepository.class),
+            paymentRepository, flashSaleInventory, mock(ApplicationEventPublisher.class));
+
+    private final FlashSaleInventory.Sale sale = new FlashSaleInventory.Sale(new Ticket(1L, "General admission",
+            null, 10.0, "USD", null, 1L, "Launch", Ticket.TicketStatus.ACTIVE, null), 10, 4);
+
+    @BeforeEach
+    void setUp() {
+        when(flashSaleInventory.sale(1L)).thenReturn(sale);
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void saleCannotCloseWhileThePaymentIsUncommitted() throws Exception {
+        assertThat(service.purchase(1L, 2, buyer(), Payment.PaymentMethod.CREDIT_CARD, null).getOutcome())
+                .isEqualTo(TicketInventoryService.Purchase.Outcome.PURCHASED);
+
+        assertThat(sale.close(50)).isFalse();
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(sale.close(50)).isTrue();
+        assertThat(sale.remaining()).isEqualTo(8);
+    }
+
+    @Test
+    void rolledBackPurchaseGivesItsUnitsBack() throws Exception {
+        when(paymentRepository.save(any(Payment.class))).thenThrow(new IllegalStateException("insert failed"));
+
+        assertThatThrownBy(() -> service.purchase(1L, 2, buyer(), Payment.PaymentMethod.CREDIT_CARD, null))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(sale.remaining()).isEqualTo(8);
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertThat(sale.remaining()).isEqualTo(10);
+        assertThat(sale.close(50)).isTrue();
+    }
+
+    private static void complete(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(status);
+        }
+    }
+
+    private static User buyer() {
+        User buyer = new User();
+        buyer.setId(7L);
+        buyer.setEmail("buyer@example.com");
+        return buyer;
+    }
+}
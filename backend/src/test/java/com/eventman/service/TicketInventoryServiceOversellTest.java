@@ -0,0 +1,206 @@
+package com.eventman.service;
+
+import com.eventman.MySqlIntegrationTest;
+import com.eventman.Payment;
+import com.eventman.PaymentRepository;
+import com.eventman.Ticket;
+import com.eventman.TicketRepository;
+import com.eventman.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Thousands of buyers racing for fewer tickets than they ask for, through the
+ * conditional-UPDATE path, flash-sale mode and a flash sale that ends mid-race.
+ * Each buyer is its own platform thread (Java 17 has no virtual threads), all
+ * released at once.
+ */
+class TicketInventoryServiceOversellTest extends MySqlIntegrationTest {
+
+    private static final int QUANTITY = 1_000;
+    private static final int BUYERS = 2_000;
+
+    @Autowired
+    private TicketInventoryService ticketInventoryService;
+
+    @Autowired
+    private FlashSaleInventory flashSaleInventory;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void rowLockedPurchasesNeverOversell() throws Exception {
+        Ticket ticket = ticketRepository.save(ticket("Row locked"));
+
+        int sold = race(ticket.getId(), new AtomicInteger());
+
+        assertSoldOut(ticket.getId(), sold);
+    }
+
+    @Test
+    void flashSalePurchasesNeverOversell() throws Exception {
+        Ticket ticket = ticketRepository.save(ticket("Flash sale"));
+        assertThat(flashSaleInventory.enable(ticket.getId())).isNotNull();
+
+        int sold = race(ticket.getId(), new AtomicInteger());
+        assertThat(flashSaleInventory.disable(ticket.getId())).isEqualTo(FlashSaleInventory.Ending.ENDED);
+
+        assertSoldOut(ticket.getId(), sold);
+        assertThat(ticketRepository.findById(ticket.getId()).orElseThrow().isFlashSale()).isFalse();
+    }
+
+    @Test
+    void flashSaleEndingMidRaceNeverOversells() throws Exception {
+        Ticket ticket = ticketRepository.save(ticket("Ends mid-race"));
+        assertThat(flashSaleInventory.enable(ticket.getId())).isNotNull();
+
+        // Once a third is sold, end the sale while buyers keep coming; the rest is sold from the row
+        AtomicInteger soldSoFar = new AtomicInteger();
+        ExecutorService ender = Executors.newSingleThreadExecutor();
+        Future<FlashSaleInventory.Ending> ending = ender.submit(() -> {
+            while (soldSoFar.get() < QUANTITY / 3) {
+                Thread.onSpinWait();
+            }
+            FlashSaleInventory.Ending result;
+            do {
+                result = flashSaleInventory.disable(ticket.getId());
+            } while (result == FlashSaleInventory.Ending.PURCHASES_IN_FLIGHT);
+            return result;
+        });
+
+        int sold = race(ticket.getId(), soldSoFar);
+        assertThat(ending.get()).isEqualTo(FlashSaleInventory.Ending.ENDED);
+        ender.shutdown();
+
+        assertSoldOut(ticket.getId(), sold);
+    }
+
+    @Test
+    void endingASaleWaitsForAnOpenPurchaseTransaction() throws Exception {
+        Ticket ticket = ticketRepository.save(ticket("Open transaction"));
+        assertThat(flashSaleInventory.enable(ticket.getId())).isNotNull();
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch purchased = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Future<?> buyer = pool.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            ticketInventoryService.purchase(ticket.getId(), 3, buyer(0), Payment.PaymentMethod.CREDIT_CARD, null);
+            purchased.countDown();
+            try {
+                commit.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        purchased.await();
+
+        Future<FlashSaleInventory.Ending> ending = pool.submit(() -> flashSaleInventory.disable(ticket.getId()));
+        Thread.sleep(200);
+        assertThat(ending).isNotDone();
+
+        commit.countDown();
+        buyer.get();
+        assertThat(ending.get()).isEqualTo(FlashSaleInventory.Ending.ENDED);
+        pool.shutdown();
+
+        // The write-back saw the committed payment
+        assertThat(ticketRepository.findById(ticket.getId()).orElseThrow().getQuantityAvailable())
+                .isEqualTo(QUANTITY - 3);
+    }
+
+    /**
+     * Every buyer asks for 2 tickets and then single tickets until it sees the
+     * ticket sold out, so a refusal while a sale is ending is retried. Returns
+     * the number of tickets the successful purchases add up to, also counted
+     * into {@code soldSoFar} as they happen.
+     */
+    private int race(Long ticketId, AtomicInteger soldSoFar) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int b = 0; b < BUYERS; b++) {
+            User buyer = buyer(b);
+            Callable<Integer> buy = () -> {
+                start.await();
+                int bought = 0;
+                int quantity = 2;
+                while (true) {
+                    TicketInventoryService.Purchase purchase = ticketInventoryService.purchase(ticketId, quantity,
+                            buyer, Payment.PaymentMethod.CREDIT_CARD, null);
+                    if (purchase.getOutcome() == TicketInventoryService.Purchase.Outcome.PURCHASED) {
+                        bought += quantity;
+                        soldSoFar.addAndGet(quantity);
+                    } else {
+                        assertThat(purchase.getOutcome()).isIn(TicketInventoryService.Purchase.Outcome.INSUFFICIENT_QUANTITY,
+                                TicketInventoryService.Purchase.Outcome.NOT_ON_SALE);
+                        if (soldOut(ticketId)) {
+                            return bought;
+                        }
+                    }
+                    // Ending on single tickets means nothing is left over once demand outruns supply
+                    quantity = 1;
+                }
+            };
+            results.add(pool.submit(buy));
+        }
+        start.countDown();
+
+        int sold = 0;
+        for (Future<Integer> result : results) {
+            sold += result.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+        return sold;
+    }
+
+    /** Nothing left in the running sale, or on the row once no sale is running or ending */
+    private boolean soldOut(Long ticketId) {
+        FlashSaleInventory.Sale sale = flashSaleInventory.sale(ticketId);
+        if (sale != null) {
+            return sale.remaining() == 0;
+        }
+        Ticket ticket = ticketRepository.findById(ticketId).orElseThrow();
+        return !ticket.isFlashSale() && ticket.getQuantityAvailable() == 0;
+    }
+
+    private void assertSoldOut(Long ticketId, int sold) {
+        Ticket after = ticketRepository.findById(ticketId).orElseThrow();
+        assertThat(sold).isEqualTo(QUANTITY);
+        assertThat(after.getQuantityAvailable()).isZero();
+        assertThat(after.getStatus()).isEqualTo(Ticket.TicketStatus.SOLD_OUT);
+        assertThat(paymentRepository.sumQuantityByTicketIdAfter(ticketId, 0L, Payment.PaymentStatus.COMPLETED))
+                .isEqualTo(QUANTITY);
+    }
+
+    private static Ticket ticket(String name) {
+        return new Ticket(null, name, null, 25.0, "USD", QUANTITY, 1L, "Oversell", Ticket.TicketStatus.ACTIVE, null);
+    }
+
+    private static User buyer(int i) {
+        User buyer = new User();
+        buyer.setId(1_000L + i);
+        buyer.setEmail("buyer" + i + "@example.com");
+        return buyer;
+    }
+}
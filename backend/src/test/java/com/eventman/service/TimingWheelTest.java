@@ -0,0 +1,98 @@
+package com.eventman.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    @Test
+    void expiresAnItemOnceItsDeadlineIsReached() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 0);
+        wheel.schedule("hold", 35);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advance(30, expired::add);
+        assertThat(expired).isEmpty();
+
+        wheel.advance(40, expired::add);
+        assertThat(expired).containsExactly("hold");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cancelledItemsNeverExpire() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 0);
+        TimingWheel.Timeout<String> timeout = wheel.schedule("hold", 50);
+
+        assertThat(wheel.cancel(timeout)).isTrue();
+        assertThat(wheel.cancel(timeout)).isFalse();
+
+        List<String> expired = new ArrayList<>();
+        wheel.advance(1_000, expired::add);
+        assertThat(expired).isEmpty();
+    }
+
+    @Test
+    void itemsAlreadyDueExpireOnTheNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 1_000);
+        wheel.schedule("late", 500);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advance(1_010, expired::add);
+
+        assertThat(expired).containsExactly("late");
+    }
+
+    @Test
+    void cascadesEveryLevelWithoutExpiringEarlyOrLate() {
+        long tickMs = 1;
+        TimingWheel<Long> wheel = new TimingWheel<>(tickMs, 0);
+        Random random = new Random(42);
+
+        // Deadlines spread over all four levels and past the top level's range
+        Map<Long, Long> deadlines = new HashMap<>();
+        for (long id = 0; id < 5_000; id++) {
+            long deadline = 1 + (long) Math.pow(2, random.nextDouble() * 25);
+            deadlines.put(id, deadline);
+            wheel.schedule(id, deadline);
+        }
+
+        Map<Long, Long> expiredAt = new HashMap<>();
+        long now = 0;
+        while (wheel.size() > 0) {
+            now += 1 + random.nextInt(4_000);
+            long at = now;
+            wheel.advance(now, id -> expiredAt.put(id, at));
+        }
+
+        assertThat(expiredAt).hasSize(deadlines.size());
+        deadlines.forEach((id, deadline) -> assertThat(expiredAt.get(id))
+                .as("item %d due at %d", id, deadline)
+                .isGreaterThanOrEqualTo(deadline));
+    }
+
+    @Test
+    void expiresWithinOneTickOfTheDeadlineWhenAdvancedEveryTick() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 0);
+        long[] deadlines = {1, 63, 64, 65, 4_095, 4_096, 262_143, 262_144, 300_000};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+
+        List<long[]> expired = new ArrayList<>();
+        for (long now = 1; wheel.size() > 0; now++) {
+            long at = now;
+            wheel.advance(now, deadline -> expired.add(new long[]{deadline, at}));
+        }
+
+        assertThat(expired).hasSize(deadlines.length);
+        expired.forEach(pair -> assertThat(pair[1]).isEqualTo(pair[0]));
+    }
+}
@@ -0,0 +1,68 @@
+package com.eventman.service;
+
+import com.eventman.VerificationCode;
+import com.eventman.VerificationCodeRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VerificationCodeStoreTest {
+
+    private final VerificationService verificationService = mock(VerificationService.class);
+    private final VerificationCodeRepository repository = mock(VerificationCodeRepository.class);
+
+    @Test
+    void verifiesACodeThisNodeIssued() {
+        when(verificationService.generateVerificationCode()).thenReturn("123456");
+        VerificationCodeStore store = new VerificationCodeStore(verificationService, repository, 60_000, 5, false);
+        String code = store.issue("Alice@Example.com");
+
+        assertThat(store.verify("alice@example.com", "654321")).isEqualTo(VerificationCodeStore.Result.INVALID);
+        assertThat(store.verify("alice@example.com", code)).isEqualTo(VerificationCodeStore.Result.VERIFIED);
+        assertThat(store.verify("alice@example.com", code)).isEqualTo(VerificationCodeStore.Result.NOT_FOUND);
+    }
+
+    @Test
+    void fallsBackToTheTableForCodesIssuedElsewhere() {
+        VerificationCodeStore store = new VerificationCodeStore(verificationService, repository, 60_000, 5, true);
+        when(repository.findById("alice@example.com")).thenReturn(Optional.of(
+                new VerificationCode("alice@example.com", "123456", Instant.now().plusSeconds(60), 0)));
+
+        assertThat(store.verify("alice@example.com", "123456")).isEqualTo(VerificationCodeStore.Result.VERIFIED);
+        verify(repository).deleteById("alice@example.com");
+    }
+
+    @Test
+    void codeReissuedElsewhereReplacesTheCachedOne() {
+        when(verificationService.generateVerificationCode()).thenReturn("111111");
+        VerificationCodeStore store = new VerificationCodeStore(verificationService, repository, 60_000, 5, true);
+        store.issue("alice@example.com");
+        when(repository.findById("alice@example.com")).thenReturn(Optional.of(
+                new VerificationCode("alice@example.com", "222222", Instant.now().plusSeconds(60), 0)));
+
+        assertThat(store.verify("alice@example.com", "222222")).isEqualTo(VerificationCodeStore.Result.VERIFIED);
+    }
+
+    @Test
+    void expiredStoredCodeIsReportedAsExpired() {
+        VerificationCodeStore store = new VerificationCodeStore(verificationService, repository, 60_000, 5, true);
+        when(repository.findById("alice@example.com")).thenReturn(Optional.of(
+                new VerificationCode("alice@example.com", "123456", Instant.now().minusSeconds(1), 0)));
+
+        assertThat(store.verify("alice@example.com", "123456")).isEqualTo(VerificationCodeStore.Result.EXPIRED);
+    }
+
+    @Test
+    void missingCodeIsNotFound() {
+        VerificationCodeStore store = new VerificationCodeStore(verificationService, repository, 60_000, 5, true);
+        when(repository.findById("alice@example.com")).thenReturn(Optional.empty());
+
+        assertThat(store.verify("alice@example.com", "123456")).isEqualTo(VerificationCodeStore.Result.NOT_FOUND);
+    }
+}
@@ -0,0 +1,59 @@
+package com.eventman.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WaitingRoomServiceTest {
+
+    private final WaitingRoomService waitingRooms = new WaitingRoomService("test-secret", 60_000, 2_000, 30_000);
+
+    @Test
+    void admittedTokenLetsItsHolderIn() throws Exception {
+        waitingRooms.open(1L, 1_000);
+        String token = waitingRooms.join(1L, "alice@example.com").getToken();
+        admitEveryone();
+
+        assertThat(waitingRooms.status(1L, token).isAdmitted()).isTrue();
+        assertThat(waitingRooms.isAdmitted(1L, "alice@example.com", token)).isTrue();
+        assertThat(waitingRooms.isAdmitted(1L, "bob@example.com", token)).isFalse();
+        assertThat(waitingRooms.status(2L, token)).isNull();
+    }
+
+    @Test
+    void tokenFromAnEarlierOpeningIsRejected() throws Exception {
+        waitingRooms.open(1L, 1_000);
+        String stale = waitingRooms.join(1L, "alice@example.com").getToken();
+        admitEveryone();
+
+        waitingRooms.close(1L);
+        // While closed everyone may buy, whatever their token
+        assertThat(waitingRooms.status(1L, stale).isAdmitted()).isTrue();
+        assertThat(waitingRooms.isAdmitted(1L, "alice@example.com", null)).isTrue();
+
+        // Reopened, sequence 1 is someone else's place
+        waitingRooms.open(1L, 1_000);
+        String fresh = waitingRooms.join(1L, "bob@example.com").getToken();
+        admitEveryone();
+
+        assertThat(waitingRooms.status(1L, stale)).isNull();
+        assertThat(waitingRooms.isAdmitted(1L, "alice@example.com", stale)).isFalse();
+        assertThat(waitingRooms.isAdmitted(1L, "bob@example.com", fresh)).isTrue();
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        waitingRooms.open(1L, 1_000);
+        String token = waitingRooms.join(1L, "alice@example.com").getToken();
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        assertThat(waitingRooms.status(1L, tampered)).isNull();
+        assertThat(waitingRooms.status(1L, "not-a-token")).isNull();
+    }
+
+    private void admitEveryone() throws InterruptedException {
+        // 1000 per second earns a few dozen admissions of credit
+        Thread.sleep(50);
+        waitingRooms.admit();
+    }
+}
@@ -33,7 +33,7 @@ export default function AnalyticsPage() {
     const fetchAnalyticsData = async () => {
       try {
         // Fetch events data
-        const eventsResponse = await api.events.getAll();
+        const eventsResponse = await api.events.getAllPages({ fields: 'summary' });
         // Fetch payments data
         const paymentsResponse = await api.payments.getAll();
 
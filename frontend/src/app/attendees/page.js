@@ -27,7 +27,7 @@ export default function AttendeesPage() {
         // Fetch both payments and events data
         const [paymentsResponse, eventsResponse] = await Promise.all([
           api.payments.getAll(),
-          api.events.getAll()
+          api.events.getAllPages({ fields: 'id,capacity' })
         ]);
 
         if (paymentsResponse.ok && eventsResponse.ok) {
@@ -46,7 +46,7 @@ export default function Dashboard() {
     const fetchDashboardData = async () => {
       try {
         const [eventsResponse, paymentsResponse, usersResponse] = await Promise.all([
-          api.events.getAll(),
+          api.events.getAllPages({ fields: 'id,capacity' }),
           api.payments.getAll(),
           api.users.getAll()
         ]);
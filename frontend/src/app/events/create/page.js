@@ -55,8 +55,9 @@ export default function CreateEventPage() {
         name: formData.name,
         description: formData.description,
         location: formData.location,
-        startDateTime: `${formData.date}T${formData.startTime}:00`,
-        endDateTime: `${formData.date}T${formData.endTime}:00`,
+        // Send instants so the backend stores the time the organizer picked in their own time zone
+        startDateTime: new Date(`${formData.date}T${formData.startTime}:00`).toISOString(),
+        endDateTime: new Date(`${formData.date}T${formData.endTime}:00`).toISOString(),
         capacity: formData.capacity ? parseInt(formData.capacity) : null,
         price: formData.price ? parseFloat(formData.price) : null,
         currency: formData.currency,
@@ -62,7 +62,7 @@ export default function EditEventPage() {
             name: event.name || '',
             description: event.description || '',
             type: event.type?.toLowerCase() || 'conference',
-            date: startDateTime.toISOString().split('T')[0],
+            date: startDateTime.toLocaleDateString('en-CA'),
             startTime: startDateTime.toTimeString().slice(0, 5),
             endTime: endDateTime.toTimeString().slice(0, 5),
             location: event.location || '',
@@ -122,8 +122,9 @@ export default function EditEventPage() {
         name: formData.name,
         description: formData.description,
         location: formData.location,
-        startDateTime: `${formData.date}T${formData.startTime}:00`,
-        endDateTime: `${formData.date}T${formData.endTime}:00`,
+        // Send instants so the backend stores the time the organizer picked in their own time zone
+        startDateTime: new Date(`${formData.date}T${formData.startTime}:00`).toISOString(),
+        endDateTime: new Date(`${formData.date}T${formData.endTime}:00`).toISOString(),
         capacity: formData.capacity ? parseInt(formData.capacity) : null,
         price: formData.price ? parseFloat(formData.price) : null,
         currency: formData.currency,
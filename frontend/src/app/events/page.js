@@ -53,6 +53,8 @@ export default function EventsPage() {
   const [filterStatus, setFilterStatus] = useState('all');
   const [events, setEvents] = useState([]);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const [nextCursor, setNextCursor] = useState(null);
   const [error, setError] = useState('');
   const { isAuthenticated } = useAuth();
   const { showNotification } = useNotification();
@@ -61,10 +63,12 @@ export default function EventsPage() {
   useEffect(() => {
     const fetchEvents = async () => {
       try {
-        const response = await api.events.getAll();
+        // Only the columns the cards show, not full events with their descriptions
+        const response = await api.events.getAll({ fields: 'summary' });
         if (response.ok) {
           const eventsData = await response.json();
           setEvents(eventsData);
+          setNextCursor(response.headers.get('X-Next-Cursor'));
         } else {
           setError('Failed to load events');
         }
@@ -77,6 +81,24 @@ export default function EventsPage() {
     fetchEvents();
   }, []);
 
+  const handleLoadMore = async () => {
+    setLoadingMore(true);
+    try {
+      const response = await api.events.getAll({ fields: 'summary', cursor: nextCursor });
+      if (response.ok) {
+        const eventsData = await response.json();
+        setEvents(prevEvents => [...prevEvents, ...eventsData]);
+        setNextCursor(response.headers.get('X-Next-Cursor'));
+      } else {
+        showNotification('Failed to load more events.', 'error');
+      }
+    } catch (err) {
+      showNotification('Network error.', 'error');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const handleDeleteEvent = async (eventId, eventName) => {
     try {
       const response = await api.events.delete(eventId);
@@ -332,6 +354,14 @@ export default function EventsPage() {
             <p className="text-muted-foreground mt-2 max-w-sm mx-auto font-medium">No results found for your current search or filter criteria.</p>
           </div>
         )}
+        {nextCursor && (
+          <div className="flex justify-center py-6 border-t border-white/10">
+            <Button variant="outline" className="h-11 px-8 font-bold rounded-xl gap-2" onClick={handleLoadMore} disabled={loadingMore}>
+              {loadingMore && <Loader2 className="w-4 h-4 animate-spin" />}
+              Load more events
+            </Button>
+          </div>
+        )}
       </Card>
     </div>
   );
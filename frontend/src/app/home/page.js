@@ -29,7 +29,7 @@ export default function HomePage() {
   useEffect(() => {
     const fetchUpcomingEvents = async () => {
       try {
-        const response = await api.events.getAll();
+        const response = await api.events.getAll({ status: 'ACTIVE', from: new Date().toISOString(), limit: 3 });
         if (response.ok) {
           const events = await response.json();
           const now = new Date();
@@ -17,21 +17,14 @@ export default function MyEventsPage() {
   useEffect(() => {
     const fetchMyEvents = async () => {
       try {
-        // For now, fetch all events and filter by user
         // In a real app, you'd have an endpoint like /api/users/{id}/events
-        const response = await api.events.getAll();
+        const isOrganizer = user?.roles?.includes('ORGANIZER') || user?.roles?.includes('ADMIN');
+        const response = await api.events.getAll(isOrganizer ? {} : { status: 'ACTIVE', limit: 5 });
 
         if (response.ok) {
           const allEvents = await response.json();
-          // For attendees, show events they might be interested in or registered for
-          // For organizers, show events they created
-          if (user?.roles?.includes('ORGANIZER') || user?.roles?.includes('ADMIN')) {
-            // Show all events for organizers/admins
-            setEvents(allEvents);
-          } else {
-            // For attendees, show a subset of active events
-            setEvents(allEvents.filter(event => event.status === 'ACTIVE').slice(0, 5));
-          }
+          // Organizers/admins see all events; attendees get the first few active ones (filtered server-side)
+          setEvents(allEvents);
         } else {
           setError('Failed to load your events');
         }
@@ -32,7 +32,7 @@ export default function ReportsPage() {
 
   const loadAvailableEvents = async () => {
     try {
-      const response = await api.events.getAll();
+      const response = await api.events.getAllPages({ fields: 'id,name,type' });
       if (response.ok) {
         const events = await response.json();
         setAvailableEvents(events);
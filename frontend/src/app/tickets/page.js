@@ -35,7 +35,7 @@ export default function TicketsPage() {
         }
 
         // Fetch events for reference
-        const eventsResponse = await api.events.getAll();
+        const eventsResponse = await api.events.getAll({ fields: 'id,name' });
 
         if (eventsResponse.ok) {
           const eventsData = await eventsResponse.json();
@@ -57,6 +57,7 @@ export const AuthProvider = ({ children }) => {
         setUser(userData);
         localStorage.setItem('user', JSON.stringify(userData));
         localStorage.setItem('token', loginData.token);
+        localStorage.setItem('refreshToken', loginData.refreshToken);
         return { success: true };
       } else {
         const errorData = await response.json();
@@ -68,9 +69,14 @@ export const AuthProvider = ({ children }) => {
   };
 
   const logout = () => {
+    const refreshToken = localStorage.getItem('refreshToken');
+    if (refreshToken) {
+      api.auth.logout(refreshToken).catch(() => {});
+    }
     setUser(null);
     localStorage.removeItem('user');
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
   };
 
   const hasRole = (role) => {
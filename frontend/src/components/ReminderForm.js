@@ -34,7 +34,7 @@ export default function ReminderForm({ reminderId = null, userId = null, eventId
         }
 
         // Fetch events
-        const eventsResponse = await api.events.getAll();
+        const eventsResponse = await api.events.getAll({ fields: 'id,name' });
 
         if (eventsResponse.ok) {
           const eventsData = await eventsResponse.json();
@@ -25,7 +25,7 @@ export default function TicketForm({ ticketId = null, eventId = null, onSuccess
   useEffect(() => {
     const fetchEvents = async () => {
       try {
-        const response = await api.events.getAll();
+        const response = await api.events.getAll({ fields: 'id,name,location' });
 
         if (response.ok) {
           const eventsData = await response.json();
@@ -1,6 +1,6 @@
 'use client';
 
-import { useState } from 'react';
+import { useRef, useState } from 'react';
 import { useAuth } from './AuthContext';
 import { useNotification } from './NotificationContext';
 import PaymentForm from './PaymentForm';
@@ -15,6 +15,9 @@ export default function TicketPurchaseModal({
   const [quantity, setQuantity] = useState(1);
   const [showPaymentForm, setShowPaymentForm] = useState(false);
   const [loading, setLoading] = useState(false);
+  const [hold, setHold] = useState(null);
+  const [queueAhead, setQueueAhead] = useState(null);
+  const leftQueue = useRef(false);
   const { user } = useAuth();
   const { showNotification } = useNotification();
 
@@ -27,44 +30,107 @@ export default function TicketPurchaseModal({
   };
 
   const totalAmount = ticket.price * quantity;
+  const queueTokenKey = `queueToken:${ticket.eventId}`;
 
-  const handlePurchaseClick = () => {
+  // Join the event's waiting room and poll until admitted. Resolves with the queue token,
+  // undefined if the room closed meanwhile, or null if queueing failed or was abandoned.
+  const waitForAdmission = async () => {
+    leftQueue.current = false;
+    try {
+      const joinResponse = await api.events.joinWaitingRoom(ticket.eventId);
+      if (!joinResponse.ok) return null;
+      let position = await joinResponse.json();
+      if (!position.open) return undefined;
+
+      while (!position.admitted) {
+        setQueueAhead(position.ahead);
+        await new Promise(resolve => setTimeout(resolve, position.retryAfterMs));
+        if (leftQueue.current) return null;
+        const response = await api.events.getWaitingRoomPosition(ticket.eventId, position.token);
+        if (!response.ok) return null;
+        position = { ...await response.json(), token: position.token };
+      }
+      sessionStorage.setItem(queueTokenKey, position.token);
+      return position.token;
+    } finally {
+      setQueueAhead(null);
+    }
+  };
+
+  // Call an endpoint gated by the waiting room with this event's queue token. When the room
+  // turns the call away, queue up and retry once admitted; null if the user left the queue.
+  const withAdmission = async (call) => {
+    const response = await call(sessionStorage.getItem(queueTokenKey) || undefined);
+    if (response.status !== 429) return response;
+    const body = await response.clone().json().catch(() => ({}));
+    if (!body.waitingRoom) return response;
+
+    sessionStorage.removeItem(queueTokenKey);
+    const token = await waitForAdmission();
+    if (token === null) {
+      return leftQueue.current ? null : response;
+    }
+    return call(token);
+  };
+
+  const handlePurchaseClick = async () => {
     if (quantity > ticket.quantityAvailable) {
       showNotification(`Only ${ticket.quantityAvailable} tickets available`, 'error');
       return;
     }
-    setShowPaymentForm(true);
+
+    // Flash-sale tickets are sold from in-memory counters that cannot be held; they are bought outright
+    if (ticket.flashSale) {
+      setShowPaymentForm(true);
+      return;
+    }
+
+    // Hold the tickets while the user fills in the payment form
+    setLoading(true);
+    try {
+      const response = await withAdmission(queueToken => api.tickets.hold(ticket.id, { quantity }, queueToken));
+      if (!response) return;
+      if (response.ok) {
+        const result = await response.json();
+        setHold(result.hold);
+        setShowPaymentForm(true);
+      } else {
+        const errorData = await response.json();
+        showNotification(`Could not reserve tickets: ${errorData.message}`, 'error');
+      }
+    } catch (error) {
+      showNotification('Could not reserve tickets. Please try again.', 'error');
+    } finally {
+      setLoading(false);
+    }
+  };
+
+  const releaseHold = () => {
+    if (hold) {
+      // Best effort: an unreleased hold simply expires
+      api.tickets.releaseHold(hold.id).catch(() => {});
+      setHold(null);
+    }
   };
 
   const handlePaymentSuccess = async (paymentData) => {
     setLoading(true);
     try {
-      // Create the ticket purchase record
-      const purchaseData = {
-        userId: user.id,
-        userEmail: user.email,
-        eventId: ticket.eventId,
-        eventName: ticket.eventName,
-        ticketId: ticket.id,
-        ticketName: ticket.name,
-        quantity: quantity,
-        amount: totalAmount,
-        currency: ticket.currency || 'INR',
-        paymentMethod: paymentData.paymentMethod,
-        transactionId: `TICKET_${Date.now()}_${Math.random().toString(36).substr(2, 9)}`,
-        notes: `Purchase of ${quantity} ticket(s) for ${ticket.eventName}`
-      };
-
-      const response = await api.payments.create(purchaseData);
+      // The held tickets become a payment atomically on the server; without a hold it is a plain purchase
+      const notes = `Purchase of ${quantity} ticket(s) for ${ticket.eventName}`;
+      const response = hold
+        ? await api.tickets.confirmHold(hold.id, { paymentMethod: paymentData.paymentMethod, notes })
+        : await withAdmission(queueToken => api.tickets.purchase(ticket.id,
+          { quantity, paymentMethod: paymentData.paymentMethod, notes }, queueToken));
 
+      if (!response) return;
       if (response.ok) {
         const result = await response.json();
         showNotification(`Successfully purchased ${quantity} ticket(s)!`, 'success');
+        setHold(null);
+        setShowPaymentForm(false);
 
-        // Update payment status to COMPLETED (simulate successful payment)
-        await api.payments.updateStatus(result.id, 'COMPLETED');
-
-        onSuccess && onSuccess(result);
+        onSuccess && onSuccess(result.payment);
         onClose();
       } else {
         const errorData = await response.json();
@@ -78,11 +144,35 @@ export default function TicketPurchaseModal({
   };
 
   const handleClose = () => {
+    leftQueue.current = true;
+    releaseHold();
     setShowPaymentForm(false);
     setQuantity(1);
     onClose();
   };
 
+  // Turned away by the event's waiting room: show the place in the queue until admitted
+  if (queueAhead !== null) {
+    return (
+      <div className="fixed inset-0 bg-black bg-opacity-50 flex items-center justify-center z-50 p-4">
+        <div className="bg-white rounded-lg shadow-xl max-w-md w-full p-6 text-center">
+          <div className="animate-spin rounded-full h-8 w-8 border-b-2 border-blue-600 mx-auto mb-4"></div>
+          <h2 className="text-xl font-semibold text-gray-900 mb-2">You&apos;re in the queue</h2>
+          <p className="text-sm text-gray-600 mb-6">
+            {queueAhead} {queueAhead === 1 ? 'buyer is' : 'buyers are'} ahead of you.
+            Keep this window open; your purchase continues as soon as it is your turn.
+          </p>
+          <button
+            onClick={handleClose}
+            className="px-4 py-2 border border-gray-300 rounded-md text-gray-700 hover:bg-gray-50"
+          >
+            Leave Queue
+          </button>
+        </div>
+      </div>
+    );
+  }
+
   if (showPaymentForm) {
     return (
       <PaymentForm
@@ -91,7 +181,10 @@ export default function TicketPurchaseModal({
         ticketId={ticket.id}
         amount={totalAmount}
         onSuccess={handlePaymentSuccess}
-        onCancel={() => setShowPaymentForm(false)}
+        onCancel={() => {
+          releaseHold();
+          setShowPaymentForm(false);
+        }}
       />
     );
   }
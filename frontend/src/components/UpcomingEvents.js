@@ -28,7 +28,7 @@ export default function UpcomingEvents() {
   useEffect(() => {
     const fetchEvents = async () => {
       try {
-        const response = await api.events.getAll();
+        const response = await api.events.getAll({ from: new Date().toISOString(), limit: 20 });
         if (response.ok) {
           const eventsData = await response.json();
           const activeEvents = eventsData
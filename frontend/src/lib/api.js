@@ -10,16 +10,67 @@ export const getAuthHeaders = () => {
   };
 };
 
-// Generic API call function
+const exchangeRefreshToken = async () => {
+  const refreshToken = localStorage.getItem('refreshToken');
+  if (!refreshToken) {
+    return false;
+  }
+
+  const response = await fetch(`${API_BASE_URL}/api/auth/refresh`, {
+    method: 'POST',
+    headers: { 'Content-Type': 'application/json' },
+    body: JSON.stringify({ refreshToken }),
+  });
+
+  if (!response.ok) {
+    // Only forget the token that was rejected, not one another tab stored meanwhile
+    if (localStorage.getItem('refreshToken') === refreshToken) {
+      localStorage.removeItem('refreshToken');
+    }
+    return false;
+  }
+
+  const data = await response.json();
+  localStorage.setItem('token', data.token);
+  localStorage.setItem('refreshToken', data.refreshToken);
+  return true;
+};
+
+// Refresh tokens are single-use, so concurrent callers share one exchange
+let refreshInFlight = null;
+
+// Exchange the stored refresh token for a new access token
+export const refreshAccessToken = () => {
+  if (!refreshInFlight) {
+    refreshInFlight = exchangeRefreshToken().finally(() => {
+      refreshInFlight = null;
+    });
+  }
+  return refreshInFlight;
+};
+
+// Request options carrying a waiting room queue token, when there is one
+const withQueueToken = (queueToken) => (
+  queueToken ? { headers: { 'X-Queue-Token': queueToken } } : {}
+);
+
+// Generic API call function; options.headers are added to the auth headers
 export const apiCall = async (endpoint, options = {}) => {
   const url = `${API_BASE_URL}${endpoint}`;
-  const config = {
-    headers: getAuthHeaders(),
+  const withAuth = () => ({
     ...options,
-  };
+    headers: { ...getAuthHeaders(), ...options.headers },
+  });
+  const sentToken = localStorage.getItem('token');
 
   try {
-    const response = await fetch(url, config);
+    const response = await fetch(url, withAuth());
+
+    // Access tokens are short-lived: retry once with a fresh one, unless a parallel call already got it
+    if (response.status === 401
+        && (localStorage.getItem('token') !== sentToken || await refreshAccessToken())) {
+      return fetch(url, withAuth());
+    }
     return response;
   } catch (error) {
     console.error('API call failed:', error);
@@ -39,11 +90,45 @@ export const api = {
       method: 'POST',
       body: JSON.stringify(userData),
     }),
+    logout: (refreshToken) => apiCall('/api/auth/logout', {
+      method: 'POST',
+      body: JSON.stringify({ refreshToken }),
+    }),
   },
 
   // Event endpoints
   events: {
-    getAll: () => apiCall('/api/events'),
+    // params: status, type, category, organizerId, tag, from, to, cursor, limit,
+    // fields (comma-separated subset of the summary columns, e.g. "id,name")
+    // Returns one page, ordered by start time; the next page's cursor is in the
+    // X-Next-Cursor response header.
+    getAll: (params = {}) => {
+      const query = new URLSearchParams(
+        Object.entries(params).filter(([, value]) => value !== undefined && value !== null)
+      ).toString();
+      return apiCall(query ? `/api/events?${query}` : '/api/events');
+    },
+    // Every page of a listing as one response. The whole catalog can be large, so
+    // callers pass fields to fetch only the columns they use.
+    getAllPages: async (params = {}) => {
+      let response = await api.events.getAll(params);
+      if (!response.ok || !response.headers.get('X-Next-Cursor')) {
+        return response;
+      }
+
+      const events = await response.json();
+      while (response.headers.get('X-Next-Cursor')) {
+        response = await api.events.getAll({ ...params, cursor: response.headers.get('X-Next-Cursor') });
+        if (!response.ok) {
+          return response;
+        }
+        events.push(...await response.json());
+      }
+      return new Response(JSON.stringify(events), {
+        status: 200,
+        headers: { 'Content-Type': 'application/json' },
+      });
+    },
     getById: (id) => apiCall(`/api/events/${id}`),
     create: (eventData) => apiCall('/api/events', {
       method: 'POST',
@@ -56,6 +141,20 @@ export const api = {
     delete: (id) => apiCall(`/api/events/${id}`, {
       method: 'DELETE',
     }),
+    // Live catalog changes: 'created'/'updated' events carry { id, event }, 'deleted' carries { id };
+    // 'reset' means changes were missed and the list should be reloaded
+    stream: () => new EventSource(`${API_BASE_URL}/api/events/stream`),
+    // Live ticket availability: a 'snapshot' event, then 'availability' events with the tickets that changed,
+    // each { eventId, tickets: [{ ticketId, quantityAvailable, status }] } (status null: ticket removed)
+    availability: (id) => new EventSource(`${API_BASE_URL}/api/events/${id}/availability`),
+    // Waiting room: join -> { open, token, ahead, admitted, retryAfterMs }; poll the position with the token
+    // every retryAfterMs until admitted, then pass it as queueToken to tickets.getActiveByEvent/hold/purchase
+    joinWaitingRoom: (id) => apiCall(`/api/events/${id}/waiting-room/join`, {
+      method: 'POST',
+    }),
+    getWaitingRoomPosition: (id, queueToken) => fetch(`${API_BASE_URL}/api/events/${id}/waiting-room`, {
+      headers: { 'X-Queue-Token': queueToken },
+    }),
   },
 
   // User endpoints
@@ -79,6 +178,35 @@ export const api = {
   tickets: {
     getAll: () => apiCall('/api/tickets'),
     getById: (id) => apiCall(`/api/tickets/${id}`),
+    getActiveByEvent: (eventId, queueToken) => apiCall(`/api/tickets/event/${eventId}/active`,
+      withQueueToken(queueToken)),
+    // Atomic purchase: { quantity, paymentMethod, notes } -> { payment, ticket }; 409 when not enough are left
+    purchase: (id, purchaseData, queueToken) => apiCall(`/api/tickets/${id}/purchase`, {
+      method: 'POST',
+      ...withQueueToken(queueToken),
+      body: JSON.stringify(purchaseData),
+    }),
+    // Holds keep { quantity } tickets for the user while they pay -> { hold, ticket }; confirm with
+    // { paymentMethod, notes } -> { payment, ticket } (410 once the hold expired), or release it
+    hold: (id, holdData, queueToken) => apiCall(`/api/tickets/${id}/holds`, {
+      method: 'POST',
+      ...withQueueToken(queueToken),
+      body: JSON.stringify(holdData),
+    }),
+    confirmHold: (holdId, confirmData) => apiCall(`/api/tickets/holds/${holdId}/confirm`, {
+      method: 'POST',
+      body: JSON.stringify(confirmData),
+    }),
+    releaseHold: (holdId) => apiCall(`/api/tickets/holds/${holdId}`, {
+      method: 'DELETE',
+    }),
+    // Flash sale mode for hot tickets (organizers/admins); both return the ticket
+    startFlashSale: (id) => apiCall(`/api/tickets/${id}/flash-sale`, {
+      method: 'POST',
+    }),
+    endFlashSale: (id) => apiCall(`/api/tickets/${id}/flash-sale`, {
+      method: 'DELETE',
+    }),
     create: (ticketData) => apiCall('/api/tickets', {
       method: 'POST',
       body: JSON.stringify(ticketData),